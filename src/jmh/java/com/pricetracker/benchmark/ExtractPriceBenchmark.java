@@ -0,0 +1,86 @@
+package com.pricetracker.benchmark;
+
+import com.pricetracker.model.Product;
+import com.pricetracker.service.PriceExtractor;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full extraction (structured data, selector cascade, body-text fallback) on already parsed
+ * fixture pages. Each fixture exercises a different exit point of the cascade, and setup checks
+ * that it still yields its known price and source, so a faster but wrong exit fails the run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExtractPriceBenchmark {
+    
+    private static final Map<String, Expected> EXPECTED = Map.of(
+            "jsonld", new Expected(3299.0, PriceExtractor.SOURCE_JSON_LD),
+            "microdata", new Expected(2849.0, PriceExtractor.SOURCE_MICRODATA),
+            "amazon", new Expected(1499.0, ".a-price-whole"),
+            "flipkart", new Expected(16999.0, "._30jeq3"),
+            "textonly", new Expected(2150.0, PriceExtractor.SOURCE_BODY_TEXT));
+    
+    @Param({"jsonld", "microdata", "amazon", "flipkart", "textonly"})
+    public String fixture;
+    
+    @Param({"0", "256"})
+    public int fillerKb;
+    
+    private final PriceExtractor extractor = new PriceExtractor();
+    private Document document;
+    private Product product;
+    
+    @Setup
+    public void setup() {
+        document = Jsoup.parse(Fixtures.load(fixture, fillerKb), Fixtures.BASE_URI);
+        product = new Product();
+        product.setName("Benchmark " + fixture);
+        product.setUrl(Fixtures.BASE_URI + fixture);
+        PriceExtractor.Extraction extraction = extractor.extract(document, product);
+        Expected expected = EXPECTED.get(fixture);
+        if (extraction.getPrice() == null || extraction.getPrice() != expected.price
+                || !expected.source.equals(extraction.getSource())) {
+            throw new IllegalStateException("Fixture " + fixture + " yields " + extraction.getPrice() + " from "
+                    + extraction.getSource() + ", expected " + expected.price + " from " + expected.source);
+        }
+    }
+    
+    @Benchmark
+    public PriceExtractor.Extraction extract() {
+        return extractor.extract(document, product);
+    }
+    
+    @Benchmark
+    public PriceExtractor.Extraction extractStructured() {
+        return extractor.extractStructured(document);
+    }
+    
+    private static final class Expected {
+        private final double price;
+        private final String source;
+        
+        private Expected(double price, String source) {
+            this.price = price;
+            this.source = source;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.pricetracker.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Saved retailer pages under {@code src/jmh/resources/fixtures}. Each page has a
+ * {@code <!--FILLER-->} marker after the product block where recommendation cards are inserted,
+ * so the same page can be benchmarked at a realistic size (real product pages are 300KB-1MB).
+ */
+final class Fixtures {
+    
+    static final String BASE_URI = "https://www.example.in/";
+    
+    private Fixtures() {
+    }
+    
+    /**
+     * Load a fixture and pad it with roughly {@code fillerKb} kilobytes of product cards
+     */
+    static String load(String name, int fillerKb) {
+        String html;
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name + ".html")) {
+            if (in == null) {
+                throw new IllegalArgumentException("Unknown fixture: " + name);
+            }
+            html = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return html.replace("<!--FILLER-->", filler(fillerKb * 1024));
+    }
+    
+    // Cards deliberately avoid price-like class names so they never change which selector matches
+    private static String filler(int bytes) {
+        StringBuilder sb = new StringBuilder(bytes + 1024);
+        sb.append("<div class=\"carousel\"><h2>Customers who viewed this item also viewed</h2><ol>");
+        int i = 0;
+        while (sb.length() < bytes) {
+            i++;
+            sb.append("<li class=\"card\"><a href=\"/dp/B0").append(100000 + i).append("XY\">")
+              .append("<img src=\"https://img.example.in/I/").append(i).append(".jpg\" alt=\"Item ").append(i).append("\">")
+              .append("<div class=\"card-title\">Recommended item ").append(i)
+              .append(" with a reasonably long marketing title, colour variant and pack size</div>")
+              .append("<div class=\"card-rating\">4.").append(i % 10).append(" out of 5 stars (").append(i * 37).append(")</div>")
+              .append("<div class=\"card-amt\">₹").append(299 + i * 13).append("</div></a></li>");
+        }
+        sb.append("</ol></div>");
+        return sb.toString();
+    }
+}
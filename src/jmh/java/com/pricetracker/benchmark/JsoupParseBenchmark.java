@@ -0,0 +1,50 @@
+package com.pricetracker.benchmark;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jsoup parse of fixture pages from raw bytes, as the fetch path does after downloading a page.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsoupParseBenchmark {
+    
+    @Param({"amazon", "flipkart", "jsonld"})
+    public String fixture;
+    
+    @Param({"0", "256", "1024"})
+    public int fillerKb;
+    
+    private byte[] page;
+    
+    @Setup
+    public void setup() {
+        page = Fixtures.load(fixture, fillerKb).getBytes(StandardCharsets.UTF_8);
+    }
+    
+    @Benchmark
+    public Document parse() throws IOException {
+        return Jsoup.parse(new ByteArrayInputStream(page), null, Fixtures.BASE_URI);
+    }
+}
@@ -0,0 +1,64 @@
+package com.pricetracker.benchmark;
+
+import com.pricetracker.service.PriceExtractor;
+import org.jsoup.Jsoup;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code PriceExtractor.parsePrice} on the short fragments selectors return and on the whole
+ * body text the fallback path hands it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParsePriceBenchmark {
+    
+    private final PriceExtractor extractor = new PriceExtractor();
+    
+    @Benchmark
+    public Double parseShortRupee() {
+        return extractor.parsePrice("₹1,499.00");
+    }
+    
+    @Benchmark
+    public Double parseShortMrpLine() {
+        return extractor.parsePrice("M.R.P.: ₹4,990.00 (70% off) Inclusive of all taxes");
+    }
+    
+    @Benchmark
+    public Double parseFullBody(BodyText body) {
+        return extractor.parsePrice(body.text);
+    }
+    
+    @State(Scope.Benchmark)
+    public static class BodyText {
+        
+        @Param({"amazon", "textonly"})
+        public String fixture;
+        
+        @Param({"0", "256"})
+        public int fillerKb;
+        
+        String text;
+        
+        @Setup
+        public void setup() {
+            text = Jsoup.parse(Fixtures.load(fixture, fillerKb), Fixtures.BASE_URI).body().text();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.pricetracker.benchmark;
+
+import com.pricetracker.ProductPriceTrackerApplication;
+import com.pricetracker.model.PriceEvent;
+import com.pricetracker.model.Product;
+import com.pricetracker.repository.ProductRepository;
+import com.pricetracker.service.PriceEventLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Repository write throughput against an in-memory H2, using the real JPA mappings.
+ * {@code recordPrice} goes through {@link PriceEventLog#append}, the write path of a successful
+ * price check (product row, history point and alert events in one transaction);
+ * {@code insertProducts} mirrors one bulk import batch.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+    
+    private static final int PRODUCTS = 100;
+    private static final int BATCH = 100;
+    
+    private ConfigurableApplicationContext context;
+    private ProductRepository productRepository;
+    private PriceEventLog priceEventLog;
+    private TransactionTemplate transactionTemplate;
+    private final List<Product> products = new ArrayList<>();
+    private long counter;
+    
+    @Setup(Level.Trial)
+    public void startContext() {
+        // Passed as arguments so they take precedence over application.properties
+        context = new SpringApplicationBuilder(ProductPriceTrackerApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.main.banner-mode=off",
+                        "--spring.devtools.restart.enabled=false",
+                        "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+                        "--spring.sql.init.mode=never",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.pricetracker=WARN",
+                        "--app.notification.email.enabled=false",
+                        "--app.notification.desktop.enabled=false",
+                        "--app.retention.enabled=false");
+        productRepository = context.getBean(ProductRepository.class);
+        priceEventLog = context.getBean(PriceEventLog.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(productRepository.save(newProduct(i)));
+        }
+    }
+    
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+    
+    @Benchmark
+    public List<PriceEvent> recordPrice() {
+        long n = counter++;
+        Product product = products.get((int) (n % PRODUCTS));
+        // Mostly rising prices, with a periodic drop that logs a PRICE_DROP alert
+        double price = 1000 + (n % 500);
+        return priceEventLog.append(product, price);
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<Product> insertProducts() {
+        List<Product> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            batch.add(newProduct((int) (counter++ % 1_000_000)));
+        }
+        return transactionTemplate.execute(status -> productRepository.saveAll(batch));
+    }
+    
+    // Inactive so the scheduled price check never tries to fetch benchmark products
+    private static Product newProduct(int i) {
+        Product product = new Product();
+        product.setName("Benchmark product " + i);
+        product.setUrl("http://127.0.0.1:9/product/" + i);
+        product.setTargetPrice(999.0);
+        product.setCurrentPrice(1200.0);
+        product.setIsActive(false);
+        return product;
+    }
+}
@@ -0,0 +1,114 @@
+package com.pricetracker.benchmark;
+
+import com.pricetracker.service.ProductCatalogIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dashboard queries against {@link ProductCatalogIndex}, and the same filter-then-sort done with
+ * a scan of every product as the baseline. Names are drawn from a small vocabulary so common
+ * words match a large share of the catalog, as brand and category words do.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProductCatalogIndexBenchmark {
+
+    private static final String[] BRANDS = {"Samsung", "Apple", "Sony", "Boat", "Lenovo", "Philips", "Prestige", "Nike"};
+    private static final String[] ITEMS = {"Phone", "Headphones", "Laptop", "Watch", "Speaker", "Kettle", "Shoes", "Monitor"};
+    private static final String[] HOSTS = {"www.amazon.in", "www.flipkart.com", "www.croma.com", "www.myntra.com"};
+
+    @Param({"1000", "50000"})
+    public int products;
+
+    private ProductCatalogIndex index;
+    private List<ProductCatalogIndex.Entry> all;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        index = new ProductCatalogIndex();
+        all = new ArrayList<>(products);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < products; i++) {
+            String name = BRANDS[random.nextInt(BRANDS.length)] + " " + ITEMS[random.nextInt(ITEMS.length)]
+                    + " Model " + Integer.toString(random.nextInt(100_000), 36).toUpperCase(Locale.ROOT);
+            double high = 500 + random.nextInt(50_000);
+            double price = Math.round(high * (0.5 + random.nextDouble() * 0.5));
+            ProductCatalogIndex.Entry entry = new ProductCatalogIndex.Entry(i, name, HOSTS[random.nextInt(HOSTS.length)],
+                    random.nextInt(10) > 0, price, Math.round(high * 0.8), high, now.minusMinutes(random.nextInt(10_000)), null);
+            index.put(entry);
+            all.add(entry);
+        }
+    }
+
+    @Benchmark
+    public int firstPage() {
+        return index.search(query(null, null, null, ProductCatalogIndex.Sort.ID, false)).getItems().size();
+    }
+
+    @Benchmark
+    public int textSearch() {
+        return index.search(query("sony head", null, null, ProductCatalogIndex.Sort.PRICE, false)).getTotal();
+    }
+
+    @Benchmark
+    public int belowTargetByDiscount() {
+        return index.search(query(null, null, true, ProductCatalogIndex.Sort.DISCOUNT, true)).getTotal();
+    }
+
+    @Benchmark
+    public int hostByLastChecked() {
+        return index.search(query(null, "www.croma.com", null, ProductCatalogIndex.Sort.LAST_CHECKED, true)).getTotal();
+    }
+
+    @Benchmark
+    public int scanBelowTargetByDiscount() {
+        List<ProductCatalogIndex.Entry> matches = new ArrayList<>();
+        for (ProductCatalogIndex.Entry entry : all) {
+            if (entry.isBelowTarget()) {
+                matches.add(entry);
+            }
+        }
+        matches.sort(Comparator.comparingDouble(ProductCatalogIndex.Entry::getDiscountPercent).reversed());
+        return matches.size();
+    }
+
+    @Benchmark
+    public int scanTextSearch() {
+        List<ProductCatalogIndex.Entry> matches = new ArrayList<>();
+        for (ProductCatalogIndex.Entry entry : all) {
+            String name = entry.getName().toLowerCase(Locale.ROOT);
+            if (name.contains("sony") && name.contains("head")) {
+                matches.add(entry);
+            }
+        }
+        matches.sort(Comparator.comparingDouble(ProductCatalogIndex.Entry::getCurrentPrice));
+        return matches.size();
+    }
+
+    private static ProductCatalogIndex.Query query(String text, String host, Boolean belowTarget,
+                                                   ProductCatalogIndex.Sort sort, boolean descending) {
+        return new ProductCatalogIndex.Query(text, host, null, belowTarget, null, sort, descending, 0, 50);
+    }
+}
@@ -0,0 +1,83 @@
+package com.pricetracker.benchmark;
+
+import com.pricetracker.service.SubscriberIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matching one price observation against a product's subscribers: the {@link SubscriberIndex}
+ * range queries against a scan of every subscriber with the same alert semantics. Prices follow
+ * a random walk of up to 2% per check, so most checks cross only a few targets.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SubscriberIndexBenchmark {
+    
+    @Param({"100", "10000", "50000"})
+    public int subscribers;
+    
+    private SubscriberIndex index;
+    private double[] targets;
+    private boolean[] notified;
+    private double[] walk;
+    private int step;
+    
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        index = new SubscriberIndex();
+        targets = new double[subscribers];
+        notified = new boolean[subscribers];
+        for (int i = 0; i < subscribers; i++) {
+            targets[i] = Math.round(800 + random.nextDouble() * 400);
+            index.add(new SubscriberIndex.Subscriber(i, targets[i], null, true, false), false);
+        }
+        walk = new double[4096];
+        double price = 1000;
+        for (int i = 0; i < walk.length; i++) {
+            price = Math.max(700, Math.min(1300, price * (1 + (random.nextDouble() - 0.5) * 0.04)));
+            walk[i] = Math.round(price);
+        }
+    }
+    
+    @Benchmark
+    public int index() {
+        double price = nextPrice();
+        return index.crossedBelow(price).size() + index.rearmed(price).size();
+    }
+    
+    @Benchmark
+    public int scan() {
+        double price = nextPrice();
+        int hits = 0;
+        for (int i = 0; i < targets.length; i++) {
+            boolean below = price < targets[i];
+            if (below != notified[i]) {
+                notified[i] = below;
+                hits++;
+            }
+        }
+        return hits;
+    }
+    
+    private double nextPrice() {
+        step = (step + 1) & (walk.length - 1);
+        return walk[step];
+    }
+}
@@ -0,0 +1,341 @@
+package com.pricetracker.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pricetracker.ProductPriceTrackerApplication;
+import com.pricetracker.model.Product;
+import com.pricetracker.repository.ProductRepository;
+import com.pricetracker.service.PriceTrackerMetrics;
+import com.pricetracker.service.PriceTrackingService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end load test: starts a {@link StubRetailerServer}, boots the application against an
+ * in-memory H2 seeded with products pointing at the stub, and runs full
+ * {@code checkAllActiveProducts} passes, reporting duration, throughput, per-stage latency
+ * percentiles, heap/GC and database write rates.
+ *
+ * Options are {@code name=value} (a leading {@code --} is accepted); see {@link #DEFAULTS}.
+ * With {@code proxies}, fetches go out through {@link StubProxyServer} egress routes.
+ * Runs entirely on localhost.
+ */
+public final class LoadTestRunner {
+    
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+    
+    static {
+        DEFAULTS.put("products", "1000");
+        DEFAULTS.put("passes", "2");
+        DEFAULTS.put("latency-ms", "50");
+        DEFAULTS.put("jitter-ms", "50");
+        DEFAULTS.put("error-rate", "0.01");
+        DEFAULTS.put("page-kb", "150");
+        DEFAULTS.put("price-change-rate", "0.2");
+        DEFAULTS.put("stub-threads", "64");
+        // Share of products whose price is filled in by a page script, and whether to render them
+        DEFAULTS.put("js-rate", "0");
+        DEFAULTS.put("render", "false");
+        // Pause between fetches inside a pass (the application default is 2000)
+        DEFAULTS.put("request-delay-ms", "0");
+        // Stub forward proxies used as egress routes (0 = direct), and how many of them answer 502
+        DEFAULTS.put("proxies", "0");
+        DEFAULTS.put("dead-proxies", "0");
+        // app.egress.host-requests-per-minute and app.tracking.pass-concurrency during the test
+        DEFAULTS.put("egress-rate", "0");
+        DEFAULTS.put("pass-concurrency", "0");
+        // Stub retailer's per-client limit: requests per second per proxy (or direct client), then 429
+        DEFAULTS.put("client-rate", "0");
+        // Level for com.pricetracker; INFO gives the production logging cost
+        DEFAULTS.put("log-level", "ERROR");
+        DEFAULTS.put("report", "target/loadtest-report.json");
+    }
+    
+    private static final String[] STAGES = {
+            PriceTrackerMetrics.FETCH_NETWORK, PriceTrackerMetrics.FETCH_PARSE, PriceTrackerMetrics.FETCH_RENDER,
+            PriceTrackerMetrics.EXTRACT, PriceTrackerMetrics.PERSIST
+    };
+    
+    private LoadTestRunner() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int products = Integer.parseInt(options.get("products"));
+        int passes = Integer.parseInt(options.get("passes"));
+        
+        try (StubRetailerServer stub = new StubRetailerServer(products,
+                Long.parseLong(options.get("latency-ms")),
+                Long.parseLong(options.get("jitter-ms")),
+                Double.parseDouble(options.get("error-rate")),
+                Integer.parseInt(options.get("page-kb")),
+                Double.parseDouble(options.get("price-change-rate")),
+                Integer.parseInt(options.get("stub-threads")),
+                Double.parseDouble(options.get("js-rate")))) {
+            stub.limitPerClient(Integer.parseInt(options.get("client-rate")));
+            stub.start();
+            System.out.printf("Stub retailer farm on %s (%d products)%n", stub.productUrl(0).replace("/p/0", ""), products);
+            List<StubProxyServer> proxies = startProxies(Integer.parseInt(options.get("proxies")),
+                    Integer.parseInt(options.get("dead-proxies")));
+            String routes = String.join(",", proxies.stream().map(StubProxyServer::route).toList());
+            
+            try (ConfigurableApplicationContext context = startApplication(options, routes)) {
+                long seedStart = System.nanoTime();
+                seed(context, stub, products);
+                System.out.printf("Seeded %d products in %.1f s%n", products, seconds(System.nanoTime() - seedStart));
+                
+                PriceTrackingService trackingService = context.getBean(PriceTrackingService.class);
+                JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+                List<Map<String, Object>> passReports = new ArrayList<>();
+                for (int pass = 1; pass <= passes; pass++) {
+                    Map<String, Object> report = runPass(pass, products, trackingService, jdbc, stub);
+                    passReports.add(report);
+                    printPass(report);
+                }
+                
+                Map<String, Object> latency = latencyPercentiles(context.getBean(MeterRegistry.class));
+                printLatency(latency);
+                Map<String, Long> proxyRequests = new LinkedHashMap<>();
+                for (StubProxyServer proxy : proxies) {
+                    proxyRequests.put(proxy.getName(), proxy.getRequests());
+                    proxy.close();
+                }
+                if (!proxyRequests.isEmpty()) {
+                    System.out.println("Requests per proxy: " + proxyRequests);
+                }
+                
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("options", options);
+                result.put("passes", passReports);
+                result.put("latencyMillis", latency);
+                result.put("proxyRequests", proxyRequests);
+                File reportFile = new File(options.get("report"));
+                if (reportFile.getParentFile() != null) {
+                    reportFile.getParentFile().mkdirs();
+                }
+                new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(reportFile, result);
+                System.out.println("Report written to " + reportFile.getPath());
+            }
+        }
+        System.exit(0);
+    }
+    
+    private static List<StubProxyServer> startProxies(int count, int dead) throws IOException {
+        List<StubProxyServer> proxies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StubProxyServer proxy = new StubProxyServer("proxy-" + (i + 1), i < dead, 32);
+            proxy.start();
+            proxies.add(proxy);
+        }
+        if (count > 0) {
+            System.out.printf("%d stub proxies (%d dead) as egress routes%n", count, Math.min(dead, count));
+        }
+        return proxies;
+    }
+    
+    private static ConfigurableApplicationContext startApplication(Map<String, String> options, String egressRoutes) {
+        // DevTools would otherwise restart main() with the application arguments
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        // Passed as arguments so they take precedence over application.properties
+        return new SpringApplicationBuilder(ProductPriceTrackerApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.main.banner-mode=off",
+                        "--spring.datasource.url=jdbc:h2:mem:loadtest",
+                        "--spring.sql.init.mode=never",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        // Per-product warnings and fetch errors are aggregated in the report instead
+                        "--logging.level.com.pricetracker=" + options.get("log-level"),
+                        // H2 may already be closed when Spring runs its in-memory shutdown on exit
+                        "--logging.level.org.springframework.beans.factory.support.DisposableBeanAdapter=ERROR",
+                        "--app.notification.email.enabled=false",
+                        "--app.notification.desktop.enabled=false",
+                        "--app.retention.enabled=false",
+                        // Passes are driven by the harness, never by the scheduler
+                        "--app.tracking.initial-delay-ms=" + TimeUnit.DAYS.toMillis(365),
+                        "--app.tracking.request-delay-ms=" + options.get("request-delay-ms"),
+                        "--app.tracking.pass-concurrency=" + options.get("pass-concurrency"),
+                        "--app.egress.routes=" + egressRoutes,
+                        "--app.egress.host-requests-per-minute=" + options.get("egress-rate"),
+                        // Needs the render profile on the classpath (-Ploadtest,render)
+                        "--app.render.enabled=" + options.get("render"),
+                        "--management.metrics.distribution.percentiles.pricetracker=0.5,0.99",
+                        "--management.metrics.distribution.expiry.pricetracker=1d",
+                        "--management.metrics.distribution.buffer-length.pricetracker=1");
+    }
+    
+    static void seed(ConfigurableApplicationContext context, StubRetailerServer stub, int products) {
+        ProductRepository productRepository = context.getBean(ProductRepository.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        List<Product> batch = new ArrayList<>(1000);
+        for (int i = 0; i < products; i++) {
+            Product product = new Product();
+            product.setName("Load test product " + i);
+            product.setUrl(stub.productUrl(i));
+            product.setTargetPrice((double) Math.round(stub.basePrice(i) * 0.9));
+            product.setCurrentPrice(0.0);
+            batch.add(product);
+            if (batch.size() == 1000 || i == products - 1) {
+                transactionTemplate.executeWithoutResult(status -> productRepository.saveAll(batch));
+                batch.clear();
+            }
+        }
+    }
+    
+    private static Map<String, Object> runPass(int pass, int products, PriceTrackingService trackingService,
+                                               JdbcTemplate jdbc, StubRetailerServer stub) {
+        long requestsBefore = stub.getRequests();
+        long errorsBefore = stub.getErrors();
+        long throttledBefore = stub.getThrottled();
+        long bytesBefore = stub.getBytesServed();
+        long historyBefore = countHistory(jdbc);
+        long[] gcBefore = gcTotals();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+        }
+        
+        long start = System.nanoTime();
+        trackingService.checkAllActiveProducts();
+        long elapsed = System.nanoTime() - start;
+        
+        double secs = seconds(elapsed);
+        long historyRows = countHistory(jdbc) - historyBefore;
+        long[] gcAfter = gcTotals();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("pass", pass);
+        report.put("durationSeconds", round(secs));
+        report.put("productsPerSecond", round(products / secs));
+        report.put("fetches", stub.getRequests() - requestsBefore);
+        report.put("stubErrors", stub.getErrors() - errorsBefore);
+        report.put("throttled", stub.getThrottled() - throttledBefore);
+        report.put("megabytesServed", round((stub.getBytesServed() - bytesBefore) / 1048576.0));
+        report.put("historyRowsWritten", historyRows);
+        report.put("historyRowsPerSecond", round(historyRows / secs));
+        report.put("gcCount", gcAfter[0] - gcBefore[0]);
+        report.put("gcMillis", gcAfter[1] - gcBefore[1]);
+        report.put("heapUsedMb", round(ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() / 1048576.0));
+        report.put("heapPeakMb", round(heapPeak() / 1048576.0));
+        return report;
+    }
+    
+    private static Map<String, Object> latencyPercentiles(MeterRegistry registry) {
+        Map<String, Object> stages = new LinkedHashMap<>();
+        for (String stage : STAGES) {
+            for (Timer timer : registry.find(stage).timers()) {
+                HistogramSnapshot snapshot = timer.takeSnapshot();
+                Map<String, Object> values = new LinkedHashMap<>();
+                values.put("count", snapshot.count());
+                values.put("mean", round(snapshot.mean(TimeUnit.MILLISECONDS)));
+                for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                    values.put("p" + Math.round(percentile.percentile() * 100), round(percentile.value(TimeUnit.MILLISECONDS)));
+                }
+                values.put("max", round(snapshot.max(TimeUnit.MILLISECONDS)));
+                stages.put(stage + describeTags(timer), values);
+            }
+        }
+        return stages;
+    }
+    
+    private static String describeTags(Timer timer) {
+        StringBuilder sb = new StringBuilder();
+        for (Tag tag : timer.getId().getTags()) {
+            if (!tag.getKey().equals("host")) {
+                sb.append(sb.length() == 0 ? "{" : ",").append(tag.getKey()).append('=').append(tag.getValue());
+            }
+        }
+        return sb.length() == 0 ? "" : sb.append('}').toString();
+    }
+    
+    private static void printPass(Map<String, Object> r) {
+        System.out.printf("Pass %s: %ss, %s products/s, %s fetches (%s stub errors, %s throttled, %s MB), %s history rows (%s/s), "
+                        + "GC %s collections / %s ms, heap %s MB (peak %s MB)%n",
+                r.get("pass"), r.get("durationSeconds"), r.get("productsPerSecond"), r.get("fetches"), r.get("stubErrors"),
+                r.get("throttled"), r.get("megabytesServed"), r.get("historyRowsWritten"), r.get("historyRowsPerSecond"), r.get("gcCount"),
+                r.get("gcMillis"), r.get("heapUsedMb"), r.get("heapPeakMb"));
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static void printLatency(Map<String, Object> latency) {
+        System.out.println("Per-stage latency over all passes (ms):");
+        for (Map.Entry<String, Object> entry : latency.entrySet()) {
+            Map<String, Object> v = (Map<String, Object>) entry.getValue();
+            System.out.printf("  %-60s n=%-7s p50=%-9s p99=%-9s max=%s%n",
+                    entry.getKey(), v.get("count"), v.get("p50"), v.get("p99"), v.get("max"));
+        }
+    }
+    
+    private static long countHistory(JdbcTemplate jdbc) {
+        Long count = jdbc.queryForObject("SELECT COUNT(*) FROM price_history", Long.class);
+        return count != null ? count : 0;
+    }
+    
+    private static long[] gcTotals() {
+        long count = 0;
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[]{count, millis};
+    }
+    
+    private static long heapPeak() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+    
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        Map<String, String> given = new HashMap<>();
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            int eq = option.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected name=value but got: " + arg);
+            }
+            given.put(option.substring(0, eq), option.substring(eq + 1));
+        }
+        for (Map.Entry<String, String> entry : given.entrySet()) {
+            if (!options.containsKey(entry.getKey())) {
+                throw new IllegalArgumentException("Unknown option --" + entry.getKey() + "; known: " + DEFAULTS.keySet());
+            }
+            options.put(entry.getKey(), entry.getValue());
+        }
+        return options;
+    }
+    
+    private static double seconds(long nanos) {
+        return nanos / 1_000_000_000.0;
+    }
+    
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
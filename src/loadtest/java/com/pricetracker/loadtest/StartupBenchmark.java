@@ -0,0 +1,233 @@
+package com.pricetracker.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup benchmark: launches the application in a fresh JVM per run and measures the time from
+ * process start to the first successful HTTP response, plus the resident set size at that point.
+ *
+ * Every mode runs the same classpath layout produced by {@code mvn -Paot package}
+ * ({@code target/cds}), so the only differences are the profile and the JVM flags:
+ * <ul>
+ *   <li>{@code baseline}: default configuration</li>
+ *   <li>{@code prod}: {@code prod} profile (template cache, no H2 console or SQL echo)</li>
+ *   <li>{@code prod-aot}: {@code prod} plus the AOT-generated bean definitions</li>
+ *   <li>{@code prod-aot-cds}: {@code prod-aot} plus the CDS archive from the training run</li>
+ * </ul>
+ *
+ * Options are {@code name=value} (a leading {@code --} is accepted); see {@link #DEFAULTS}.
+ * RSS is read from {@code /proc} and reported as -1 on other platforms.
+ */
+public final class StartupBenchmark {
+    
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+    
+    static {
+        DEFAULTS.put("runs", "5");
+        DEFAULTS.put("modes", "baseline,prod,prod-aot,prod-aot-cds");
+        // First request: the dashboard renders a Thymeleaf template and queries the database
+        DEFAULTS.put("path", "/");
+        DEFAULTS.put("cds-dir", "target/cds");
+        DEFAULTS.put("jvm-args", "-Xmx512m");
+        DEFAULTS.put("timeout-s", "120");
+        DEFAULTS.put("report", "target/startup-report.json");
+    }
+    
+    private static final String MAIN_CLASS = "com.pricetracker.ProductPriceTrackerApplication";
+    
+    private StartupBenchmark() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        File cdsDir = new File(options.get("cds-dir"));
+        File appJar = findAppJar(cdsDir);
+        String classpath = appJar.getPath() + File.pathSeparator + new File(cdsDir, "lib").getPath() + File.separator + "*";
+        int runs = Integer.parseInt(options.get("runs"));
+        
+        Map<String, Object> results = new LinkedHashMap<>();
+        System.out.printf("%-14s %12s %12s %10s %10s%n", "mode", "first-req ms", "min ms", "RSS MB", "min MB");
+        for (String mode : options.get("modes").split(",")) {
+            List<Long> millis = new ArrayList<>();
+            List<Long> rssKb = new ArrayList<>();
+            for (int run = 0; run < runs; run++) {
+                long[] sample = launch(mode.trim(), classpath, cdsDir, options);
+                millis.add(sample[0]);
+                rssKb.add(sample[1]);
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("firstRequestMillisMedian", median(millis));
+            result.put("firstRequestMillisMin", millis.stream().mapToLong(Long::longValue).min().orElse(-1));
+            result.put("rssMbMedian", median(rssKb) / 1024.0);
+            result.put("rssMbMin", rssKb.stream().mapToLong(Long::longValue).min().orElse(-1) / 1024.0);
+            result.put("firstRequestMillis", millis);
+            result.put("rssKb", rssKb);
+            results.put(mode.trim(), result);
+            System.out.printf("%-14s %12d %12d %10.1f %10.1f%n", mode.trim(),
+                    result.get("firstRequestMillisMedian"), result.get("firstRequestMillisMin"),
+                    result.get("rssMbMedian"), result.get("rssMbMin"));
+        }
+        
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("options", options);
+        report.put("results", results);
+        File reportFile = new File(options.get("report"));
+        if (reportFile.getParentFile() != null) {
+            reportFile.getParentFile().mkdirs();
+        }
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(reportFile, report);
+        System.out.println("Report written to " + reportFile.getPath());
+    }
+    
+    /**
+     * Start one JVM and return {time to first 2xx response in ms, RSS in kB at that point}
+     */
+    private static long[] launch(String mode, String classpath, File cdsDir, Map<String, String> options) throws Exception {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        String jvmArgs = options.get("jvm-args").trim();
+        if (!jvmArgs.isEmpty()) {
+            command.addAll(Arrays.asList(jvmArgs.split("\\s+")));
+        }
+        switch (mode) {
+            case "baseline", "prod" -> { }
+            case "prod-aot" -> command.add("-Dspring.aot.enabled=true");
+            case "prod-aot-cds" -> {
+                File archive = new File(cdsDir, "app.jsa");
+                if (!archive.isFile()) {
+                    throw new IllegalStateException("No CDS archive at " + archive + "; run mvn -Paot package first");
+                }
+                command.add("-XX:SharedArchiveFile=" + archive.getPath());
+                command.add("-Dspring.aot.enabled=true");
+            }
+            default -> throw new IllegalArgumentException("Unknown mode " + mode + "; known: baseline, prod, prod-aot, prod-aot-cds");
+        }
+        command.add("-cp");
+        command.add(classpath);
+        command.add(MAIN_CLASS);
+        if (!mode.equals("baseline")) {
+            command.add("--spring.profiles.active=prod");
+        }
+        command.add("--server.port=" + port);
+        command.add("--spring.datasource.url=jdbc:h2:mem:startup");
+        command.add("--spring.sql.init.mode=never");
+        command.add("--app.notification.email.enabled=false");
+        command.add("--app.notification.desktop.enabled=false");
+        command.add("--app.retention.enabled=false");
+        // Measure startup only, not the first price check pass
+        command.add("--app.tracking.initial-delay-ms=" + TimeUnit.DAYS.toMillis(365));
+        
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        try {
+            long deadline = start + TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("timeout-s")));
+            URL url = new URL("http://127.0.0.1:" + port + options.get("path"));
+            while (true) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException(mode + ": application exited with code " + process.exitValue());
+                }
+                if (System.nanoTime() > deadline) {
+                    throw new IllegalStateException(mode + ": no response within " + options.get("timeout-s") + " s");
+                }
+                if (respondsOk(url)) {
+                    break;
+                }
+                Thread.sleep(10);
+            }
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            return new long[]{millis, rssKb(process.pid())};
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+    
+    private static boolean respondsOk(URL url) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+            connection.setConnectTimeout(200);
+            connection.setReadTimeout(30000);
+            int status = connection.getResponseCode();
+            connection.getInputStream().readAllBytes();
+            connection.disconnect();
+            return status >= 200 && status < 300;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+    
+    private static long rssKb(long pid) {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        try {
+            for (String line : Files.readAllLines(status)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Not Linux, or the process is already gone
+        }
+        return -1;
+    }
+    
+    private static File findAppJar(File cdsDir) {
+        File[] jars = cdsDir.listFiles((dir, name) -> name.endsWith("-app.jar"));
+        if (jars == null || jars.length == 0) {
+            throw new IllegalStateException("No application jar in " + cdsDir + "; run mvn -Paot package first");
+        }
+        return jars[0];
+    }
+    
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+    
+    private static long median(List<Long> values) {
+        List<Long> sorted = new ArrayList<>(values);
+        sorted.sort(null);
+        return sorted.get(sorted.size() / 2);
+    }
+    
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        Map<String, String> given = new HashMap<>();
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            int eq = option.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected name=value but got: " + arg);
+            }
+            given.put(option.substring(0, eq), option.substring(eq + 1));
+        }
+        for (Map.Entry<String, String> entry : given.entrySet()) {
+            if (!options.containsKey(entry.getKey())) {
+                throw new IllegalArgumentException("Unknown option --" + entry.getKey() + "; known: " + DEFAULTS.keySet());
+            }
+            options.put(entry.getKey(), entry.getValue());
+        }
+        return options;
+    }
+}
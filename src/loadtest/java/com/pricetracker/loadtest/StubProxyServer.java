@@ -0,0 +1,105 @@
+package com.pricetracker.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.URI;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Minimal HTTP forward proxy on 127.0.0.1, standing in for one outbound egress route.
+ *
+ * Forwards plain-HTTP GETs to the stub retailer with an {@code X-Egress} header naming the
+ * proxy, so the stub can apply its per-client rate limit per proxy as a retailer would per IP.
+ * A dead proxy answers every request with 502.
+ */
+final class StubProxyServer implements AutoCloseable {
+    
+    static final String EGRESS_HEADER = "X-Egress";
+    
+    private final String name;
+    private final boolean dead;
+    private final ExecutorService executor;
+    private final HttpServer server;
+    private final AtomicLong requests = new AtomicLong();
+    
+    StubProxyServer(String name, boolean dead, int threads) throws IOException {
+        this.name = name;
+        this.dead = dead;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 256);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+    }
+    
+    void start() {
+        server.start();
+    }
+    
+    /**
+     * The route to configure in {@code app.egress.routes}
+     */
+    String route() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+    
+    String getName() {
+        return name;
+    }
+    
+    long getRequests() {
+        return requests.get();
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            // Proxied requests carry the absolute target URL
+            URI target = exchange.getRequestURI();
+            if (dead || target.getHost() == null || !"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(502, -1);
+                return;
+            }
+            HttpURLConnection connection = (HttpURLConnection) target.toURL().openConnection(Proxy.NO_PROXY);
+            connection.setRequestProperty(EGRESS_HEADER, name);
+            String userAgent = exchange.getRequestHeaders().getFirst("User-Agent");
+            if (userAgent != null) {
+                connection.setRequestProperty("User-Agent", userAgent);
+            }
+            int status = connection.getResponseCode();
+            InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            byte[] body = in != null ? in.readAllBytes() : new byte[0];
+            String contentType = connection.getContentType();
+            if (contentType != null) {
+                exchange.getResponseHeaders().set("Content-Type", contentType);
+            }
+            exchange.sendResponseHeaders(status, body.length > 0 ? body.length : -1);
+            if (body.length > 0) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        }
+    }
+    
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
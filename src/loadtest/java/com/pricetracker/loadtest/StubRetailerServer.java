@@ -0,0 +1,260 @@
+package com.pricetracker.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Embedded HTTP server on 127.0.0.1 serving synthetic product pages at {@code /p/{id}}.
+ *
+ * Pages rotate through the markup styles the extractor handles (JSON-LD, microdata, Amazon-like
+ * and Flipkart-like selectors) and are padded with recommendation cards to the configured size.
+ * Each request may change the product's price, fail with a 503, and is delayed by
+ * {@code latency + random(0..jitter)} milliseconds.
+ *
+ * A share of the products ({@code jsRate}) fill in their price with an inline script, as
+ * client-side rendered shops do. Their URLs use the host {@code localhost} instead of
+ * {@code 127.0.0.1}, so the render tier can learn them as a separate host.
+ *
+ * Like a retailer limiting each client address, the server can answer 429 to a client over a
+ * number of requests per second. Requests through a {@link StubProxyServer} count against the
+ * proxy, direct requests against one shared client.
+ */
+final class StubRetailerServer implements AutoCloseable {
+    
+    private final int products;
+    private final long latencyMs;
+    private final long jitterMs;
+    private final double errorRate;
+    private final double priceChangeRate;
+    private final double jsRate;
+    private final String filler;
+    private final AtomicLongArray pricesPaise;
+    private final ExecutorService executor;
+    private final HttpServer server;
+    
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong priceChanges = new AtomicLong();
+    private final AtomicLong bytesServed = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+    private final Map<String, long[]> clientWindows = new ConcurrentHashMap<>();
+    private volatile int clientRequestsPerSecond;
+    
+    StubRetailerServer(int products, long latencyMs, long jitterMs, double errorRate,
+                       int pageKb, double priceChangeRate, int threads, double jsRate) throws IOException {
+        this.products = products;
+        this.latencyMs = latencyMs;
+        this.jitterMs = jitterMs;
+        this.errorRate = errorRate;
+        this.priceChangeRate = priceChangeRate;
+        this.jsRate = jsRate;
+        this.filler = filler(pageKb * 1024);
+        this.pricesPaise = new AtomicLongArray(products);
+        for (int i = 0; i < products; i++) {
+            pricesPaise.set(i, basePricePaise(i));
+        }
+        
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "stub-retailer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        server.createContext("/p/", this::handle);
+        server.setExecutor(executor);
+    }
+    
+    void start() {
+        server.start();
+    }
+    
+    /**
+     * Answer 429 to each client over this many requests per second (0 = no limit)
+     */
+    void limitPerClient(int requestsPerSecond) {
+        this.clientRequestsPerSecond = requestsPerSecond;
+    }
+    
+    String productUrl(int id) {
+        String host = isJsRendered(id) ? "localhost" : "127.0.0.1";
+        return "http://" + host + ":" + server.getAddress().getPort() + "/p/" + id;
+    }
+    
+    /**
+     * Whether the product's price is only present after its page script has run
+     */
+    boolean isJsRendered(int id) {
+        // Spread over the id range rather than taking the first ids
+        return (id * 37L % 1000) < Math.round(jsRate * 1000);
+    }
+    
+    /**
+     * Initial price of a product, in rupees
+     */
+    double basePrice(int id) {
+        return basePricePaise(id) / 100.0;
+    }
+    
+    long getRequests() {
+        return requests.get();
+    }
+    
+    long getErrors() {
+        return errors.get();
+    }
+    
+    long getPriceChanges() {
+        return priceChanges.get();
+    }
+    
+    long getBytesServed() {
+        return bytesServed.get();
+    }
+    
+    long getThrottled() {
+        return throttled.get();
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            if (overClientLimit(exchange)) {
+                throttled.incrementAndGet();
+                exchange.sendResponseHeaders(429, -1);
+                return;
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long delay = latencyMs + (jitterMs > 0 ? random.nextLong(jitterMs + 1) : 0);
+            if (delay > 0) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(delay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            
+            int id;
+            try {
+                id = Integer.parseInt(exchange.getRequestURI().getPath().substring(3));
+            } catch (NumberFormatException e) {
+                id = -1;
+            }
+            if (id < 0 || id >= products) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            if (random.nextDouble() < errorRate) {
+                errors.incrementAndGet();
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            
+            long price = pricesPaise.get(id);
+            if (random.nextDouble() < priceChangeRate) {
+                // Move by -15%..+10%, so drops below target happen regularly
+                long changed = Math.max(100, Math.round(price * (0.85 + random.nextDouble() * 0.25)));
+                pricesPaise.set(id, changed);
+                priceChanges.incrementAndGet();
+                price = changed;
+            }
+            
+            byte[] body = page(id, price / 100.0).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+            bytesServed.addAndGet(body.length);
+        }
+    }
+    
+    // Fixed one-second windows per client
+    private boolean overClientLimit(HttpExchange exchange) {
+        int limit = clientRequestsPerSecond;
+        if (limit <= 0) {
+            return false;
+        }
+        String client = exchange.getRequestHeaders().getFirst(StubProxyServer.EGRESS_HEADER);
+        long[] window = clientWindows.computeIfAbsent(client != null ? client : "direct", c -> new long[2]);
+        long second = System.nanoTime() / 1_000_000_000L;
+        synchronized (window) {
+            if (window[0] != second) {
+                window[0] = second;
+                window[1] = 0;
+            }
+            return ++window[1] > limit;
+        }
+    }
+    
+    private String page(int id, double price) {
+        String name = "Load test product " + id;
+        String amount = String.format("%.2f", price);
+        StringBuilder sb = new StringBuilder(filler.length() + 2048);
+        sb.append("<!DOCTYPE html><html><head><meta charset=\"utf-8\"><title>").append(name).append("</title>");
+        if (isJsRendered(id)) {
+            // Static markup only has the recommendation card prices, which the body-text fallback would pick
+            sb.append("</head><body><h1 class=\"B_NuCI\">").append(name)
+                    .append("</h1><div class=\"_30jeq3 _16Jk6d\" id=\"price\"></div>").append(filler)
+                    .append("<script>document.getElementById('price').textContent = '₹").append(amount)
+                    .append("';</script></body></html>");
+            return sb.toString();
+        }
+        switch (id % 4) {
+            case 0 -> sb.append("<script type=\"application/ld+json\">{\"@context\":\"https://schema.org\",\"@type\":\"Product\",\"name\":\"")
+                    .append(name).append("\",\"offers\":{\"@type\":\"Offer\",\"priceCurrency\":\"INR\",\"price\":\"")
+                    .append(amount).append("\"}}</script></head><body><h1>").append(name).append("</h1>");
+            case 1 -> sb.append("</head><body><div itemscope itemtype=\"https://schema.org/Product\"><h1 itemprop=\"name\">").append(name)
+                    .append("</h1><div itemprop=\"offers\" itemscope itemtype=\"https://schema.org/Offer\"><span itemprop=\"price\" content=\"")
+                    .append(amount).append("\">₹").append(amount).append("</span></div></div>");
+            case 2 -> sb.append("</head><body><h1 id=\"title\">").append(name)
+                    .append("</h1><span class=\"a-price\"><span class=\"a-price-symbol\">₹</span><span class=\"a-price-whole\">")
+                    .append(amount).append("</span></span>");
+            default -> sb.append("</head><body><h1 class=\"B_NuCI\">").append(name)
+                    .append("</h1><div class=\"_30jeq3 _16Jk6d\">₹").append(amount).append("</div>");
+        }
+        sb.append(filler).append("</body></html>");
+        return sb.toString();
+    }
+    
+    private static long basePricePaise(int id) {
+        return 49_900L + (id * 7919L % 5_000) * 1_000L;
+    }
+    
+    // Recommendation cards without price-like class names, so they never change which selector matches
+    private static String filler(int bytes) {
+        StringBuilder sb = new StringBuilder(bytes + 512);
+        sb.append("<div class=\"carousel\"><ol>");
+        int i = 0;
+        while (sb.length() < bytes) {
+            i++;
+            sb.append("<li class=\"card\"><a href=\"/p/").append(i).append("\"><img src=\"/img/").append(i).append(".jpg\" alt=\"\">")
+              .append("<div class=\"card-title\">Recommended item ").append(i)
+              .append(" with a reasonably long marketing title, colour variant and pack size</div>")
+              .append("<div class=\"card-amt\">₹").append(299 + i * 13).append("</div></a></li>");
+        }
+        sb.append("</ol></div>");
+        return sb.toString();
+    }
+    
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,278 @@
+package com.pricetracker.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pricetracker.ProductPriceTrackerApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the check-loop worker ({@code worker} profile) as a JVM jar and as a native image,
+ * using the load-test setup: a {@link StubRetailerServer} farm and a database seeded with
+ * products pointing at it.
+ *
+ * The database is seeded once into an H2 file and copied for every run, so each launch starts
+ * from the same state. Per run the benchmark records the time from process start to the
+ * "Started" log line and to the end of the first price check pass, the RSS after startup and
+ * the peak RSS ({@code VmHWM}) over the pass.
+ *
+ * Build first with {@code mvn package} (jar) and {@code mvn -Pnative package} (native binary);
+ * modes whose artifact is missing are skipped. Options are {@code name=value}; see {@link #DEFAULTS}.
+ */
+public final class WorkerBenchmark {
+    
+    private static final Map<String, String> DEFAULTS = new LinkedHashMap<>();
+    
+    static {
+        DEFAULTS.put("products", "500");
+        DEFAULTS.put("runs", "3");
+        DEFAULTS.put("modes", "jvm,native");
+        DEFAULTS.put("latency-ms", "50");
+        DEFAULTS.put("jitter-ms", "50");
+        DEFAULTS.put("error-rate", "0.01");
+        DEFAULTS.put("page-kb", "150");
+        DEFAULTS.put("jar", "target/product-price-tracker-1.0.0.jar");
+        DEFAULTS.put("native-binary", "target/product-price-tracker-worker");
+        DEFAULTS.put("jvm-args", "-Xmx512m");
+        DEFAULTS.put("timeout-s", "600");
+        DEFAULTS.put("report", "target/worker-report.json");
+    }
+    
+    private WorkerBenchmark() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        int products = Integer.parseInt(options.get("products"));
+        int runs = Integer.parseInt(options.get("runs"));
+        Path workDir = Files.createTempDirectory("worker-benchmark");
+        
+        try (StubRetailerServer stub = new StubRetailerServer(products,
+                Long.parseLong(options.get("latency-ms")),
+                Long.parseLong(options.get("jitter-ms")),
+                Double.parseDouble(options.get("error-rate")),
+                Integer.parseInt(options.get("page-kb")),
+                0.2, 64, 0)) {
+            stub.start();
+            Path seedDb = seedDatabase(workDir, stub, products);
+            
+            Map<String, Object> results = new LinkedHashMap<>();
+            System.out.printf("%-8s %10s %12s %12s %12s%n", "mode", "started ms", "1st pass ms", "RSS MB", "peak RSS MB");
+            for (String mode : options.get("modes").split(",")) {
+                mode = mode.trim();
+                List<String> launcher = launcher(mode, options);
+                if (launcher == null) {
+                    continue;
+                }
+                List<long[]> samples = new ArrayList<>();
+                for (int run = 0; run < runs; run++) {
+                    Path db = workDir.resolve(mode + "-" + run + ".mv.db");
+                    Files.copy(seedDb, db, StandardCopyOption.REPLACE_EXISTING);
+                    samples.add(launch(mode, launcher, db, options));
+                }
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("startedMillisMedian", median(samples, 0));
+                result.put("firstPassMillisMedian", median(samples, 1));
+                result.put("rssMbMedian", median(samples, 2) / 1024.0);
+                result.put("peakRssMbMedian", median(samples, 3) / 1024.0);
+                result.put("samples", samples);
+                results.put(mode, result);
+                System.out.printf("%-8s %10d %12d %12.1f %12.1f%n", mode,
+                        result.get("startedMillisMedian"), result.get("firstPassMillisMedian"),
+                        result.get("rssMbMedian"), result.get("peakRssMbMedian"));
+            }
+            
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("options", options);
+            report.put("results", results);
+            File reportFile = new File(options.get("report"));
+            if (reportFile.getParentFile() != null) {
+                reportFile.getParentFile().mkdirs();
+            }
+            new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(reportFile, report);
+            System.out.println("Report written to " + reportFile.getPath());
+        } finally {
+            try (var files = Files.walk(workDir)) {
+                files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+        System.exit(0);
+    }
+    
+    /**
+     * Create the schema and products in an H2 file database with an in-process context
+     */
+    private static Path seedDatabase(Path workDir, StubRetailerServer stub, int products) {
+        // DevTools would otherwise restart main() with the application arguments
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        String base = workDir.resolve("seed").toAbsolutePath().toString();
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(ProductPriceTrackerApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.main.banner-mode=off",
+                        "--spring.datasource.url=jdbc:h2:file:" + base,
+                        "--spring.sql.init.mode=never",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--app.notification.email.enabled=false",
+                        "--app.notification.desktop.enabled=false",
+                        "--app.retention.enabled=false",
+                        "--app.tracking.initial-delay-ms=" + TimeUnit.DAYS.toMillis(365))) {
+            LoadTestRunner.seed(context, stub, products);
+        }
+        System.out.printf("Seeded %d products in %.1f s%n", products, (System.nanoTime() - start) / 1e9);
+        return Path.of(base + ".mv.db");
+    }
+    
+    /**
+     * Command prefix for a mode, or null when its artifact has not been built
+     */
+    private static List<String> launcher(String mode, Map<String, String> options) {
+        List<String> command = new ArrayList<>();
+        switch (mode) {
+            case "jvm" -> {
+                File jar = new File(options.get("jar"));
+                if (!jar.isFile()) {
+                    System.out.println("Skipping jvm: no " + jar + " (mvn package)");
+                    return null;
+                }
+                command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+                String jvmArgs = options.get("jvm-args").trim();
+                if (!jvmArgs.isEmpty()) {
+                    command.addAll(Arrays.asList(jvmArgs.split("\\s+")));
+                }
+                command.add("-jar");
+                command.add(jar.getPath());
+            }
+            case "native" -> {
+                File binary = new File(options.get("native-binary"));
+                if (!binary.canExecute()) {
+                    System.out.println("Skipping native: no " + binary + " (mvn -Pnative package)");
+                    return null;
+                }
+                command.add(binary.getPath());
+            }
+            default -> throw new IllegalArgumentException("Unknown mode " + mode + "; known: jvm, native");
+        }
+        return command;
+    }
+    
+    /**
+     * Run one worker until its first pass completes and return
+     * {ms to started, ms to first pass, RSS kB after start, peak RSS kB}
+     */
+    private static long[] launch(String mode, List<String> launcher, Path db, Map<String, String> options) throws Exception {
+        String dbPath = db.toAbsolutePath().toString();
+        List<String> command = new ArrayList<>(launcher);
+        command.add("--spring.profiles.active=worker");
+        command.add("--spring.datasource.url=jdbc:h2:file:" + dbPath.substring(0, dbPath.length() - ".mv.db".length()));
+        command.add("--spring.sql.init.mode=never");
+        command.add("--app.notification.email.enabled=false");
+        command.add("--app.tracking.initial-delay-ms=0");
+        command.add("--app.tracking.request-delay-ms=0");
+        
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+        Thread reader = new Thread(() -> {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    lines.add(line);
+                }
+            } catch (IOException e) {
+                // Process ended
+            }
+        }, "worker-output");
+        reader.setDaemon(true);
+        reader.start();
+        
+        try {
+            long deadline = start + TimeUnit.SECONDS.toNanos(Long.parseLong(options.get("timeout-s")));
+            long startedMillis = -1;
+            long rssAfterStart = -1;
+            while (true) {
+                String line = lines.poll(100, TimeUnit.MILLISECONDS);
+                if (line == null) {
+                    if (!process.isAlive() && lines.isEmpty()) {
+                        throw new IllegalStateException(mode + ": worker exited with code " + process.exitValue());
+                    }
+                    if (System.nanoTime() > deadline) {
+                        throw new IllegalStateException(mode + ": first pass did not finish within " + options.get("timeout-s") + " s");
+                    }
+                    continue;
+                }
+                if (startedMillis < 0 && line.contains("Started ProductPriceTrackerApplication")) {
+                    startedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    rssAfterStart = procStatusKb(process.pid(), "VmRSS:");
+                } else if (line.contains("Completed price check")) {
+                    long passMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    return new long[]{startedMillis, passMillis, rssAfterStart, procStatusKb(process.pid(), "VmHWM:")};
+                }
+            }
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+    
+    private static long procStatusKb(long pid, String field) {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc", Long.toString(pid), "status"))) {
+                if (line.startsWith(field)) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Not Linux, or the process is already gone
+        }
+        return -1;
+    }
+    
+    private static long median(List<long[]> samples, int index) {
+        long[] values = samples.stream().mapToLong(s -> s[index]).sorted().toArray();
+        return values[values.length / 2];
+    }
+    
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>(DEFAULTS);
+        Map<String, String> given = new HashMap<>();
+        for (String arg : args) {
+            String option = arg.startsWith("--") ? arg.substring(2) : arg;
+            int eq = option.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected name=value but got: " + arg);
+            }
+            given.put(option.substring(0, eq), option.substring(eq + 1));
+        }
+        for (Map.Entry<String, String> entry : given.entrySet()) {
+            if (!options.containsKey(entry.getKey())) {
+                throw new IllegalArgumentException("Unknown option --" + entry.getKey() + "; known: " + DEFAULTS.keySet());
+            }
+            options.put(entry.getKey(), entry.getValue());
+        }
+        return options;
+    }
+}
@@ -0,0 +1,77 @@
+package com.pricetracker;
+
+import com.pricetracker.service.PriceHistoryExportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Command-line backup/restore of price history. Runs only when one of the options is given,
+ * then shuts the application down:
+ *
+ * <pre>
+ * java -jar app.jar --spring.main.web-application-type=none --export-history=backup.pth
+ * java -jar app.jar --spring.main.web-application-type=none --import-history=backup.pth [--replace-history]
+ * </pre>
+ */
+@Component
+public class PriceHistoryCommandRunner implements ApplicationRunner {
+    
+    private static final Logger log = LoggerFactory.getLogger(PriceHistoryCommandRunner.class);
+    
+    private final PriceHistoryExportService priceHistoryExportService;
+    private final ApplicationContext context;
+    
+    public PriceHistoryCommandRunner(PriceHistoryExportService priceHistoryExportService, ApplicationContext context) {
+        this.priceHistoryExportService = priceHistoryExportService;
+        this.context = context;
+    }
+    
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        String exportPath = optionValue(args, "export-history");
+        String importPath = optionValue(args, "import-history");
+        if (exportPath == null && importPath == null) {
+            return;
+        }
+        
+        int exitCode = 0;
+        try {
+            if (exportPath != null) {
+                try (FileChannel channel = FileChannel.open(Path.of(exportPath), StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    PriceHistoryExportService.ExportResult result = priceHistoryExportService.exportAll(channel);
+                    log.info("Wrote {} points for {} products to {}", result.getPoints(), result.getProducts(), exportPath);
+                }
+            }
+            if (importPath != null) {
+                try (FileChannel channel = FileChannel.open(Path.of(importPath), StandardOpenOption.READ)) {
+                    PriceHistoryExportService.ImportResult result =
+                            priceHistoryExportService.importAll(channel, args.containsOption("replace-history"));
+                    log.info("Loaded {} points for {} products from {}", result.getPoints(), result.getProducts(), importPath);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Price history command failed: {}", e.getMessage(), e);
+            exitCode = 1;
+        }
+        
+        int code = exitCode;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+    
+    private static String optionValue(ApplicationArguments args, String name) {
+        if (!args.containsOption(name) || args.getOptionValues(name).isEmpty()) {
+            return null;
+        }
+        return args.getOptionValues(name).get(0);
+    }
+}
@@ -0,0 +1,28 @@
+package com.pricetracker;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+
+/**
+ * Native image hints for lookups the AOT engine and the GraalVM reachability metadata
+ * repository do not cover. Hibernate and H2 themselves are described by the repository
+ * (enabled by the {@code native} profile); what remains are classes named in configuration
+ * and Jsoup's reflective loading of its authentication handler.
+ */
+public class PriceTrackerRuntimeHints implements RuntimeHintsRegistrar {
+    
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        // Loaded by name from spring.datasource.driverClassName and spring.jpa.database-platform
+        hints.reflection().registerTypeIfPresent(classLoader, "org.h2.Driver",
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        hints.reflection().registerTypeIfPresent(classLoader, "org.hibernate.dialect.H2Dialect",
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+        
+        // Jsoup picks its Java 9+ request authenticator with Class.forName and instantiates it
+        hints.reflection().registerType(TypeReference.of("org.jsoup.helper.RequestAuthHandler"),
+                MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+    }
+}
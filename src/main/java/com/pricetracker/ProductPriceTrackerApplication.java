@@ -2,10 +2,12 @@ package com.pricetracker;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
 import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableScheduling
+@ImportRuntimeHints(PriceTrackerRuntimeHints.class)
 public class ProductPriceTrackerApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,104 @@
+package com.pricetracker.controller;
+
+import com.pricetracker.service.CatalogVersions;
+import com.pricetracker.service.ThumbnailService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caches the rendered dashboard per query string, tagged with the catalog version.
+ *
+ * Every page of the dashboard is derived from the product catalog and the stored thumbnails, so a
+ * rendered page stays valid until the catalog changes or a thumbnail is written or evicted. A request whose tag matches the cached page is served from
+ * memory; one whose {@code If-None-Match} matches gets a 304 without rendering. Disabled
+ * unless {@code app.http.page-cache-size} is positive (the {@code prod} profile sets it), so
+ * template edits show up immediately during development.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 20)
+public class DashboardPageCache extends OncePerRequestFilter {
+    
+    private final CatalogVersions catalogVersions;
+    private final ThumbnailService thumbnailService;
+    private final int capacity;
+    private final Map<String, Page> pages;
+    
+    public DashboardPageCache(CatalogVersions catalogVersions,
+                              ThumbnailService thumbnailService,
+                              @Value("${app.http.page-cache-size:0}") int capacity) {
+        this.catalogVersions = catalogVersions;
+        this.thumbnailService = thumbnailService;
+        this.capacity = capacity;
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Page> eldest) {
+                return size() > DashboardPageCache.this.capacity;
+            }
+        };
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return capacity <= 0 || !"GET".equals(request.getMethod())
+                || !request.getRequestURI().substring(request.getContextPath().length()).equals("/");
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        // Taken before rendering, so a page rendered during a change is at worst re-rendered next time
+        String etag = "\"" + catalogVersions.catalogTag() + "-t" + thumbnailService.generation() + "\"";
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+        if (new ServletWebRequest(request, response).checkNotModified(etag)) {
+            return;
+        }
+        
+        String key = request.getQueryString() != null ? request.getQueryString() : "";
+        Page page;
+        synchronized (pages) {
+            page = pages.get(key);
+        }
+        if (page == null || !page.etag.equals(etag)) {
+            ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+            chain.doFilter(request, wrapper);
+            if (wrapper.getStatus() != HttpServletResponse.SC_OK) {
+                wrapper.copyBodyToResponse();
+                return;
+            }
+            page = new Page(etag, wrapper.getContentType(), wrapper.getContentAsByteArray());
+            synchronized (pages) {
+                pages.put(key, page);
+            }
+        }
+        response.setContentType(page.contentType);
+        response.setContentLength(page.body.length);
+        response.getOutputStream().write(page.body);
+    }
+    
+    private static final class Page {
+        private final String etag;
+        private final String contentType;
+        private final byte[] body;
+        
+        private Page(String etag, String contentType, byte[] body) {
+            this.etag = etag;
+            this.contentType = contentType;
+            this.body = body;
+        }
+    }
+}
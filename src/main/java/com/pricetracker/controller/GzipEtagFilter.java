@@ -0,0 +1,132 @@
+package com.pricetracker.controller;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip for responses with a strong ETag (the product read APIs and the cached dashboard).
+ *
+ * Tomcat's {@code server.compression} leaves these uncompressed, because a strong ETag names
+ * one exact byte sequence. This filter compresses them itself and tags the gzip variant
+ * separately by appending {@code -gzip} to the ETag. The suffix is stripped from
+ * {@code If-None-Match} before the request reaches the controller and added back to 304s.
+ * Responses without a strong ETag pass through to Tomcat's compression.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class GzipEtagFilter extends OncePerRequestFilter {
+    
+    private static final String SUFFIX = "-gzip\"";
+    
+    @Value("${app.http.gzip.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${app.http.gzip.min-bytes:1024}")
+    private int minBytes;
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !enabled || !("GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod()))
+                || !(path.equals("/") || path.startsWith("/api/products"));
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (!acceptsGzip(request)) {
+            chain.doFilter(request, response);
+            return;
+        }
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(new StrippedIfNoneMatch(request), wrapper);
+        
+        String etag = wrapper.getHeader(HttpHeaders.ETAG);
+        if (etag == null || etag.startsWith("W/") || !etag.endsWith("\"")) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+        if (wrapper.getStatus() == HttpServletResponse.SC_NOT_MODIFIED) {
+            response.setHeader(HttpHeaders.ETAG, gzipTag(etag));
+            wrapper.copyBodyToResponse();
+            return;
+        }
+        byte[] body = wrapper.getContentAsByteArray();
+        if (wrapper.getStatus() != HttpServletResponse.SC_OK || body.length < minBytes) {
+            wrapper.copyBodyToResponse();
+            return;
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body);
+        }
+        response.setHeader(HttpHeaders.ETAG, gzipTag(etag));
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        response.setContentLength(compressed.size());
+        if (!"HEAD".equals(request.getMethod())) {
+            compressed.writeTo(response.getOutputStream());
+        }
+    }
+    
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        Enumeration<String> values = request.getHeaders(HttpHeaders.ACCEPT_ENCODING);
+        while (values.hasMoreElements()) {
+            for (String coding : values.nextElement().split(",")) {
+                String[] parts = coding.trim().split(";");
+                if (parts[0].trim().equalsIgnoreCase("gzip")
+                        && !(parts.length > 1 && parts[1].replace(" ", "").equals("q=0"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+    
+    private static String gzipTag(String etag) {
+        return etag.substring(0, etag.length() - 1) + SUFFIX;
+    }
+    
+    /**
+     * Presents {@code If-None-Match} with the gzip suffixes removed, as the controllers tag the
+     * uncompressed representation
+     */
+    private static final class StrippedIfNoneMatch extends HttpServletRequestWrapper {
+        
+        private StrippedIfNoneMatch(HttpServletRequest request) {
+            super(request);
+        }
+        
+        @Override
+        public String getHeader(String name) {
+            String value = super.getHeader(name);
+            return value != null && HttpHeaders.IF_NONE_MATCH.equalsIgnoreCase(name) ? value.replace(SUFFIX, "\"") : value;
+        }
+        
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            if (!HttpHeaders.IF_NONE_MATCH.equalsIgnoreCase(name)) {
+                return super.getHeaders(name);
+            }
+            return Collections.enumeration(Collections.list(super.getHeaders(name)).stream()
+                    .map(value -> value.replace(SUFFIX, "\""))
+                    .toList());
+        }
+    }
+}
@@ -1,41 +1,167 @@
 package com.pricetracker.controller;
 
+import com.pricetracker.model.AlertRule;
+import com.pricetracker.model.CheckPass;
+import com.pricetracker.model.PriceEvent;
 import com.pricetracker.model.PriceHistory;
+import com.pricetracker.model.PriceHistoryDailyAggregate;
 import com.pricetracker.model.Product;
+import com.pricetracker.model.Subscription;
+import com.pricetracker.repository.CheckPassRepository;
+import com.pricetracker.repository.PriceHistoryArchiveRepository;
+import com.pricetracker.repository.PriceHistoryDailyAggregateRepository;
 import com.pricetracker.repository.PriceHistoryRepository;
 import com.pricetracker.repository.ProductRepository;
+import com.pricetracker.service.AlertRuleEngine;
+import com.pricetracker.service.CatalogVersions;
+import com.pricetracker.service.EgressPool;
+import com.pricetracker.service.DesktopNotificationService;
 import com.pricetracker.service.EmailNotificationService;
+import com.pricetracker.service.PageSnapshotStore;
+import com.pricetracker.service.FetchEvent;
+import com.pricetracker.service.FetchEventLog;
+import com.pricetracker.service.PriceEventLog;
+import com.pricetracker.service.PriceHistoryExportService;
+import com.pricetracker.service.ProductCatalogIndex;
+import com.pricetracker.service.ProductImportJob;
+import com.pricetracker.service.ProductImportService;
 import com.pricetracker.service.PriceTrackingService;
+import com.pricetracker.service.ProductSearchService;
+import com.pricetracker.service.ReextractionJob;
+import com.pricetracker.service.RenderTier;
+import com.pricetracker.service.SnapshotReextractionService;
+import com.pricetracker.service.SubscriptionService;
+import com.pricetracker.service.ThumbnailService;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Controller
 @RequestMapping("/")
 public class ProductController {
     
+    // Clients may keep responses but must revalidate them with the ETag before reuse
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+    
+    // Thumbnail URLs are named by the image URL's hash, so a URL's content never changes
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+    
     private final ProductRepository productRepository;
     private final PriceHistoryRepository priceHistoryRepository;
+    private final PriceHistoryDailyAggregateRepository dailyAggregateRepository;
+    private final PriceHistoryArchiveRepository archiveRepository;
     private final PriceTrackingService priceTrackingService;
     private final EmailNotificationService emailNotificationService;
+    private final DesktopNotificationService desktopNotificationService;
+    private final PriceHistoryExportService priceHistoryExportService;
+    private final ProductImportService productImportService;
+    private final FetchEventLog fetchEventLog;
+    private final PriceEventLog priceEventLog;
+    private final AlertRuleEngine alertRuleEngine;
+    private final SubscriptionService subscriptionService;
+    private final RenderTier renderTier;
+    private final ProductSearchService productSearchService;
+    private final CatalogVersions catalogVersions;
+    private final PageSnapshotStore pageSnapshotStore;
+    private final SnapshotReextractionService snapshotReextractionService;
+    private final CheckPassRepository checkPassRepository;
+    private final EgressPool egressPool;
+    private final ThumbnailService thumbnailService;
     
     public ProductController(ProductRepository productRepository,
                              PriceHistoryRepository priceHistoryRepository,
+                             PriceHistoryDailyAggregateRepository dailyAggregateRepository,
+                             PriceHistoryArchiveRepository archiveRepository,
                              PriceTrackingService priceTrackingService,
-                             EmailNotificationService emailNotificationService) {
+                             @Lazy EmailNotificationService emailNotificationService,
+                             @Lazy DesktopNotificationService desktopNotificationService,
+                             PriceHistoryExportService priceHistoryExportService,
+                             ProductImportService productImportService,
+                             FetchEventLog fetchEventLog,
+                             PriceEventLog priceEventLog,
+                             AlertRuleEngine alertRuleEngine,
+                             SubscriptionService subscriptionService,
+                             RenderTier renderTier,
+                             ProductSearchService productSearchService,
+                             CatalogVersions catalogVersions,
+                             PageSnapshotStore pageSnapshotStore,
+                             SnapshotReextractionService snapshotReextractionService,
+                             CheckPassRepository checkPassRepository,
+                             EgressPool egressPool,
+                             ThumbnailService thumbnailService) {
         this.productRepository = productRepository;
         this.priceHistoryRepository = priceHistoryRepository;
+        this.dailyAggregateRepository = dailyAggregateRepository;
+        this.archiveRepository = archiveRepository;
         this.priceTrackingService = priceTrackingService;
         this.emailNotificationService = emailNotificationService;
+        this.desktopNotificationService = desktopNotificationService;
+        this.priceHistoryExportService = priceHistoryExportService;
+        this.productImportService = productImportService;
+        this.fetchEventLog = fetchEventLog;
+        this.priceEventLog = priceEventLog;
+        this.alertRuleEngine = alertRuleEngine;
+        this.subscriptionService = subscriptionService;
+        this.renderTier = renderTier;
+        this.productSearchService = productSearchService;
+        this.catalogVersions = catalogVersions;
+        this.pageSnapshotStore = pageSnapshotStore;
+        this.snapshotReextractionService = snapshotReextractionService;
+        this.checkPassRepository = checkPassRepository;
+        this.egressPool = egressPool;
+        this.thumbnailService = thumbnailService;
     }
     
     @GetMapping
-    public String index(Model model) {
-        List<Product> products = productRepository.findAll();
-        model.addAttribute("products", products);
+    public String index(@RequestParam(required = false) String q,
+                        @RequestParam(required = false) String host,
+                        @RequestParam(required = false) Boolean active,
+                        @RequestParam(required = false) Boolean belowTarget,
+                        @RequestParam(required = false) Double minDiscount,
+                        @RequestParam(defaultValue = "ID") ProductCatalogIndex.Sort sort,
+                        @RequestParam(defaultValue = "false") boolean desc,
+                        @RequestParam(defaultValue = "0") int page,
+                        @RequestParam(defaultValue = "50") int size,
+                        Model model) {
+        ProductCatalogIndex.Page result = productSearchService.search(
+                query(q, host, active, belowTarget, minDiscount, sort, desc, page, size));
+        Map<Long, String> thumbnails = new HashMap<>();
+        for (ProductCatalogIndex.Entry entry : result.getItems()) {
+            String thumbnail = thumbnailService.path(entry.getId(), entry.getImageUrl());
+            if (thumbnail != null) {
+                thumbnails.put(entry.getId(), thumbnail);
+            }
+        }
+        model.addAttribute("products", result.getItems());
+        model.addAttribute("thumbnails", thumbnails);
+        model.addAttribute("page", result);
+        model.addAttribute("q", q);
+        model.addAttribute("host", host);
+        model.addAttribute("active", active);
+        model.addAttribute("belowTarget", belowTarget);
+        model.addAttribute("minDiscount", minDiscount);
+        model.addAttribute("sort", sort);
+        model.addAttribute("desc", desc);
+        model.addAttribute("filtered", (q != null && !q.isBlank()) || (host != null && !host.isBlank())
+                || active != null || belowTarget != null || minDiscount != null);
         return "index";
     }
     
@@ -47,10 +173,32 @@ public class ProductController {
         List<PriceHistory> history = priceHistoryRepository.findByProductIdOrderByRecordedAtDesc(id);
         model.addAttribute("product", product);
         model.addAttribute("history", history);
+        model.addAttribute("thumbnail", thumbnailService.path(product.getId(), product.getImageUrl()));
         
         return "product-detail";
     }
     
+    /**
+     * A product image thumbnail from the local cache. A thumbnail not generated yet is a 404; if the
+     * key is the product's current image, it is prefetched in the background for the next request.
+     */
+    @GetMapping("/thumbnails/{id}/{key}.jpg")
+    @ResponseBody
+    public ResponseEntity<Resource> getThumbnail(@PathVariable Long id, @PathVariable String key) {
+        Path file = thumbnailService.cached(key);
+        if (file == null) {
+            String imageUrl = productRepository.findById(id).map(Product::getImageUrl).orElse(null);
+            if (ThumbnailService.isKeyOf(key, imageUrl)) {
+                thumbnailService.prefetch(imageUrl);
+            }
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(IMMUTABLE)
+                .contentType(MediaType.IMAGE_JPEG)
+                .body(new FileSystemResource(file));
+    }
+    
     @PostMapping("/api/products")
     @ResponseBody
     public ResponseEntity<Product> createProduct(@RequestBody Product product) {
@@ -58,6 +206,7 @@ public class ProductController {
             product.setCurrentPrice(0.0);
         }
         Product saved = productRepository.save(product);
+        productSearchService.productChanged(saved);
         
         // Fetch initial price
         priceTrackingService.fetchPrice(saved);
@@ -65,17 +214,61 @@ public class ProductController {
         return ResponseEntity.ok(saved);
     }
     
+    @PostMapping(value = "/api/products/import", consumes = {"text/csv", "application/x-ndjson"})
+    @ResponseBody
+    public ResponseEntity<ProductImportJob> importProducts(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                           InputStream body) {
+        boolean jsonLines = contentType.startsWith("application/x-ndjson");
+        return ResponseEntity.accepted().body(productImportService.importProducts(body, jsonLines));
+    }
+    
+    @GetMapping("/api/products/import/{jobId}")
+    @ResponseBody
+    public ResponseEntity<ProductImportJob> getImportProgress(@PathVariable String jobId) {
+        ProductImportJob job = productImportService.getJob(jobId);
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+    
+    // Read APIs carry an ETag taken before loading, so a concurrent change can only make the tag
+    // older than the body, never newer; If-None-Match is answered with 304 without a query
     @GetMapping("/api/products")
     @ResponseBody
-    public ResponseEntity<List<Product>> getAllProducts() {
-        return ResponseEntity.ok(productRepository.findAll());
+    public ResponseEntity<List<Product>> getAllProducts(WebRequest request) {
+        if (request.checkNotModified(catalogVersions.catalogTag())) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(productRepository.findAll());
+    }
+    
+    /**
+     * Search, filter and sort the catalog from the in-memory index, one page at a time.
+     * {@code q} matches name words by prefix; {@code minDiscount} is the percentage below the
+     * highest recorded price.
+     */
+    @GetMapping("/api/products/search")
+    @ResponseBody
+    public ResponseEntity<ProductCatalogIndex.Page> searchProducts(@RequestParam(required = false) String q,
+                                                                   @RequestParam(required = false) String host,
+                                                                   @RequestParam(required = false) Boolean active,
+                                                                   @RequestParam(required = false) Boolean belowTarget,
+                                                                   @RequestParam(required = false) Double minDiscount,
+                                                                   @RequestParam(defaultValue = "ID") ProductCatalogIndex.Sort sort,
+                                                                   @RequestParam(defaultValue = "false") boolean desc,
+                                                                   @RequestParam(defaultValue = "0") int page,
+                                                                   @RequestParam(defaultValue = "50") int size) {
+        return ResponseEntity.ok(productSearchService.search(
+                query(q, host, active, belowTarget, minDiscount, sort, desc, page, size)));
     }
     
     @GetMapping("/api/products/{id}")
     @ResponseBody
-    public ResponseEntity<Product> getProduct(@PathVariable Long id) {
+    public ResponseEntity<Product> getProduct(@PathVariable Long id, WebRequest request) {
+        String etag = catalogVersions.productTag(id);
+        if (etag != null && request.checkNotModified(etag)) {
+            return null;
+        }
         return productRepository.findById(id)
-                .map(ResponseEntity::ok)
+                .map(product -> ResponseEntity.ok().cacheControl(REVALIDATE).body(product))
                 .orElse(ResponseEntity.notFound().build());
     }
     
@@ -91,7 +284,9 @@ public class ProductController {
                     product.setPriceSelector(productDetails.getPriceSelector());
                     product.setNotificationEmail(productDetails.getNotificationEmail());
                     product.setIsActive(productDetails.getIsActive());
-                    return ResponseEntity.ok(productRepository.save(product));
+                    Product saved = productRepository.save(product);
+                    productSearchService.productChanged(saved);
+                    return ResponseEntity.ok(saved);
                 })
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -107,8 +302,16 @@ public class ProductController {
             // Delete all price history first (cascade should handle this, but being explicit)
             priceHistoryRepository.deleteAll(priceHistoryRepository.findByProductIdOrderByRecordedAtDesc(id));
             
+            // Compacted and archived history only reference the product by id
+            dailyAggregateRepository.deleteByProductId(id);
+            archiveRepository.deleteByProductId(id);
+            priceEventLog.deleteProduct(id);
+            alertRuleEngine.deleteProduct(id);
+            subscriptionService.deleteProduct(id);
+            
             // Delete the product
             productRepository.deleteById(id);
+            productSearchService.productDeleted(id);
             
             return ResponseEntity.ok("Product deleted successfully");
         } catch (Exception e) {
@@ -131,9 +334,193 @@ public class ProductController {
     
     @GetMapping("/api/products/{id}/history")
     @ResponseBody
-    public ResponseEntity<List<PriceHistory>> getPriceHistory(@PathVariable Long id) {
+    public ResponseEntity<List<PriceHistory>> getPriceHistory(@PathVariable Long id, WebRequest request) {
+        String etag = catalogVersions.historyTag(id);
+        if (etag != null && request.checkNotModified(etag)) {
+            return null;
+        }
         List<PriceHistory> history = priceHistoryRepository.findByProductIdOrderByRecordedAtDesc(id);
-        return ResponseEntity.ok(history);
+        return ResponseEntity.ok().cacheControl(REVALIDATE).body(history);
+    }
+    
+    @GetMapping("/api/products/{id}/events")
+    @ResponseBody
+    public ResponseEntity<List<PriceEvent>> getPriceEvents(@PathVariable Long id,
+                                                           @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(priceEventLog.recent(id, Math.max(1, Math.min(limit, 1000))));
+    }
+    
+    @GetMapping("/api/products/{id}/rules")
+    @ResponseBody
+    public ResponseEntity<List<AlertRule>> getAlertRules(@PathVariable Long id) {
+        if (!productRepository.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(alertRuleEngine.getRules(id));
+    }
+    
+    @PostMapping("/api/products/{id}/rules")
+    @ResponseBody
+    public ResponseEntity<?> createAlertRule(@PathVariable Long id, @RequestBody AlertRule rule) {
+        Product product = productRepository.findById(id).orElse(null);
+        if (product == null) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok(alertRuleEngine.addRule(product, rule));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @DeleteMapping("/api/rules/{ruleId}")
+    @ResponseBody
+    public ResponseEntity<String> deleteAlertRule(@PathVariable Long ruleId) {
+        return alertRuleEngine.deleteRule(ruleId)
+                ? ResponseEntity.ok("Alert rule deleted successfully")
+                : ResponseEntity.notFound().build();
+    }
+    
+    @GetMapping("/api/products/{id}/subscriptions")
+    @ResponseBody
+    public ResponseEntity<List<Subscription>> getSubscriptions(@PathVariable Long id) {
+        if (!productRepository.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(subscriptionService.getSubscriptions(id));
+    }
+    
+    @PostMapping("/api/products/{id}/subscriptions")
+    @ResponseBody
+    public ResponseEntity<?> createSubscription(@PathVariable Long id, @RequestBody Subscription subscription) {
+        Product product = productRepository.findById(id).orElse(null);
+        if (product == null) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok(subscriptionService.subscribe(product, subscription));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    /**
+     * Subscribe by URL; an already tracked product with the same canonical URL is shared
+     */
+    @PostMapping("/api/subscriptions")
+    @ResponseBody
+    public ResponseEntity<?> subscribeByUrl(@RequestParam String url,
+                                            @RequestParam(required = false) String name,
+                                            @RequestBody Subscription subscription) {
+        try {
+            return ResponseEntity.ok(subscriptionService.subscribe(url, name, subscription));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @DeleteMapping("/api/subscriptions/{subscriptionId}")
+    @ResponseBody
+    public ResponseEntity<String> deleteSubscription(@PathVariable Long subscriptionId) {
+        return subscriptionService.unsubscribe(subscriptionId)
+                ? ResponseEntity.ok("Subscription deleted successfully")
+                : ResponseEntity.notFound().build();
+    }
+    
+    
+    /**
+     * Recent scheduled check passes with their progress, newest first
+     */
+    @GetMapping("/api/check-passes")
+    @ResponseBody
+    public ResponseEntity<List<CheckPass>> getCheckPasses() {
+        return ResponseEntity.ok(checkPassRepository.findTop20ByOrderByIdDesc());
+    }
+    
+    /**
+     * Egress routes with their request counts and the hosts they are currently removed for
+     */
+    @GetMapping("/api/egress")
+    @ResponseBody
+    public ResponseEntity<List<EgressPool.RouteStatus>> getEgressRoutes() {
+        return ResponseEntity.ok(egressPool.status());
+    }
+    
+    @GetMapping("/api/thumbnails")
+    @ResponseBody
+    public ResponseEntity<ThumbnailService.Stats> getThumbnailStats() {
+        return ResponseEntity.ok(thumbnailService.stats());
+    }
+    
+    @GetMapping("/api/fetch-events")
+    @ResponseBody
+    public ResponseEntity<List<FetchEvent>> getFetchEvents(@RequestParam(defaultValue = "100") int limit,
+                                                           @RequestParam(required = false) Long productId) {
+        return ResponseEntity.ok(fetchEventLog.recent(Math.max(1, Math.min(limit, 1000)), productId));
+    }
+    
+    /**
+     * Hosts the render tier has learned about: true when their pages are rendered in a browser
+     */
+    @GetMapping("/api/render/hosts")
+    @ResponseBody
+    public ResponseEntity<Map<String, Boolean>> getRenderHosts() {
+        return ResponseEntity.ok(renderTier.learnedHosts());
+    }
+    
+    @GetMapping("/api/snapshots")
+    @ResponseBody
+    public ResponseEntity<PageSnapshotStore.Stats> getSnapshotStats() {
+        return ResponseEntity.ok(pageSnapshotStore.stats());
+    }
+    
+    /**
+     * Re-extract prices from the stored page snapshots (optionally of one host). A dry run
+     * unless {@code apply=true}; poll the returned job for progress and the changed prices.
+     */
+    @PostMapping("/api/snapshots/reextract")
+    @ResponseBody
+    public ResponseEntity<?> reextractPrices(@RequestParam(required = false) String host,
+                                             @RequestParam(defaultValue = "false") boolean apply) {
+        try {
+            return ResponseEntity.accepted().body(snapshotReextractionService.start(host, apply));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(e.getMessage());
+        }
+    }
+    
+    @GetMapping("/api/snapshots/reextract/{jobId}")
+    @ResponseBody
+    public ResponseEntity<ReextractionJob> getReextractionProgress(@PathVariable String jobId) {
+        ReextractionJob job = snapshotReextractionService.getJob(jobId);
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+    
+    @GetMapping("/api/products/{id}/history/daily")
+    @ResponseBody
+    public ResponseEntity<List<PriceHistoryDailyAggregate>> getDailyPriceHistory(@PathVariable Long id) {
+        return ResponseEntity.ok(dailyAggregateRepository.findByProductIdOrderByBucketDateDesc(id));
+    }
+    
+    @GetMapping("/api/history/export")
+    @ResponseBody
+    public ResponseEntity<StreamingResponseBody> exportPriceHistory() {
+        StreamingResponseBody body = out -> priceHistoryExportService.exportAll(Channels.newChannel(out));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"price-history.pth\"")
+                .body(body);
+    }
+    
+    @PostMapping(value = "/api/history/import", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @ResponseBody
+    public ResponseEntity<?> importPriceHistory(@RequestParam(defaultValue = "false") boolean replace,
+                                                InputStream body) {
+        try {
+            return ResponseEntity.ok(priceHistoryExportService.importAll(Channels.newChannel(body), replace));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body("Error importing price history: " + e.getMessage());
+        }
     }
     
     @PostMapping("/api/products/{id}/test-email")
@@ -145,12 +532,16 @@ public class ProductController {
             
             // Send test notification
             if (product.getCurrentPrice() != null && product.getCurrentPrice() > 0) {
-                emailNotificationService.sendPriceDropNotification(
+                EmailNotificationService.Delivery delivery = emailNotificationService.sendPriceDropNotification(
                     product, 
                     product.getCurrentPrice() + 100, 
                     product.getCurrentPrice()
                 );
-                return ResponseEntity.ok("Test email notification sent. Check your email and application logs.");
+                return switch (delivery) {
+                    case SENT -> ResponseEntity.ok("Test email notification sent. Check your email and application logs.");
+                    case SKIPPED -> ResponseEntity.badRequest().body("Email is disabled or has no recipient. Check the application logs.");
+                    case FAILED -> ResponseEntity.status(502).body("The mail server did not accept the test email. Check the application logs.");
+                };
             } else {
                 return ResponseEntity.badRequest().body("Product doesn't have a valid price. Please check the price first.");
             }
@@ -178,5 +569,12 @@ public class ProductController {
             return ResponseEntity.status(500).body("Error showing desktop notification: " + e.getMessage());
         }
     }
+    
+    private static ProductCatalogIndex.Query query(String q, String host, Boolean active, Boolean belowTarget,
+                                                   Double minDiscount, ProductCatalogIndex.Sort sort, boolean desc,
+                                                   int page, int size) {
+        return new ProductCatalogIndex.Query(q, host, active, belowTarget, minDiscount, sort, desc,
+                Math.max(0, page), Math.max(1, Math.min(size, 500)));
+    }
 }
 
@@ -0,0 +1,135 @@
+package com.pricetracker.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A user-defined alert condition on a product, evaluated against every new price observation
+ * in addition to the product's target price. {@code threshold} is a price for
+ * {@link Type#BELOW_PRICE} and a percentage for the {@code PERCENT_*} types; {@code windowDays}
+ * applies to {@link Type#LOWEST_IN_DAYS}.
+ */
+@Entity
+@Table(name = "alert_rules",
+       indexes = @Index(name = "idx_alert_rules_product", columnList = "product_id"))
+public class AlertRule {
+    
+    public enum Type {
+        // Price at or below a fixed threshold (fires again after the price has risen above it)
+        BELOW_PRICE,
+        // Price dropped by at least threshold percent from the previous observation
+        PERCENT_DROP,
+        // Price at least threshold percent below its exponential moving average
+        PERCENT_BELOW_AVERAGE,
+        // Price at least threshold percent below the highest price seen
+        PERCENT_BELOW_HIGH,
+        // Lower than every price seen before
+        ALL_TIME_LOW,
+        // Lower than every price of the last windowDays days
+        LOWEST_IN_DAYS,
+        // A price was found again after checks that found none
+        BACK_IN_STOCK
+    }
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private Type type;
+    
+    private Double threshold;
+    
+    private Integer windowDays;
+    
+    // Falls back to the product's notification email when empty
+    @Column(length = 255)
+    private String notificationEmail;
+    
+    @Column(nullable = false)
+    private Boolean enabled;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    public AlertRule() {
+    }
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (enabled == null) {
+            enabled = true;
+        }
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    
+    public Type getType() {
+        return type;
+    }
+    
+    public void setType(Type type) {
+        this.type = type;
+    }
+    
+    public Double getThreshold() {
+        return threshold;
+    }
+    
+    public void setThreshold(Double threshold) {
+        this.threshold = threshold;
+    }
+    
+    public Integer getWindowDays() {
+        return windowDays;
+    }
+    
+    public void setWindowDays(Integer windowDays) {
+        this.windowDays = windowDays;
+    }
+    
+    public String getNotificationEmail() {
+        return notificationEmail;
+    }
+    
+    public void setNotificationEmail(String notificationEmail) {
+        this.notificationEmail = notificationEmail;
+    }
+    
+    public Boolean getEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(Boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,133 @@
+package com.pricetracker.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One scheduled price check pass and its progress checkpoint. A pass visits the active products
+ * not checked since it started, stalest first; the cursor is the (lastChecked, id) of the last
+ * product of the last completed batch, so a pass cut short by a restart resumes after it.
+ */
+@Entity
+@Table(name = "check_passes",
+       indexes = @Index(name = "idx_check_passes_status", columnList = "status, id"))
+public class CheckPass {
+    
+    public enum Status {
+        RUNNING, COMPLETED
+    }
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status;
+    
+    // Products checked after this instant are done for this pass
+    @Column(nullable = false)
+    private LocalDateTime startedAt;
+    
+    private LocalDateTime completedAt;
+    
+    // Active products due when the pass started
+    @Column(nullable = false)
+    private Integer dueProducts;
+    
+    @Column(nullable = false)
+    private Integer checkedProducts;
+    
+    @Column(nullable = false)
+    private Integer checkedPages;
+    
+    // Keyset position of the last checkpoint (null before the first batch)
+    private LocalDateTime cursorLastChecked;
+    
+    private Long cursorProductId;
+    
+    // Times the pass was picked up again after a restart or interruption
+    @Column(nullable = false)
+    private Integer resumes;
+    
+    private LocalDateTime checkpointAt;
+    
+    public CheckPass() {
+    }
+    
+    public CheckPass(LocalDateTime startedAt, int dueProducts) {
+        this.status = Status.RUNNING;
+        this.startedAt = startedAt;
+        this.dueProducts = dueProducts;
+        this.checkedProducts = 0;
+        this.checkedPages = 0;
+        this.resumes = 0;
+    }
+    
+    /**
+     * Record a finished batch: advance the cursor to its last product's key as it was read, and
+     * count its work
+     */
+    public void checkpoint(LocalDateTime lastChecked, Long productId, int products, int pages) {
+        cursorLastChecked = lastChecked;
+        cursorProductId = productId;
+        checkedProducts += products;
+        checkedPages += pages;
+        checkpointAt = LocalDateTime.now();
+    }
+    
+    public void complete() {
+        status = Status.COMPLETED;
+        completedAt = LocalDateTime.now();
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public Status getStatus() {
+        return status;
+    }
+    
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+    
+    public Integer getDueProducts() {
+        return dueProducts;
+    }
+    
+    public Integer getCheckedProducts() {
+        return checkedProducts;
+    }
+    
+    public Integer getCheckedPages() {
+        return checkedPages;
+    }
+    
+    public LocalDateTime getCursorLastChecked() {
+        return cursorLastChecked;
+    }
+    
+    public Long getCursorProductId() {
+        return cursorProductId;
+    }
+    
+    public Integer getResumes() {
+        return resumes;
+    }
+    
+    public void setResumes(Integer resumes) {
+        this.resumes = resumes;
+    }
+    
+    public LocalDateTime getCheckpointAt() {
+        return checkpointAt;
+    }
+}
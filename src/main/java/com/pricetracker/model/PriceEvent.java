@@ -0,0 +1,151 @@
+package com.pricetracker.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One entry of the append-only price event log: an alert decision taken on an observed price,
+ * or the acknowledgement that an alert was delivered or skipped. Rows are only inserted, and
+ * removed by retention once old enough.
+ */
+@Entity
+@Table(name = "price_events",
+       indexes = {
+               @Index(name = "idx_price_events_product", columnList = "product_id, id"),
+               @Index(name = "idx_price_events_type", columnList = "type, recorded_at"),
+               @Index(name = "idx_price_events_ref", columnList = "ref_event_id")
+       })
+public class PriceEvent {
+    
+    public enum Type {
+        TARGET_REACHED, TARGET_RESET, PRICE_DROP, ALERT_DELIVERED, RULE_TRIGGERED, ALERT_SKIPPED
+    }
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Type type;
+    
+    private Double price;
+    
+    private Double previousPrice;
+    
+    private Double targetPrice;
+    
+    // For ALERT_DELIVERED and ALERT_SKIPPED: the alert event that was delivered or not sent
+    @Column(name = "ref_event_id")
+    private Long refEventId;
+    
+    // For RULE_TRIGGERED: the alert rule that matched
+    @Column(name = "rule_id")
+    private Long ruleId;
+    
+    // For TARGET_REACHED: the subscription whose target was reached, null for the product's own target
+    @Column(name = "subscription_id")
+    private Long subscriptionId;
+    
+    @Column(name = "recorded_at", nullable = false)
+    private LocalDateTime recordedAt;
+    
+    public PriceEvent() {
+    }
+    
+    public PriceEvent(Long productId, Type type, Double price, Double previousPrice, Double targetPrice,
+                      Long refEventId, LocalDateTime recordedAt) {
+        this.productId = productId;
+        this.type = type;
+        this.price = price;
+        this.previousPrice = previousPrice;
+        this.targetPrice = targetPrice;
+        this.refEventId = refEventId;
+        this.recordedAt = recordedAt;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    
+    public Type getType() {
+        return type;
+    }
+    
+    public void setType(Type type) {
+        this.type = type;
+    }
+    
+    public Double getPrice() {
+        return price;
+    }
+    
+    public void setPrice(Double price) {
+        this.price = price;
+    }
+    
+    public Double getPreviousPrice() {
+        return previousPrice;
+    }
+    
+    public void setPreviousPrice(Double previousPrice) {
+        this.previousPrice = previousPrice;
+    }
+    
+    public Double getTargetPrice() {
+        return targetPrice;
+    }
+    
+    public void setTargetPrice(Double targetPrice) {
+        this.targetPrice = targetPrice;
+    }
+    
+    public Long getRefEventId() {
+        return refEventId;
+    }
+    
+    public void setRefEventId(Long refEventId) {
+        this.refEventId = refEventId;
+    }
+    
+    public Long getRuleId() {
+        return ruleId;
+    }
+    
+    public void setRuleId(Long ruleId) {
+        this.ruleId = ruleId;
+    }
+    
+    public Long getSubscriptionId() {
+        return subscriptionId;
+    }
+    
+    public void setSubscriptionId(Long subscriptionId) {
+        this.subscriptionId = subscriptionId;
+    }
+    
+    public LocalDateTime getRecordedAt() {
+        return recordedAt;
+    }
+    
+    public void setRecordedAt(LocalDateTime recordedAt) {
+        this.recordedAt = recordedAt;
+    }
+}
@@ -1,17 +1,23 @@
 package com.pricetracker.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "price_history")
+@Table(name = "price_history", indexes = {
+        @Index(name = "idx_price_history_product_recorded", columnList = "product_id, recorded_at"),
+        @Index(name = "idx_price_history_recorded", columnList = "recorded_at")
+})
 public class PriceHistory {
     
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
     
+    // Not serialized: history is always requested per product
+    @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id", nullable = false)
     private Product product;
@@ -19,7 +25,7 @@ public class PriceHistory {
     @Column(nullable = false)
     private Double price;
     
-    @Column(nullable = false)
+    @Column(name = "recorded_at", nullable = false)
     private LocalDateTime recordedAt;
     
     public PriceHistory() {
@@ -0,0 +1,82 @@
+package com.pricetracker.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cold storage for raw price points that have aged out of the hot {@code price_history} table.
+ * Rows reference the product by id only so the archive stays free of foreign key checks.
+ */
+@Entity
+@Table(name = "price_history_archive",
+       indexes = @Index(name = "idx_price_history_archive_product", columnList = "product_id, recorded_at"))
+public class PriceHistoryArchive {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    @Column(nullable = false)
+    private Double price;
+    
+    @Column(name = "recorded_at", nullable = false)
+    private LocalDateTime recordedAt;
+    
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+    
+    public PriceHistoryArchive() {
+    }
+    
+    public PriceHistoryArchive(Long productId, Double price, LocalDateTime recordedAt, LocalDateTime archivedAt) {
+        this.productId = productId;
+        this.price = price;
+        this.recordedAt = recordedAt;
+        this.archivedAt = archivedAt;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    
+    public Double getPrice() {
+        return price;
+    }
+    
+    public void setPrice(Double price) {
+        this.price = price;
+    }
+    
+    public LocalDateTime getRecordedAt() {
+        return recordedAt;
+    }
+    
+    public void setRecordedAt(LocalDateTime recordedAt) {
+        this.recordedAt = recordedAt;
+    }
+    
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+    
+    public void setArchivedAt(LocalDateTime archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+}
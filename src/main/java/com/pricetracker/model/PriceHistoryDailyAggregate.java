@@ -0,0 +1,153 @@
+package com.pricetracker.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * One day of compacted price points for a product. Raw {@link PriceHistory} rows older than the
+ * hot window are folded into these buckets by the retention job.
+ */
+@Entity
+@Table(name = "price_history_daily",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"product_id", "bucket_date"}))
+public class PriceHistoryDailyAggregate {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    @Column(name = "bucket_date", nullable = false)
+    private LocalDate bucketDate;
+    
+    @Column(nullable = false)
+    private Double minPrice;
+    
+    @Column(nullable = false)
+    private Double maxPrice;
+    
+    // Sum and count are stored instead of an average so buckets can be merged incrementally
+    @Column(nullable = false)
+    private Double priceSum;
+    
+    @Column(nullable = false)
+    private Long sampleCount;
+    
+    @Column(nullable = false)
+    private Double closePrice;
+    
+    @Column(nullable = false)
+    private LocalDateTime closeRecordedAt;
+    
+    public PriceHistoryDailyAggregate() {
+    }
+    
+    public PriceHistoryDailyAggregate(Long productId, LocalDate bucketDate) {
+        this.productId = productId;
+        this.bucketDate = bucketDate;
+    }
+    
+    /**
+     * Fold a single raw price point into this bucket
+     */
+    public void merge(Double price, LocalDateTime recordedAt) {
+        if (sampleCount == null || sampleCount == 0) {
+            minPrice = price;
+            maxPrice = price;
+            priceSum = price;
+            sampleCount = 1L;
+            closePrice = price;
+            closeRecordedAt = recordedAt;
+            return;
+        }
+        minPrice = Math.min(minPrice, price);
+        maxPrice = Math.max(maxPrice, price);
+        priceSum += price;
+        sampleCount++;
+        if (!recordedAt.isBefore(closeRecordedAt)) {
+            closePrice = price;
+            closeRecordedAt = recordedAt;
+        }
+    }
+    
+    public Double getAveragePrice() {
+        return sampleCount == null || sampleCount == 0 ? null : priceSum / sampleCount;
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    
+    public LocalDate getBucketDate() {
+        return bucketDate;
+    }
+    
+    public void setBucketDate(LocalDate bucketDate) {
+        this.bucketDate = bucketDate;
+    }
+    
+    public Double getMinPrice() {
+        return minPrice;
+    }
+    
+    public void setMinPrice(Double minPrice) {
+        this.minPrice = minPrice;
+    }
+    
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+    
+    public void setMaxPrice(Double maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+    
+    public Double getPriceSum() {
+        return priceSum;
+    }
+    
+    public void setPriceSum(Double priceSum) {
+        this.priceSum = priceSum;
+    }
+    
+    public Long getSampleCount() {
+        return sampleCount;
+    }
+    
+    public void setSampleCount(Long sampleCount) {
+        this.sampleCount = sampleCount;
+    }
+    
+    public Double getClosePrice() {
+        return closePrice;
+    }
+    
+    public void setClosePrice(Double closePrice) {
+        this.closePrice = closePrice;
+    }
+    
+    public LocalDateTime getCloseRecordedAt() {
+        return closeRecordedAt;
+    }
+    
+    public void setCloseRecordedAt(LocalDateTime closeRecordedAt) {
+        this.closeRecordedAt = closeRecordedAt;
+    }
+}
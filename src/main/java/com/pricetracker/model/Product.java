@@ -1,5 +1,6 @@
 package com.pricetracker.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 
 import java.time.LocalDateTime;
@@ -7,7 +8,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products",
+       indexes = @Index(name = "idx_products_due", columnList = "is_active, last_checked, id"))
 public class Product {
     
     @Id
@@ -52,6 +54,8 @@ public class Product {
     @Column(nullable = false)
     private Boolean targetPriceNotified;
     
+    // Served separately by /api/products/{id}/history
+    @JsonIgnore
     @OneToMany(mappedBy = "product", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<PriceHistory> priceHistory = new ArrayList<>();
     
@@ -0,0 +1,138 @@
+package com.pricetracker.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One user's watch on a product, with its own target price and notification channels. Any number
+ * of subscriptions share a product, so a popular item is still fetched once per check.
+ */
+@Entity
+@Table(name = "subscriptions",
+       indexes = @Index(name = "idx_subscriptions_product", columnList = "product_id"))
+public class Subscription {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+    
+    // Falls back to the product's notification email, then the configured sender
+    @Column(length = 255)
+    private String email;
+    
+    @Column(nullable = false)
+    private Double targetPrice;
+    
+    @Column(nullable = false)
+    private Boolean notifyEmail;
+    
+    @Column(nullable = false)
+    private Boolean notifyDesktop;
+    
+    // Set once the subscriber has been alerted for the current dip below target
+    @Column(nullable = false)
+    private Boolean targetNotified;
+    
+    @Column(nullable = false)
+    private Boolean active;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    public Subscription() {
+    }
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (notifyEmail == null) {
+            notifyEmail = true;
+        }
+        if (notifyDesktop == null) {
+            notifyDesktop = false;
+        }
+        if (targetNotified == null) {
+            targetNotified = false;
+        }
+        if (active == null) {
+            active = true;
+        }
+    }
+    
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+    
+    public void setId(Long id) {
+        this.id = id;
+    }
+    
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public void setProductId(Long productId) {
+        this.productId = productId;
+    }
+    
+    public String getEmail() {
+        return email;
+    }
+    
+    public void setEmail(String email) {
+        this.email = email;
+    }
+    
+    public Double getTargetPrice() {
+        return targetPrice;
+    }
+    
+    public void setTargetPrice(Double targetPrice) {
+        this.targetPrice = targetPrice;
+    }
+    
+    public Boolean getNotifyEmail() {
+        return notifyEmail;
+    }
+    
+    public void setNotifyEmail(Boolean notifyEmail) {
+        this.notifyEmail = notifyEmail;
+    }
+    
+    public Boolean getNotifyDesktop() {
+        return notifyDesktop;
+    }
+    
+    public void setNotifyDesktop(Boolean notifyDesktop) {
+        this.notifyDesktop = notifyDesktop;
+    }
+    
+    public Boolean getTargetNotified() {
+        return targetNotified;
+    }
+    
+    public void setTargetNotified(Boolean targetNotified) {
+        this.targetNotified = targetNotified;
+    }
+    
+    public Boolean getActive() {
+        return active;
+    }
+    
+    public void setActive(Boolean active) {
+        this.active = active;
+    }
+    
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,23 @@
+package com.pricetracker.repository;
+
+import com.pricetracker.model.AlertRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Repository
+public interface AlertRuleRepository extends JpaRepository<AlertRule, Long> {
+    List<AlertRule> findByProductIdOrderById(Long productId);
+    
+    List<AlertRule> findByEnabledTrueOrderByProductId();
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM AlertRule r WHERE r.productId = :productId")
+    void deleteByProductId(@Param("productId") Long productId);
+}
@@ -0,0 +1,15 @@
+package com.pricetracker.repository;
+
+import com.pricetracker.model.CheckPass;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CheckPassRepository extends JpaRepository<CheckPass, Long> {
+    Optional<CheckPass> findFirstByStatusOrderByIdDesc(CheckPass.Status status);
+    
+    List<CheckPass> findTop20ByOrderByIdDesc();
+}
@@ -0,0 +1,37 @@
+package com.pricetracker.repository;
+
+import com.pricetracker.model.PriceEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PriceEventRepository extends JpaRepository<PriceEvent, Long> {
+    List<PriceEvent> findByProductIdOrderByIdDesc(Long productId, Pageable pageable);
+    
+    // Oldest entries recorded before the cutoff (retention)
+    @Query("SELECT e.id FROM PriceEvent e WHERE e.recordedAt < :cutoff ORDER BY e.id")
+    List<Long> findIdsRecordedBefore(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+    
+    // Alerts recorded between the cutoffs that have no acknowledgement
+    @Query("SELECT a FROM PriceEvent a WHERE a.type IN :types AND a.recordedAt >= :since AND a.recordedAt < :until " +
+           "AND NOT EXISTS (SELECT d.id FROM PriceEvent d WHERE d.type IN :acks AND d.refEventId = a.id) " +
+           "ORDER BY a.id")
+    List<PriceEvent> findUndelivered(@Param("types") Collection<PriceEvent.Type> types,
+                                     @Param("acks") Collection<PriceEvent.Type> acks,
+                                     @Param("since") LocalDateTime since,
+                                     @Param("until") LocalDateTime until);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PriceEvent e WHERE e.productId = :productId")
+    void deleteByProductId(@Param("productId") Long productId);
+}
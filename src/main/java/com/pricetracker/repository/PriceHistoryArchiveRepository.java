@@ -0,0 +1,30 @@
+package com.pricetracker.repository;
+
+import com.pricetracker.model.PriceHistoryArchive;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PriceHistoryArchiveRepository extends JpaRepository<PriceHistoryArchive, Long> {
+    List<PriceHistoryArchive> findByProductIdOrderByRecordedAtDesc(Long productId);
+    
+    // Returns [recordedAt, price] pairs without hydrating entities (used by bulk export)
+    @Query("SELECT a.recordedAt, a.price FROM PriceHistoryArchive a WHERE a.productId = :productId ORDER BY a.recordedAt ASC")
+    List<Object[]> findPricePointsByProductId(@Param("productId") Long productId);
+    
+    @Query("SELECT a.id FROM PriceHistoryArchive a WHERE a.recordedAt < :cutoff ORDER BY a.id")
+    List<Long> findIdsRecordedBefore(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PriceHistoryArchive a WHERE a.productId = :productId")
+    void deleteByProductId(@Param("productId") Long productId);
+}
@@ -0,0 +1,35 @@
+package com.pricetracker.repository;
+
+import com.pricetracker.model.PriceHistoryDailyAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PriceHistoryDailyAggregateRepository extends JpaRepository<PriceHistoryDailyAggregate, Long> {
+    List<PriceHistoryDailyAggregate> findByProductIdOrderByBucketDateDesc(Long productId);
+    
+    List<PriceHistoryDailyAggregate> findByProductIdInAndBucketDateIn(Collection<Long> productIds, Collection<LocalDate> bucketDates);
+    
+    List<PriceHistoryDailyAggregate> findByProductIdAndBucketDateGreaterThanEqualOrderByBucketDate(Long productId, LocalDate since);
+    
+    // Returns one [min, max] row over all compacted days
+    @Query("SELECT MIN(a.minPrice), MAX(a.maxPrice) FROM PriceHistoryDailyAggregate a WHERE a.productId = :productId")
+    List<Object[]> findPriceRangeByProductId(@Param("productId") Long productId);
+    
+    // Returns [productId, max price] pairs over all compacted days
+    @Query("SELECT a.productId, MAX(a.maxPrice) FROM PriceHistoryDailyAggregate a GROUP BY a.productId")
+    List<Object[]> findMaxPricePerProduct();
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PriceHistoryDailyAggregate a WHERE a.productId = :productId")
+    void deleteByProductId(@Param("productId") Long productId);
+}
@@ -1,11 +1,13 @@
 package com.pricetracker.repository;
 
 import com.pricetracker.model.PriceHistory;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -14,6 +16,29 @@ public interface PriceHistoryRepository extends JpaRepository<PriceHistory, Long
     
     @Query("SELECT ph FROM PriceHistory ph WHERE ph.product.id = :productId ORDER BY ph.recordedAt DESC")
     List<PriceHistory> findRecentHistoryByProductId(@Param("productId") Long productId);
+    
+    List<PriceHistory> findByRecordedAtBeforeOrderByIdAsc(LocalDateTime cutoff, Pageable pageable);
+    
+    // Returns [recordedAt, price] pairs without hydrating entities (used by bulk export)
+    @Query("SELECT ph.recordedAt, ph.price FROM PriceHistory ph WHERE ph.product.id = :productId ORDER BY ph.recordedAt ASC")
+    List<Object[]> findPricePointsByProductId(@Param("productId") Long productId);
+    
+    // Returns one [min, max] row (used to warm alert rule state)
+    @Query("SELECT MIN(ph.price), MAX(ph.price) FROM PriceHistory ph WHERE ph.product.id = :productId")
+    List<Object[]> findPriceRangeByProductId(@Param("productId") Long productId);
+    
+    // Returns [day, min price] pairs, oldest day first
+    @Query("SELECT CAST(ph.recordedAt AS LocalDate), MIN(ph.price) FROM PriceHistory ph " +
+           "WHERE ph.product.id = :productId AND ph.recordedAt >= :since " +
+           "GROUP BY CAST(ph.recordedAt AS LocalDate) ORDER BY CAST(ph.recordedAt AS LocalDate)")
+    List<Object[]> findDailyMinimaSince(@Param("productId") Long productId, @Param("since") LocalDateTime since);
+    
+    @Query("SELECT ph.price FROM PriceHistory ph WHERE ph.product.id = :productId ORDER BY ph.recordedAt DESC")
+    List<Double> findRecentPrices(@Param("productId") Long productId, Pageable pageable);
+    
+    // Returns [productId, max price] pairs
+    @Query("SELECT ph.product.id, MAX(ph.price) FROM PriceHistory ph GROUP BY ph.product.id")
+    List<Object[]> findMaxPricePerProduct();
 }
 
 
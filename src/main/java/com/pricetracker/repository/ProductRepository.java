@@ -1,15 +1,43 @@
 package com.pricetracker.repository;
 
 import com.pricetracker.model.Product;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByIsActiveTrue();
     List<Product> findByIsActiveFalse();
+    
+    @Query("SELECT p.id FROM Product p ORDER BY p.id")
+    List<Long> findAllIds();
+    
+    // Returns [id, name, url, isActive, currentPrice, targetPrice, lastChecked] rows (used to build the search index)
+    @Query("SELECT p.id, p.name, p.url, p.isActive, p.currentPrice, p.targetPrice, p.lastChecked, p.imageUrl FROM Product p")
+    List<Object[]> findSearchFields();
+    
+    // Active products not checked since a pass started, stalest first, after a (lastChecked, id) keyset cursor
+    @Query("SELECT p FROM Product p WHERE p.isActive = true AND p.lastChecked < :startedAt " +
+           "AND (p.lastChecked > :afterChecked OR (p.lastChecked = :afterChecked AND p.id > :afterId)) " +
+           "ORDER BY p.lastChecked, p.id")
+    List<Product> findDueAfter(@Param("startedAt") LocalDateTime startedAt,
+                               @Param("afterChecked") LocalDateTime afterChecked,
+                               @Param("afterId") Long afterId,
+                               Pageable pageable);
+    
+    // The given products that are still due in a pass started at startedAt
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids AND p.isActive = true AND p.lastChecked < :startedAt")
+    List<Product> findDueByIdIn(@Param("ids") Collection<Long> ids, @Param("startedAt") LocalDateTime startedAt);
+    
+    @Query("SELECT COUNT(p) FROM Product p WHERE p.isActive = true AND p.lastChecked < :startedAt")
+    long countDue(@Param("startedAt") LocalDateTime startedAt);
 }
 
 
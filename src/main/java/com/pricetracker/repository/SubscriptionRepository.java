@@ -0,0 +1,29 @@
+package com.pricetracker.repository;
+
+import com.pricetracker.model.Subscription;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface SubscriptionRepository extends JpaRepository<Subscription, Long> {
+    List<Subscription> findByProductIdOrderById(Long productId);
+    
+    List<Subscription> findByActiveTrue();
+    
+    @Modifying
+    @Transactional
+    @Query("UPDATE Subscription s SET s.targetNotified = :notified WHERE s.id IN :ids")
+    int updateTargetNotified(@Param("ids") Collection<Long> ids, @Param("notified") boolean notified);
+    
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM Subscription s WHERE s.productId = :productId")
+    void deleteByProductId(@Param("productId") Long productId);
+}
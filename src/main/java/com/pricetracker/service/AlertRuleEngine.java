@@ -0,0 +1,408 @@
+package com.pricetracker.service;
+
+import com.pricetracker.model.AlertRule;
+import com.pricetracker.model.PriceHistoryDailyAggregate;
+import com.pricetracker.model.Product;
+import com.pricetracker.repository.AlertRuleRepository;
+import com.pricetracker.repository.PriceHistoryDailyAggregateRepository;
+import com.pricetracker.repository.PriceHistoryRepository;
+import com.pricetracker.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Evaluates user-defined {@link AlertRule}s against each price observation.
+ *
+ * Rules are compiled once per product into condition objects that read a
+ * {@link RollingPriceState}, so evaluating all of a product's rules is a loop over its compiled
+ * conditions with no database access. The rolling state is warmed from price history and the
+ * daily aggregates when rules are loaded (at startup, or when a product's rules change) and is
+ * then maintained from observations alone. Products without rules cost one map lookup.
+ */
+@Service
+public class AlertRuleEngine {
+    
+    private static final Logger log = LoggerFactory.getLogger(AlertRuleEngine.class);
+    
+    private static final int MAX_WINDOW_DAYS = 365;
+    // Number of recent prices replayed to seed the moving average
+    private static final int EMA_SEED_SIZE = 50;
+    
+    private final AlertRuleRepository alertRuleRepository;
+    private final ProductRepository productRepository;
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final PriceHistoryDailyAggregateRepository dailyAggregateRepository;
+    private final Map<Long, ProductRules> rulesByProduct = new ConcurrentHashMap<>();
+    
+    // Weight of the newest price in the moving average used by PERCENT_BELOW_AVERAGE rules
+    @Value("${app.rules.ema-alpha:0.1}")
+    private double emaAlpha;
+    
+    public AlertRuleEngine(AlertRuleRepository alertRuleRepository,
+                           ProductRepository productRepository,
+                           PriceHistoryRepository priceHistoryRepository,
+                           PriceHistoryDailyAggregateRepository dailyAggregateRepository) {
+        this.alertRuleRepository = alertRuleRepository;
+        this.productRepository = productRepository;
+        this.priceHistoryRepository = priceHistoryRepository;
+        this.dailyAggregateRepository = dailyAggregateRepository;
+    }
+    
+    /**
+     * Compile all enabled rules. Runs before {@link PriceEventLog#recover()} so redelivered rule
+     * alerts can be described.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void loadRules() {
+        long start = System.nanoTime();
+        Map<Long, List<AlertRule>> byProduct = new TreeMap<>();
+        for (AlertRule rule : alertRuleRepository.findByEnabledTrueOrderByProductId()) {
+            byProduct.computeIfAbsent(rule.getProductId(), id -> new ArrayList<>()).add(rule);
+        }
+        rulesByProduct.clear();
+        byProduct.forEach((productId, rules) -> productRepository.findById(productId)
+                .ifPresent(product -> rulesByProduct.put(productId, compile(product, rules, false))));
+        log.info("Compiled {} alert rules for {} products in {}ms", byProduct.values().stream().mapToInt(List::size).sum(),
+                rulesByProduct.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    /**
+     * Evaluate the product's rules against a new price without changing any state. The caller
+     * applies the result with {@link #commit} once the observation is stored, so an observation
+     * that fails to commit leaves the rules as they were.
+     */
+    Evaluation evaluate(Long productId, double price) {
+        ProductRules rules = rulesByProduct.get(productId);
+        if (rules == null) {
+            return Evaluation.NONE;
+        }
+        long today = LocalDate.now().toEpochDay();
+        List<Long> fired = null;
+        boolean[] active = new boolean[rules.rules.length];
+        synchronized (rules) {
+            for (int i = 0; i < rules.rules.length; i++) {
+                CompiledRule rule = rules.rules[i];
+                boolean holds = rule.condition.test(rules.state, price, today);
+                active[i] = holds;
+                if (rule.edgeTriggered) {
+                    // Fire on entering the condition, not on every observation inside it
+                    holds = holds && !rule.active;
+                }
+                if (holds) {
+                    if (fired == null) {
+                        fired = new ArrayList<>(2);
+                    }
+                    fired.add(rule.rule.getId());
+                }
+            }
+        }
+        return new Evaluation(rules, price, today, active, fired == null ? Collections.emptyList() : fired);
+    }
+    
+    /**
+     * Fold a stored observation into the rolling state and the rules' trigger state
+     */
+    void commit(Evaluation evaluation) {
+        ProductRules rules = evaluation.rules;
+        if (rules == null) {
+            return;
+        }
+        synchronized (rules) {
+            for (int i = 0; i < rules.rules.length; i++) {
+                if (rules.rules[i].edgeTriggered) {
+                    rules.rules[i].active = evaluation.active[i];
+                }
+            }
+            rules.state.observe(evaluation.price, evaluation.day);
+        }
+    }
+    
+    /**
+     * Record a check that found no price, the out-of-stock signal for BACK_IN_STOCK rules
+     */
+    void markUnavailable(Long productId) {
+        ProductRules rules = rulesByProduct.get(productId);
+        if (rules != null) {
+            synchronized (rules) {
+                rules.state.markUnavailable();
+            }
+        }
+    }
+    
+    /**
+     * One of the product's compiled (enabled) rules by id
+     */
+    Optional<AlertRule> compiledRule(Long productId, Long ruleId) {
+        ProductRules rules = rulesByProduct.get(productId);
+        if (rules != null) {
+            for (CompiledRule rule : rules.rules) {
+                if (rule.rule.getId().equals(ruleId)) {
+                    return Optional.of(rule.rule);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+    
+    public List<AlertRule> getRules(Long productId) {
+        return alertRuleRepository.findByProductIdOrderById(productId);
+    }
+    
+    /**
+     * Validate and save a rule, then recompile the product's rules
+     */
+    public AlertRule addRule(Product product, AlertRule rule) {
+        validate(rule);
+        rule.setId(null);
+        rule.setProductId(product.getId());
+        AlertRule saved = alertRuleRepository.save(rule);
+        reload(product);
+        return saved;
+    }
+    
+    /**
+     * Delete a rule; returns false if it does not exist
+     */
+    public boolean deleteRule(Long ruleId) {
+        Optional<AlertRule> rule = alertRuleRepository.findById(ruleId);
+        if (rule.isEmpty()) {
+            return false;
+        }
+        alertRuleRepository.deleteById(ruleId);
+        productRepository.findById(rule.get().getProductId()).ifPresent(this::reload);
+        return true;
+    }
+    
+    public void deleteProduct(Long productId) {
+        alertRuleRepository.deleteByProductId(productId);
+        rulesByProduct.remove(productId);
+    }
+    
+    /**
+     * Human-readable form of a rule's condition, used in notifications
+     */
+    public static String describe(AlertRule rule) {
+        return switch (rule.getType()) {
+            case BELOW_PRICE -> String.format("price at or below ₹%.2f", rule.getThreshold());
+            case PERCENT_DROP -> String.format("price dropped by %.1f%% or more", rule.getThreshold());
+            case PERCENT_BELOW_AVERAGE -> String.format("price %.1f%% or more below its average", rule.getThreshold());
+            case PERCENT_BELOW_HIGH -> String.format("price %.1f%% or more below its highest", rule.getThreshold());
+            case ALL_TIME_LOW -> "lowest price ever seen";
+            case LOWEST_IN_DAYS -> "lowest price in " + rule.getWindowDays() + " days";
+            case BACK_IN_STOCK -> "back in stock";
+        };
+    }
+    
+    private void reload(Product product) {
+        List<AlertRule> rules = new ArrayList<>();
+        for (AlertRule rule : alertRuleRepository.findByProductIdOrderById(product.getId())) {
+            if (Boolean.TRUE.equals(rule.getEnabled())) {
+                rules.add(rule);
+            }
+        }
+        if (rules.isEmpty()) {
+            rulesByProduct.remove(product.getId());
+            return;
+        }
+        ProductRules previous = rulesByProduct.get(product.getId());
+        boolean unavailable = false;
+        if (previous != null) {
+            synchronized (previous) {
+                unavailable = previous.state.unavailable();
+            }
+        }
+        rulesByProduct.put(product.getId(), compile(product, rules, unavailable));
+    }
+    
+    /**
+     * Build the conditions and warm their rolling state. Level-style rules whose condition
+     * already holds for the current price start active, so a reload does not repeat their alert.
+     */
+    private ProductRules compile(Product product, List<AlertRule> rules, boolean unavailable) {
+        RollingPriceState state = new RollingPriceState(emaAlpha);
+        List<CompiledRule> compiled = new ArrayList<>(rules.size());
+        for (AlertRule rule : rules) {
+            compiled.add(compileRule(rule, state));
+        }
+        warm(product, state, unavailable);
+        
+        // The warmed state already includes the current price, which is close enough here
+        Double current = product.getCurrentPrice();
+        long today = LocalDate.now().toEpochDay();
+        for (CompiledRule rule : compiled) {
+            if (rule.edgeTriggered && current != null && current > 0) {
+                rule.active = rule.condition.test(state, current, today);
+            }
+        }
+        return new ProductRules(compiled.toArray(new CompiledRule[0]), state);
+    }
+    
+    private static CompiledRule compileRule(AlertRule rule, RollingPriceState state) {
+        double threshold = rule.getThreshold() != null ? rule.getThreshold() : 0;
+        double factor = 1 - threshold / 100;
+        return switch (rule.getType()) {
+            case BELOW_PRICE -> new CompiledRule(rule, true, (s, price, day) -> price <= threshold);
+            case PERCENT_DROP -> new CompiledRule(rule, false,
+                    (s, price, day) -> s.last() != null && s.last() > 0 && price <= s.last() * factor);
+            case PERCENT_BELOW_AVERAGE -> new CompiledRule(rule, true,
+                    (s, price, day) -> s.ema() != null && price <= s.ema() * factor);
+            case PERCENT_BELOW_HIGH -> new CompiledRule(rule, true,
+                    (s, price, day) -> s.max() != null && price <= s.max() * factor);
+            case ALL_TIME_LOW -> new CompiledRule(rule, false, (s, price, day) -> s.min() != null && price < s.min());
+            case LOWEST_IN_DAYS -> {
+                RollingPriceState.MinWindow window = state.window(rule.getWindowDays());
+                yield new CompiledRule(rule, false, (s, price, day) -> {
+                    Double min = window.min(day);
+                    return min != null && price < min;
+                });
+            }
+            case BACK_IN_STOCK -> new CompiledRule(rule, false, (s, price, day) -> s.unavailable());
+        };
+    }
+    
+    /**
+     * Seed the rolling state from stored prices; the only queries the engine makes
+     */
+    private void warm(Product product, RollingPriceState state, boolean unavailable) {
+        Long productId = product.getId();
+        for (Object[] range : priceHistoryRepository.findPriceRangeByProductId(productId)) {
+            state.seedRange((Double) range[0], (Double) range[1]);
+        }
+        for (Object[] range : dailyAggregateRepository.findPriceRangeByProductId(productId)) {
+            state.seedRange((Double) range[0], (Double) range[1]);
+        }
+        
+        List<Double> recent = priceHistoryRepository.findRecentPrices(productId, PageRequest.of(0, EMA_SEED_SIZE));
+        for (int i = recent.size() - 1; i >= 0; i--) {
+            state.seedEma(recent.get(i));
+        }
+        
+        int windowDays = state.maxWindowDays();
+        if (windowDays > 0) {
+            LocalDate since = LocalDate.now().minusDays(windowDays);
+            // Compacted days come from the aggregates, recent ones from the raw history
+            TreeMap<Long, Double> dailyMinima = new TreeMap<>();
+            for (PriceHistoryDailyAggregate bucket : dailyAggregateRepository
+                    .findByProductIdAndBucketDateGreaterThanEqualOrderByBucketDate(productId, since)) {
+                dailyMinima.merge(bucket.getBucketDate().toEpochDay(), bucket.getMinPrice(), Math::min);
+            }
+            for (Object[] day : priceHistoryRepository.findDailyMinimaSince(productId, since.atStartOfDay())) {
+                dailyMinima.merge(toLocalDate(day[0]).toEpochDay(), (Double) day[1], Math::min);
+            }
+            dailyMinima.forEach(state::seedDailyMin);
+        }
+        
+        state.seedLast(product.getCurrentPrice(), unavailable);
+    }
+    
+    private static LocalDate toLocalDate(Object value) {
+        if (value instanceof Date date) {
+            return date.toLocalDate();
+        }
+        if (value instanceof LocalDateTime dateTime) {
+            return dateTime.toLocalDate();
+        }
+        return (LocalDate) value;
+    }
+    
+    private static void validate(AlertRule rule) {
+        if (rule.getType() == null) {
+            throw new IllegalArgumentException("Rule type is required");
+        }
+        Double threshold = rule.getThreshold();
+        switch (rule.getType()) {
+            case BELOW_PRICE -> {
+                if (threshold == null || threshold <= 0) {
+                    throw new IllegalArgumentException("BELOW_PRICE rules need a positive threshold price");
+                }
+            }
+            case PERCENT_DROP, PERCENT_BELOW_AVERAGE, PERCENT_BELOW_HIGH -> {
+                if (threshold == null || threshold <= 0 || threshold >= 100) {
+                    throw new IllegalArgumentException(rule.getType() + " rules need a threshold percentage between 0 and 100");
+                }
+            }
+            case LOWEST_IN_DAYS -> {
+                if (rule.getWindowDays() == null || rule.getWindowDays() < 1 || rule.getWindowDays() > MAX_WINDOW_DAYS) {
+                    throw new IllegalArgumentException("LOWEST_IN_DAYS rules need windowDays between 1 and " + MAX_WINDOW_DAYS);
+                }
+            }
+            default -> { }
+        }
+    }
+    
+    @FunctionalInterface
+    private interface Condition {
+        boolean test(RollingPriceState state, double price, long day);
+    }
+    
+    private static final class CompiledRule {
+        private final AlertRule rule;
+        private final boolean edgeTriggered;
+        private final Condition condition;
+        // For edge-triggered rules: whether the condition held at the last observation
+        private boolean active;
+        
+        private CompiledRule(AlertRule rule, boolean edgeTriggered, Condition condition) {
+            this.rule = rule;
+            this.edgeTriggered = edgeTriggered;
+            this.condition = condition;
+        }
+    }
+    
+    /**
+     * Rules fired by one price, and the state to apply when it is committed
+     */
+    static final class Evaluation {
+        private static final Evaluation NONE = new Evaluation(null, 0, 0, new boolean[0], Collections.emptyList());
+        
+        private final ProductRules rules;
+        private final double price;
+        private final long day;
+        private final boolean[] active;
+        private final List<Long> fired;
+        
+        private Evaluation(ProductRules rules, double price, long day, boolean[] active, List<Long> fired) {
+            this.rules = rules;
+            this.price = price;
+            this.day = day;
+            this.active = active;
+            this.fired = fired;
+        }
+        
+        /**
+         * Ids of the rules that fired
+         */
+        List<Long> fired() {
+            return fired;
+        }
+    }
+    
+    private static final class ProductRules {
+        private final CompiledRule[] rules;
+        private final RollingPriceState state;
+        
+        private ProductRules(CompiledRule[] rules, RollingPriceState state) {
+            this.rules = rules;
+            this.state = state;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.pricetracker.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Entity tags for the read APIs, computed from in-memory revisions so a conditional request can
+ * be answered without touching the database.
+ *
+ * Product and catalog revisions come from the search index, which sees every product change. Raw
+ * price history additionally changes in bulk (retention compaction, history import), which bumps
+ * a separate history epoch. Every tag includes the startup time, because revisions restart from
+ * zero with the process.
+ */
+@Service
+public class CatalogVersions {
+    
+    private final String bootId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong historyEpoch = new AtomicLong();
+    private final ProductSearchService productSearchService;
+    
+    public CatalogVersions(ProductSearchService productSearchService) {
+        this.productSearchService = productSearchService;
+    }
+    
+    /**
+     * Tag of one product's representation, or null if the product is unknown
+     */
+    public String productTag(Long productId) {
+        long revision = productSearchService.revision(productId);
+        return revision < 0 ? null : "p" + productId + "-" + bootId + "-" + revision;
+    }
+    
+    /**
+     * Tag of one product's raw price history, or null if the product is unknown
+     */
+    public String historyTag(Long productId) {
+        long revision = productSearchService.revision(productId);
+        return revision < 0 ? null : "h" + productId + "-" + bootId + "-" + revision + "-" + historyEpoch.get();
+    }
+    
+    /**
+     * Tag of anything derived from the whole product list
+     */
+    public String catalogTag() {
+        return "c-" + bootId + "-" + productSearchService.catalogVersion();
+    }
+    
+    /**
+     * Record a change to price history that did not go through a product update
+     */
+    public void historyChanged() {
+        historyEpoch.incrementAndGet();
+    }
+}
@@ -1,9 +1,12 @@
 package com.pricetracker.service;
 
 import com.pricetracker.model.Product;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import java.awt.*;
@@ -11,7 +14,12 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.image.BufferedImage;
 
+/**
+ * System tray notifications. AWT is only loaded when the first notification is shown, so
+ * startup and headless servers never pay for it.
+ */
 @Service
+@Lazy
 public class DesktopNotificationService {
     
     private static final Logger log = LoggerFactory.getLogger(DesktopNotificationService.class);
@@ -19,22 +27,33 @@ public class DesktopNotificationService {
     @Value("${app.notification.desktop.enabled:true}")
     private boolean desktopNotificationsEnabled;
     
+    @Autowired
+    private PriceTrackerMetrics metrics;
+    
     private SystemTray systemTray;
     private TrayIcon trayIcon;
     private boolean initialized = false;
+    private boolean initAttempted = false;
     
-    public DesktopNotificationService() {
-        initializeSystemTray();
+    /**
+     * Set up the tray icon on first use; returns whether notifications can be shown
+     */
+    private synchronized boolean ensureInitialized() {
+        if (!initAttempted) {
+            initAttempted = true;
+            initializeSystemTray();
+        }
+        return initialized;
     }
     
     private void initializeSystemTray() {
-        if (!SystemTray.isSupported()) {
-            log.warn("SystemTray is not supported on this system");
+        if (!desktopNotificationsEnabled) {
+            log.debug("Desktop notifications are disabled");
             return;
         }
         
-        if (!desktopNotificationsEnabled) {
-            log.debug("Desktop notifications are disabled");
+        if (GraphicsEnvironment.isHeadless() || !SystemTray.isSupported()) {
+            log.warn("SystemTray is not supported on this system");
             return;
         }
         
@@ -87,7 +106,7 @@ public class DesktopNotificationService {
      * Show desktop notification for price drop
      */
     public void showPriceDropNotification(Product product, Double oldPrice, Double newPrice) {
-        if (!initialized || !desktopNotificationsEnabled) {
+        if (!desktopNotificationsEnabled || !ensureInitialized()) {
             log.debug("Desktop notifications not available or disabled");
             return;
         }
@@ -108,10 +127,13 @@ public class DesktopNotificationService {
                 percentageDrop
             );
             
+            long showStart = System.nanoTime();
             showNotification(title, message, TrayIcon.MessageType.INFO);
+            metrics.recordNotification("desktop", "price_drop", System.nanoTime() - showStart);
             log.info("Desktop notification shown for price drop: {}", product.getName());
             
         } catch (Exception e) {
+            metrics.recordNotificationFailure("desktop", "price_drop");
             log.error("Failed to show desktop notification: {}", e.getMessage(), e);
         }
     }
@@ -120,7 +142,7 @@ public class DesktopNotificationService {
      * Show desktop notification for target price reached or price below target
      */
     public void showTargetPriceReachedNotification(Product product) {
-        if (!initialized || !desktopNotificationsEnabled) {
+        if (!desktopNotificationsEnabled || !ensureInitialized()) {
             return;
         }
         
@@ -142,10 +164,73 @@ public class DesktopNotificationService {
                 savingsPercent
             );
             
+            long showStart = System.nanoTime();
             showNotification(title, message, TrayIcon.MessageType.INFO);
+            metrics.recordNotification("desktop", "target_reached", System.nanoTime() - showStart);
             log.info("Desktop notification shown for price below target: {}", product.getName());
             
         } catch (Exception e) {
+            metrics.recordNotificationFailure("desktop", "target_reached");
+            log.error("Failed to show desktop notification: {}", e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Show desktop notification for a matched alert rule
+     */
+    public void showRuleTriggeredNotification(Product product, String condition, Double price) {
+        if (!desktopNotificationsEnabled || !ensureInitialized()) {
+            return;
+        }
+        
+        try {
+            String title = "🔔 Price Alert!";
+            String message = String.format(
+                "%s\n" +
+                "%s\n" +
+                "Current Price: ₹%.2f",
+                product.getName(),
+                condition,
+                price
+            );
+            
+            long showStart = System.nanoTime();
+            showNotification(title, message, TrayIcon.MessageType.INFO);
+            metrics.recordNotification("desktop", "rule", System.nanoTime() - showStart);
+            log.info("Desktop notification shown for alert rule: {}", product.getName());
+            
+        } catch (Exception e) {
+            metrics.recordNotificationFailure("desktop", "rule");
+            log.error("Failed to show desktop notification: {}", e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Show one desktop notification for all desktop subscribers whose target a price crossed
+     */
+    public void showSubscriptionNotification(Product product, double price, int subscribers) {
+        if (!desktopNotificationsEnabled || !ensureInitialized()) {
+            return;
+        }
+        
+        try {
+            String title = "🎯 Price Below Target!";
+            String message = String.format(
+                "%s\n" +
+                "Current Price: ₹%.2f\n" +
+                "Below the target of %d subscription(s)",
+                product.getName(),
+                price,
+                subscribers
+            );
+            
+            long showStart = System.nanoTime();
+            showNotification(title, message, TrayIcon.MessageType.INFO);
+            metrics.recordNotification("desktop", "subscription", System.nanoTime() - showStart);
+            log.info("Desktop notification shown for {} subscriptions: {}", subscribers, product.getName());
+            
+        } catch (Exception e) {
+            metrics.recordNotificationFailure("desktop", "subscription");
             log.error("Failed to show desktop notification: {}", e.getMessage(), e);
         }
     }
@@ -162,7 +247,8 @@ public class DesktopNotificationService {
     /**
      * Cleanup on shutdown
      */
-    public void cleanup() {
+    @PreDestroy
+    public synchronized void cleanup() {
         if (systemTray != null && trayIcon != null) {
             systemTray.remove(trayIcon);
         }
@@ -0,0 +1,330 @@
+package com.pricetracker.service;
+
+import org.jsoup.HttpStatusException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.NoRouteToHostException;
+import java.net.Proxy;
+import java.net.URI;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The outbound routes page fetches go out through: the direct connection and/or HTTP or SOCKS
+ * proxies, from {@code app.egress.routes}.
+ *
+ * Every fetch takes a lease on one route. Each route has its own request budget per retailer
+ * host ({@code app.egress.host-requests-per-minute}), since retailers rate-limit per client
+ * address, so the fetch rate one host allows grows with the number of routes. A lease goes to
+ * the route whose next slot for the host comes first, and the caller waits for that slot.
+ *
+ * Health is tracked per route and host: after {@code app.egress.max-failures} consecutive
+ * failures a route is removed for that host for {@code app.egress.cooldown-ms}, then gets one
+ * trial fetch back. Only failures that point at the route count, see {@link #outcomeOf}. When
+ * every route is removed for a host, the one due back first is used rather than stopping the
+ * host's checks altogether.
+ */
+@Service
+public class EgressPool {
+    
+    private static final Logger log = LoggerFactory.getLogger(EgressPool.class);
+    
+    private final List<Route> routes;
+    private final long slotNanos;
+    private final int maxFailures;
+    private final long cooldownNanos;
+    private final PriceTrackerMetrics metrics;
+    private int nextRoute;
+    
+    public EgressPool(@Value("${app.egress.routes:}") String routes,
+                      @Value("${app.egress.host-requests-per-minute:0}") double hostRequestsPerMinute,
+                      @Value("${app.egress.max-failures:3}") int maxFailures,
+                      @Value("${app.egress.cooldown-ms:60000}") long cooldownMs,
+                      PriceTrackerMetrics metrics) {
+        this.routes = parseRoutes(routes);
+        this.slotNanos = hostRequestsPerMinute > 0 ? Math.round(TimeUnit.MINUTES.toNanos(1) / hostRequestsPerMinute) : 0;
+        this.maxFailures = Math.max(1, maxFailures);
+        this.cooldownNanos = TimeUnit.MILLISECONDS.toNanos(cooldownMs);
+        this.metrics = metrics;
+        if (this.routes.size() > 1 || this.routes.get(0).proxy != null) {
+            log.info("Egress pool: {} routes {}, {} requests per minute per route and host", this.routes.size(),
+                    this.routes.stream().map(route -> route.name).toList(),
+                    hostRequestsPerMinute > 0 ? hostRequestsPerMinute : "unlimited");
+        }
+    }
+    
+    public int size() {
+        return routes.size();
+    }
+    
+    /**
+     * Lease a route for one request to the host, waiting for the route's next slot if needed
+     */
+    public Lease acquire(String host) throws InterruptedException {
+        long start = System.nanoTime();
+        Route route;
+        long slot;
+        synchronized (this) {
+            long now = System.nanoTime();
+            route = null;
+            HostState chosen = null;
+            long chosenSlot = Long.MAX_VALUE;
+            // Rotate the starting route so ties (and unlimited budgets) spread evenly
+            for (int i = 0; i < routes.size(); i++) {
+                Route candidate = routes.get((nextRoute + i) % routes.size());
+                HostState state = candidate.state(host);
+                if (state.removedUntil - now > 0) {
+                    continue;
+                }
+                long candidateSlot = Math.max(now, state.nextSlot);
+                if (candidateSlot < chosenSlot || (candidateSlot == chosenSlot && candidate.inFlight < route.inFlight)) {
+                    route = candidate;
+                    chosen = state;
+                    chosenSlot = candidateSlot;
+                }
+            }
+            if (route == null) {
+                // Every route is removed for this host; fall back to the one due back first
+                for (Route candidate : routes) {
+                    HostState state = candidate.state(host);
+                    if (chosen == null || state.removedUntil - chosen.removedUntil < 0) {
+                        route = candidate;
+                        chosen = state;
+                    }
+                }
+                chosenSlot = Math.max(now, chosen.nextSlot);
+            }
+            chosen.nextSlot = chosenSlot + slotNanos;
+            route.inFlight++;
+            route.requests++;
+            nextRoute = (routes.indexOf(route) + 1) % routes.size();
+            slot = chosenSlot;
+        }
+        long wait = slot - System.nanoTime();
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                release(new Lease(route, host), null);
+                throw e;
+            }
+        }
+        metrics.recordEgressWait(route.name, System.nanoTime() - start);
+        return new Lease(route, host);
+    }
+    
+    /**
+     * Return a lease with the outcome of its request: {@code true} when the route worked,
+     * {@code false} when it failed or was refused by the retailer, {@code null} to record nothing
+     */
+    public void release(Lease lease, Boolean success) {
+        Route route = lease.route;
+        synchronized (this) {
+            route.inFlight--;
+            if (success == null) {
+                return;
+            }
+            HostState state = route.state(lease.host);
+            if (success) {
+                state.failures = 0;
+                return;
+            }
+            route.failures++;
+            state.failures++;
+            if (state.failures < maxFailures) {
+                return;
+            }
+            // A route back from removal gets one trial request: its failure count stays at the limit
+            state.failures = maxFailures;
+            state.removedUntil = System.nanoTime() + cooldownNanos;
+            state.removedAt = Instant.now();
+        }
+        log.warn("Egress route {} removed for {} after {} consecutive failures; retrying it in {}s",
+                route.name, lease.host, maxFailures, TimeUnit.NANOSECONDS.toSeconds(cooldownNanos));
+        metrics.recordEgressRemoved(route.name, lease.host);
+    }
+    
+    /**
+     * What a failed request says about its route, as the outcome to {@link #release} with:
+     * {@code false} when the proxy could not be reached or the retailer refused this address
+     * (403, 429), {@code true} when the retailer answered with another client error, and
+     * {@code null} for retailer 5xx responses, timeouts and other failures the route is not to blame for
+     */
+    public static Boolean outcomeOf(IOException e, Lease lease) {
+        if (e instanceof HttpStatusException status) {
+            int code = status.getStatusCode();
+            if (code == 403 || code == 429) {
+                return false;
+            }
+            return code >= 500 ? null : Boolean.TRUE;
+        }
+        if (lease.getProxy() != null) {
+            String message = String.valueOf(e.getMessage());
+            if (e instanceof ConnectException || e instanceof NoRouteToHostException
+                    || message.contains("tunnel through proxy") || message.contains("SOCKS")) {
+                return false;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Per-route request counts and the hosts each route is currently removed for
+     */
+    public synchronized List<RouteStatus> status() {
+        long now = System.nanoTime();
+        List<RouteStatus> statuses = new ArrayList<>(routes.size());
+        for (Route route : routes) {
+            Map<String, Instant> removed = new LinkedHashMap<>();
+            route.hosts.forEach((host, state) -> {
+                if (state.removedUntil - now > 0) {
+                    removed.put(host, state.removedAt);
+                }
+            });
+            statuses.add(new RouteStatus(route.name, route.requests, route.failures, route.inFlight, removed));
+        }
+        return statuses;
+    }
+    
+    /**
+     * Parse a comma-separated route list: {@code direct}, {@code http://host:port} or
+     * {@code socks://host:port}. An empty list is the direct connection alone.
+     */
+    static List<Route> parseRoutes(String spec) {
+        List<Route> routes = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String value = part.trim();
+            if (value.isEmpty()) {
+                continue;
+            }
+            if (value.equalsIgnoreCase("direct")) {
+                routes.add(new Route("direct", null));
+                continue;
+            }
+            URI uri;
+            try {
+                uri = URI.create(value);
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid egress route: " + value);
+            }
+            String scheme = uri.getScheme() != null ? uri.getScheme().toLowerCase(Locale.ROOT) : "";
+            Proxy.Type type = switch (scheme) {
+                case "http" -> Proxy.Type.HTTP;
+                case "socks", "socks5" -> Proxy.Type.SOCKS;
+                default -> throw new IllegalArgumentException("Egress route must be direct, http://host:port or socks://host:port: " + value);
+            };
+            if (uri.getHost() == null || uri.getPort() < 0) {
+                throw new IllegalArgumentException("Egress route needs a host and port: " + value);
+            }
+            routes.add(new Route(value, new Proxy(type, InetSocketAddress.createUnresolved(uri.getHost(), uri.getPort()))));
+        }
+        if (routes.isEmpty()) {
+            routes.add(new Route("direct", null));
+        }
+        return routes;
+    }
+    
+    /**
+     * One outbound route; {@code proxy} is null for the direct connection
+     */
+    static final class Route {
+        private final String name;
+        private final Proxy proxy;
+        private final Map<String, HostState> hosts = new HashMap<>();
+        private int inFlight;
+        private long requests;
+        private long failures;
+        
+        private Route(String name, Proxy proxy) {
+            this.name = name;
+            this.proxy = proxy;
+        }
+        
+        private HostState state(String host) {
+            return hosts.computeIfAbsent(host, h -> new HostState());
+        }
+    }
+    
+    // Guarded by the pool's lock
+    private static final class HostState {
+        private long nextSlot = System.nanoTime();
+        private long removedUntil = System.nanoTime();
+        private Instant removedAt;
+        private int failures;
+    }
+    
+    /**
+     * A route taken for one request
+     */
+    public static final class Lease {
+        private final Route route;
+        private final String host;
+        
+        private Lease(Route route, String host) {
+            this.route = route;
+            this.host = host;
+        }
+        
+        public String getRoute() {
+            return route.name;
+        }
+        
+        /**
+         * The proxy to connect through, or null to connect directly
+         */
+        public Proxy getProxy() {
+            return route.proxy;
+        }
+    }
+    
+    public static final class RouteStatus {
+        private final String route;
+        private final long requests;
+        private final long failures;
+        private final int inFlight;
+        private final Map<String, Instant> removedHosts;
+        
+        private RouteStatus(String route, long requests, long failures, int inFlight, Map<String, Instant> removedHosts) {
+            this.route = route;
+            this.requests = requests;
+            this.failures = failures;
+            this.inFlight = inFlight;
+            this.removedHosts = removedHosts;
+        }
+        
+        public String getRoute() {
+            return route;
+        }
+        
+        public long getRequests() {
+            return requests;
+        }
+        
+        public long getFailures() {
+            return failures;
+        }
+        
+        public int getInFlight() {
+            return inFlight;
+        }
+        
+        /**
+         * Hosts this route is currently removed for, with the time of removal
+         */
+        public Map<String, Instant> getRemovedHosts() {
+            return removedHosts;
+        }
+    }
+}
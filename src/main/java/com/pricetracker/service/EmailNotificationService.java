@@ -5,11 +5,17 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 @Service
+@Lazy
 public class EmailNotificationService {
     
     private static final Logger log = LoggerFactory.getLogger(EmailNotificationService.class);
@@ -23,20 +29,31 @@ public class EmailNotificationService {
     @Value("${app.notification.email.enabled:true}")
     private boolean emailEnabled;
     
+    @Autowired
+    private PriceTrackerMetrics metrics;
+    
+    /**
+     * Outcome of one notification: sent to the mail server, not sent because email is disabled,
+     * unconfigured or has no recipient, or failed and worth retrying
+     */
+    public enum Delivery {
+        SENT, SKIPPED, FAILED
+    }
+    
     /**
      * Send price drop notification email
      */
-    public void sendPriceDropNotification(Product product, Double oldPrice, Double newPrice) {
-        log.info("Attempting to send price drop notification for product: {}", product.getName());
+    public Delivery sendPriceDropNotification(Product product, Double oldPrice, Double newPrice) {
+        log.debug("Attempting to send price drop notification for product: {}", product.getName());
         
         if (!emailEnabled) {
-            log.warn("Email notifications are disabled in configuration");
-            return;
+            log.debug("Email notifications are disabled in configuration");
+            return Delivery.SKIPPED;
         }
         
         if (mailSender == null) {
             log.error("JavaMailSender is not configured. Check your email settings in application.properties");
-            return;
+            return Delivery.SKIPPED;
         }
         
         String email = product.getNotificationEmail();
@@ -48,10 +65,10 @@ public class EmailNotificationService {
         
         if (email == null || email.isEmpty()) {
             log.warn("No email address configured for product: {}. Please add email in product settings or configure spring.mail.username", product.getName());
-            return;
+            return Delivery.SKIPPED;
         }
         
-        log.info("Sending price drop notification to: {}", email);
+        log.debug("Sending price drop notification to: {}", email);
         
         try {
             SimpleMailMessage message = new SimpleMailMessage();
@@ -87,28 +104,33 @@ public class EmailNotificationService {
             
             message.setText(body);
             
+            long sendStart = System.nanoTime();
             mailSender.send(message);
+            metrics.recordNotification("email", "price_drop", System.nanoTime() - sendStart);
             log.info("Price drop notification email sent to {} for product: {}", email, product.getName());
+            return Delivery.SENT;
             
         } catch (Exception e) {
+            metrics.recordNotificationFailure("email", "price_drop");
             log.error("Failed to send price drop notification email: {}", e.getMessage(), e);
+            return Delivery.FAILED;
         }
     }
     
     /**
      * Send price below target notification
      */
-    public void sendTargetPriceReachedNotification(Product product) {
-        log.info("Attempting to send target price reached notification for product: {}", product.getName());
+    public Delivery sendTargetPriceReachedNotification(Product product) {
+        log.debug("Attempting to send target price reached notification for product: {}", product.getName());
         
         if (!emailEnabled) {
-            log.warn("Email notifications are disabled in configuration");
-            return;
+            log.debug("Email notifications are disabled in configuration");
+            return Delivery.SKIPPED;
         }
         
         if (mailSender == null) {
             log.error("JavaMailSender is not configured. Check your email settings in application.properties");
-            return;
+            return Delivery.SKIPPED;
         }
         
         String email = product.getNotificationEmail();
@@ -119,10 +141,10 @@ public class EmailNotificationService {
         
         if (email == null || email.isEmpty()) {
             log.warn("No email address configured for product: {}. Please add email in product settings or configure spring.mail.username", product.getName());
-            return;
+            return Delivery.SKIPPED;
         }
         
-        log.info("Sending target price reached notification to: {}", email);
+        log.debug("Sending target price reached notification to: {}", email);
         
         try {
             SimpleMailMessage message = new SimpleMailMessage();
@@ -152,12 +174,161 @@ public class EmailNotificationService {
             );
             
             message.setText(body);
+            long sendStart = System.nanoTime();
             mailSender.send(message);
+            metrics.recordNotification("email", "target_reached", System.nanoTime() - sendStart);
             log.info("Target price reached notification sent to {} for product: {}", email, product.getName());
+            return Delivery.SENT;
             
         } catch (Exception e) {
+            metrics.recordNotificationFailure("email", "target_reached");
             log.error("Failed to send target price notification: {}", e.getMessage(), e);
+            return Delivery.FAILED;
+        }
+    }
+    
+    /**
+     * Send notification for a matched alert rule; {@code recipient} overrides the product's email
+     */
+    public Delivery sendRuleTriggeredNotification(Product product, String condition, Double price, String recipient) {
+        log.debug("Attempting to send alert rule notification for product: {}", product.getName());
+        
+        if (!emailEnabled) {
+            log.debug("Email notifications are disabled in configuration");
+            return Delivery.SKIPPED;
+        }
+        
+        if (mailSender == null) {
+            log.error("JavaMailSender is not configured. Check your email settings in application.properties");
+            return Delivery.SKIPPED;
+        }
+        
+        String email = recipient;
+        if (email == null || email.isEmpty()) {
+            email = product.getNotificationEmail();
+        }
+        if (email == null || email.isEmpty()) {
+            email = fromEmail;
+            log.debug("Using default email from configuration: {}", email);
+        }
+        
+        if (email == null || email.isEmpty()) {
+            log.warn("No email address configured for product: {}. Please add email in product settings or configure spring.mail.username", product.getName());
+            return Delivery.SKIPPED;
+        }
+        
+        try {
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(fromEmail);
+            message.setTo(email);
+            message.setSubject("🔔 Price Alert: " + product.getName());
+            
+            String body = String.format(
+                "Your alert for '%s' was triggered: %s\n\n" +
+                "📦 Product: %s\n" +
+                "💰 Current Price: ₹%.2f\n" +
+                "🎯 Your Target: ₹%.2f\n" +
+                "🔗 URL: %s",
+                product.getName(),
+                condition,
+                product.getName(),
+                price,
+                product.getTargetPrice(),
+                product.getUrl()
+            );
+            
+            message.setText(body);
+            long sendStart = System.nanoTime();
+            mailSender.send(message);
+            metrics.recordNotification("email", "rule", System.nanoTime() - sendStart);
+            log.info("Alert rule notification sent to {} for product: {}", email, product.getName());
+            return Delivery.SENT;
+            
+        } catch (Exception e) {
+            metrics.recordNotificationFailure("email", "rule");
+            log.error("Failed to send alert rule notification: {}", e.getMessage(), e);
+            return Delivery.FAILED;
+        }
+    }
+    
+    /**
+     * Send target price notifications to a batch of subscribers in one mail session.
+     * Returns the outcome for each subscriber, in the order given.
+     */
+    public List<Delivery> sendSubscriptionNotifications(Product product, double price, List<SubscriberIndex.Subscriber> subscribers) {
+        List<Delivery> deliveries = new ArrayList<>(Collections.nCopies(subscribers.size(), Delivery.SKIPPED));
+        if (!emailEnabled) {
+            log.debug("Email notifications are disabled in configuration");
+            return deliveries;
+        }
+        
+        if (mailSender == null) {
+            log.error("JavaMailSender is not configured. Check your email settings in application.properties");
+            return deliveries;
+        }
+        
+        List<SimpleMailMessage> messages = new ArrayList<>(subscribers.size());
+        List<Integer> positions = new ArrayList<>(subscribers.size());
+        for (int i = 0; i < subscribers.size(); i++) {
+            SubscriberIndex.Subscriber subscriber = subscribers.get(i);
+            String email = subscriber.getEmail();
+            if (email == null || email.isEmpty()) {
+                email = product.getNotificationEmail();
+            }
+            if (email == null || email.isEmpty()) {
+                email = fromEmail;
+            }
+            if (email == null || email.isEmpty()) {
+                log.warn("No email address for subscription {} on product: {}", subscriber.getId(), product.getName());
+                continue;
+            }
+            
+            double savings = subscriber.getTargetPrice() - price;
+            SimpleMailMessage message = new SimpleMailMessage();
+            message.setFrom(fromEmail);
+            message.setTo(email);
+            message.setSubject("🎯 Target Price Reached: " + product.getName());
+            message.setText(String.format(
+                "Great news! The price of '%s' is below your target price!\n\n" +
+                "📦 Product: %s\n" +
+                "💰 Current Price: ₹%.2f\n" +
+                "🎯 Your Target: ₹%.2f\n" +
+                "💵 You Save: ₹%.2f (%.1f%%)\n" +
+                "🔗 URL: %s",
+                product.getName(),
+                product.getName(),
+                price,
+                subscriber.getTargetPrice(),
+                savings,
+                savings / subscriber.getTargetPrice() * 100,
+                product.getUrl()
+            ));
+            messages.add(message);
+            positions.add(i);
+        }
+        if (messages.isEmpty()) {
+            return deliveries;
+        }
+        
+        Delivery outcome;
+        try {
+            long sendStart = System.nanoTime();
+            mailSender.send(messages.toArray(new SimpleMailMessage[0]));
+            long perMessage = (System.nanoTime() - sendStart) / messages.size();
+            for (int i = 0; i < messages.size(); i++) {
+                metrics.recordNotification("email", "subscription", perMessage);
+            }
+            log.info("Sent {} subscription notifications for product: {}", messages.size(), product.getName());
+            outcome = Delivery.SENT;
+        } catch (Exception e) {
+            metrics.recordNotificationFailure("email", "subscription");
+            log.error("Failed to send subscription notifications for {}: {}", product.getName(), e.getMessage(), e);
+            outcome = Delivery.FAILED;
+        }
+        for (int position : positions) {
+            deliveries.set(position, outcome);
         }
+        return deliveries;
     }
 }
 
@@ -0,0 +1,81 @@
+package com.pricetracker.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Outcome of one product price check, kept in the {@link FetchEventLog} ring buffer
+ */
+public final class FetchEvent {
+    
+    public enum Outcome {
+        UPDATED, NO_PRICE, FETCH_ERROR, ERROR
+    }
+    
+    private final LocalDateTime recordedAt;
+    private final Long productId;
+    private final String host;
+    private final Outcome outcome;
+    private final String source;
+    private final Double oldPrice;
+    private final Double price;
+    private final long durationMillis;
+    private final String error;
+    
+    FetchEvent(Long productId, String host, Outcome outcome, String source,
+               Double oldPrice, Double price, long durationMillis, String error) {
+        this.recordedAt = LocalDateTime.now();
+        this.productId = productId;
+        this.host = host;
+        this.outcome = outcome;
+        this.source = source;
+        this.oldPrice = oldPrice;
+        this.price = price;
+        this.durationMillis = durationMillis;
+        this.error = error;
+    }
+    
+    public LocalDateTime getRecordedAt() {
+        return recordedAt;
+    }
+    
+    public Long getProductId() {
+        return productId;
+    }
+    
+    public String getHost() {
+        return host;
+    }
+    
+    public Outcome getOutcome() {
+        return outcome;
+    }
+    
+    public String getSource() {
+        return source;
+    }
+    
+    public Double getOldPrice() {
+        return oldPrice;
+    }
+    
+    public Double getPrice() {
+        return price;
+    }
+    
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    @Override
+    public String toString() {
+        return "product=" + productId + " host=" + host + " outcome=" + outcome
+                + (source != null ? " source=" + source : "")
+                + (price != null ? " price=" + price + " old=" + oldPrice : "")
+                + " took=" + durationMillis + "ms"
+                + (error != null ? " error=" + error : "");
+    }
+}
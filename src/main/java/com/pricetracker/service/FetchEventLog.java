@@ -0,0 +1,53 @@
+package com.pricetracker.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size ring buffer of recent {@link FetchEvent}s. Recording is lock-free and does no I/O,
+ * so per-product detail stays available (via {@code /api/fetch-events}) without logging every
+ * product on the hot path. The oldest events are overwritten once the buffer is full.
+ */
+@Component
+public class FetchEventLog {
+    
+    private final AtomicReferenceArray<FetchEvent> slots;
+    private final int mask;
+    private final AtomicLong sequence = new AtomicLong();
+    
+    public FetchEventLog(@Value("${app.tracking.event-buffer-size:1024}") int capacity) {
+        // Round up to a power of two so the slot index is a mask rather than a modulo
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+    
+    public void record(FetchEvent event) {
+        long seq = sequence.getAndIncrement();
+        slots.lazySet((int) (seq & mask), event);
+    }
+    
+    /**
+     * Most recent events first, optionally only those for one product
+     */
+    public List<FetchEvent> recent(int limit, Long productId) {
+        List<FetchEvent> events = new ArrayList<>(Math.min(limit, slots.length()));
+        long newest = sequence.get() - 1;
+        for (long seq = newest; seq >= 0 && seq > newest - slots.length() && events.size() < limit; seq--) {
+            FetchEvent event = slots.get((int) (seq & mask));
+            if (event != null && (productId == null || productId.equals(event.getProductId()))) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+    
+    public long getTotalRecorded() {
+        return sequence.get();
+    }
+}
@@ -0,0 +1,287 @@
+package com.pricetracker.service;
+
+/**
+ * Single-pass reader that pulls an offer price out of a JSON-LD block without building a tree.
+ *
+ * The reader walks the JSON once, remembering only the handful of keys it cares about for the
+ * object it is currently inside ({@code @type}, {@code price}, {@code lowPrice},
+ * {@code priceCurrency}). An object counts as an offer when its type mentions {@code Offer} or
+ * {@code PriceSpecification}, or when it sits under an {@code offers}/{@code priceSpecification}
+ * key. Reference prices ({@code priceType} ListPrice, StrikethroughPrice, MSRP or SRP, i.e. the
+ * struck-out M.R.P.) are not offers. The first offer priced in INR wins; otherwise the first
+ * offer found is returned. Malformed input yields {@code null} rather than an exception.
+ */
+public final class JsonLdPriceReader {
+    
+    private static final int MAX_DEPTH = 64;
+    
+    private final String json;
+    private int pos;
+    private Double firstPrice;
+    private Double inrPrice;
+    
+    private JsonLdPriceReader(String json) {
+        this.json = json;
+    }
+    
+    /**
+     * Return the offer price found in the given JSON-LD text, or null if there is none
+     */
+    public static Double readOfferPrice(String json) {
+        if (json == null || json.isEmpty()) {
+            return null;
+        }
+        JsonLdPriceReader reader = new JsonLdPriceReader(json);
+        try {
+            reader.skipWhitespace();
+            reader.readValue(null, 0);
+        } catch (MalformedJsonException e) {
+            // Keep whatever was found before the malformed section
+        }
+        return reader.inrPrice != null ? reader.inrPrice : reader.firstPrice;
+    }
+    
+    private void readValue(String parentKey, int depth) {
+        if (depth > MAX_DEPTH) {
+            throw new MalformedJsonException();
+        }
+        char c = peek();
+        if (c == '{') {
+            readObject(parentKey, depth);
+        } else if (c == '[') {
+            readArray(parentKey, depth);
+        } else if (c == '"') {
+            readString();
+        } else {
+            readScalar();
+        }
+    }
+    
+    private void readObject(String parentKey, int depth) {
+        expect('{');
+        String type = null;
+        String price = null;
+        String lowPrice = null;
+        String currency = null;
+        String priceType = null;
+        
+        skipWhitespace();
+        if (peek() == '}') {
+            pos++;
+            return;
+        }
+        while (true) {
+            skipWhitespace();
+            String key = readString();
+            skipWhitespace();
+            expect(':');
+            skipWhitespace();
+            char c = peek();
+            if (c == '"' || c == '-' || Character.isDigit(c)) {
+                String value = c == '"' ? readString() : readScalar();
+                switch (key) {
+                    case "@type" -> type = value;
+                    case "price" -> price = value;
+                    case "lowPrice" -> lowPrice = value;
+                    case "priceCurrency" -> currency = value;
+                    case "priceType" -> priceType = value;
+                    default -> { }
+                }
+            } else if (c == '[' && key.equals("@type")) {
+                type = readTypeArray();
+            } else {
+                readValue(key, depth + 1);
+            }
+            skipWhitespace();
+            char next = next();
+            if (next == '}') {
+                break;
+            }
+            if (next != ',') {
+                throw new MalformedJsonException();
+            }
+        }
+        
+        boolean isOffer = (type != null && (type.contains("Offer") || type.contains("PriceSpecification")))
+                || "offers".equals(parentKey) || "priceSpecification".equals(parentKey);
+        if (isOffer && !isReferencePrice(priceType)) {
+            Double value = toPrice(price != null ? price : lowPrice);
+            if (value != null) {
+                if (firstPrice == null) {
+                    firstPrice = value;
+                }
+                if (inrPrice == null && "INR".equalsIgnoreCase(currency)) {
+                    inrPrice = value;
+                }
+            }
+        }
+    }
+    
+    private void readArray(String parentKey, int depth) {
+        expect('[');
+        skipWhitespace();
+        if (peek() == ']') {
+            pos++;
+            return;
+        }
+        while (true) {
+            skipWhitespace();
+            // Elements of an array inherit the key the array was stored under (e.g. "offers": [...])
+            readValue(parentKey, depth + 1);
+            skipWhitespace();
+            char next = next();
+            if (next == ']') {
+                return;
+            }
+            if (next != ',') {
+                throw new MalformedJsonException();
+            }
+        }
+    }
+    
+    private String readTypeArray() {
+        StringBuilder types = new StringBuilder();
+        expect('[');
+        skipWhitespace();
+        if (peek() == ']') {
+            pos++;
+            return "";
+        }
+        while (true) {
+            skipWhitespace();
+            if (peek() == '"') {
+                types.append(readString()).append(' ');
+            } else {
+                readScalar();
+            }
+            skipWhitespace();
+            char next = next();
+            if (next == ']') {
+                return types.toString();
+            }
+            if (next != ',') {
+                throw new MalformedJsonException();
+            }
+        }
+    }
+    
+    private String readString() {
+        expect('"');
+        StringBuilder sb = null;
+        int start = pos;
+        while (true) {
+            if (pos >= json.length()) {
+                throw new MalformedJsonException();
+            }
+            char c = json.charAt(pos++);
+            if (c == '"') {
+                return sb == null ? json.substring(start, pos - 1) : sb.toString();
+            }
+            if (c == '\\') {
+                if (sb == null) {
+                    sb = new StringBuilder(json.substring(start, pos - 1));
+                }
+                if (pos >= json.length()) {
+                    throw new MalformedJsonException();
+                }
+                char escaped = json.charAt(pos++);
+                switch (escaped) {
+                    case 'n' -> sb.append('\n');
+                    case 't' -> sb.append('\t');
+                    case 'r' -> sb.append('\r');
+                    case 'b' -> sb.append('\b');
+                    case 'f' -> sb.append('\f');
+                    case 'u' -> {
+                        if (pos + 4 > json.length()) {
+                            throw new MalformedJsonException();
+                        }
+                        try {
+                            sb.append((char) Integer.parseInt(json.substring(pos, pos + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw new MalformedJsonException();
+                        }
+                        pos += 4;
+                    }
+                    default -> sb.append(escaped);
+                }
+            } else if (sb != null) {
+                sb.append(c);
+            }
+        }
+    }
+    
+    /**
+     * Numbers and the literals true/false/null
+     */
+    private String readScalar() {
+        int start = pos;
+        while (pos < json.length()) {
+            char c = json.charAt(pos);
+            if (c == ',' || c == '}' || c == ']' || Character.isWhitespace(c)) {
+                break;
+            }
+            pos++;
+        }
+        if (start == pos) {
+            throw new MalformedJsonException();
+        }
+        return json.substring(start, pos);
+    }
+    
+    // schema.org PriceTypeEnumeration members (and Google's StrikethroughPrice) that are not what the buyer pays
+    private static boolean isReferencePrice(String priceType) {
+        if (priceType == null) {
+            return false;
+        }
+        String type = priceType.substring(priceType.lastIndexOf('/') + 1);
+        return type.equalsIgnoreCase("ListPrice") || type.equalsIgnoreCase("StrikethroughPrice")
+                || type.equalsIgnoreCase("MSRP") || type.equalsIgnoreCase("SRP");
+    }
+    
+    private static Double toPrice(String value) {
+        if (value == null) {
+            return null;
+        }
+        String cleaned = value.replace(",", "").replace("₹", "").trim();
+        if (cleaned.isEmpty()) {
+            return null;
+        }
+        try {
+            double price = Double.parseDouble(cleaned);
+            return price > 0 && !Double.isInfinite(price) ? price : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    private void skipWhitespace() {
+        while (pos < json.length() && Character.isWhitespace(json.charAt(pos))) {
+            pos++;
+        }
+    }
+    
+    private char peek() {
+        if (pos >= json.length()) {
+            throw new MalformedJsonException();
+        }
+        return json.charAt(pos);
+    }
+    
+    private char next() {
+        char c = peek();
+        pos++;
+        return c;
+    }
+    
+    private void expect(char expected) {
+        if (next() != expected) {
+            throw new MalformedJsonException();
+        }
+    }
+    
+    private static final class MalformedJsonException extends RuntimeException {
+        MalformedJsonException() {
+            super(null, null, false, false);
+        }
+    }
+}
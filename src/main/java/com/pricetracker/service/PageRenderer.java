@@ -0,0 +1,19 @@
+package com.pricetracker.service;
+
+import java.io.IOException;
+import java.net.Proxy;
+
+/**
+ * Loads a page in a browser so prices filled in by client-side scripts end up in the markup.
+ * No implementation is on the default classpath; the Playwright one is built with the
+ * {@code render} Maven profile and switched on with {@code app.render.enabled}.
+ */
+public interface PageRenderer {
+    
+    /**
+     * Load the page through the given proxy (null to connect directly), let its scripts run and
+     * return the resulting HTML. A proxy that cannot be reached is reported as a
+     * {@link java.net.ConnectException}.
+     */
+    String render(String url, Proxy proxy) throws IOException;
+}
@@ -0,0 +1,397 @@
+package com.pricetracker.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * On-disk store of fetched product pages, so prices can be re-extracted without refetching.
+ *
+ * Pages are content-addressed: each body is gzipped into {@code objects/<2 hex>/<sha-256>.gz},
+ * so identical pages (unchanged between checks, or shared by several URLs) are stored once. The
+ * latest snapshot per canonical URL is recorded in an append-only {@code refs} log, replayed and
+ * compacted at startup. When the objects exceed {@code app.snapshots.max-bytes}, the least
+ * recently written are deleted down to 90% of the limit, pages no URL points at any more first.
+ */
+@Service
+public class PageSnapshotStore {
+    
+    private static final Logger log = LoggerFactory.getLogger(PageSnapshotStore.class);
+    
+    private static final String OBJECT_SUFFIX = ".gz";
+    
+    private final boolean enabled;
+    private final Path root;
+    private final Path objects;
+    private final Path refsFile;
+    private final long maxBytes;
+    private final Map<String, Snapshot> latest = new ConcurrentHashMap<>();
+    private final AtomicLong storedBytes = new AtomicLong();
+    private final AtomicLong stored = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    private final Object refsLock = new Object();
+    private FileChannel refsChannel;
+    private int refLines;
+    
+    public PageSnapshotStore(@Value("${app.snapshots.enabled:false}") boolean enabled,
+                             @Value("${app.snapshots.dir:./data/snapshots}") String dir,
+                             @Value("${app.snapshots.max-bytes:1073741824}") long maxBytes) {
+        this.enabled = enabled;
+        this.root = Paths.get(dir);
+        this.objects = root.resolve("objects");
+        this.refsFile = root.resolve("refs");
+        this.maxBytes = maxBytes;
+    }
+    
+    @PostConstruct
+    void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        Files.createDirectories(objects);
+        try (Stream<Path> files = objectFiles()) {
+            files.forEach(file -> storedBytes.addAndGet(sizeOf(file)));
+        }
+        if (Files.exists(refsFile)) {
+            for (String line : Files.readAllLines(refsFile, StandardCharsets.UTF_8)) {
+                Snapshot snapshot = Snapshot.parse(line);
+                if (snapshot != null) {
+                    latest.put(snapshot.url, snapshot);
+                }
+            }
+            // Refs whose page was evicted are useless
+            latest.values().removeIf(snapshot -> !Files.exists(objectPath(snapshot.hash)));
+        }
+        synchronized (refsLock) {
+            compactRefs();
+        }
+        log.info("Page snapshot store at {}: {} URLs, {} MB in {}ms", root.toAbsolutePath(), latest.size(),
+                storedBytes.get() / (1024 * 1024), (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    @PreDestroy
+    void close() throws IOException {
+        synchronized (refsLock) {
+            if (refsChannel != null) {
+                refsChannel.close();
+                refsChannel = null;
+            }
+        }
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Keep a fetched page as the latest snapshot of its URL. Failures are logged, never thrown:
+     * a snapshot must not fail the price check that produced it.
+     */
+    public void store(String url, byte[] body, String charset) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+            Path target = objectPath(hash);
+            if (Files.exists(target)) {
+                // Refresh the write time so the page counts as recently used
+                Files.setLastModifiedTime(target, FileTime.fromMillis(System.currentTimeMillis()));
+                deduplicated.incrementAndGet();
+            } else {
+                writeObject(target, body);
+                stored.incrementAndGet();
+            }
+            
+            String key = ProductUrls.canonicalize(url);
+            Snapshot snapshot = new Snapshot(key, hash, charset, System.currentTimeMillis(), body.length);
+            Snapshot previous = latest.put(key, snapshot);
+            if (previous == null || !previous.hash.equals(hash)) {
+                appendRef(snapshot);
+            }
+            if (storedBytes.get() > maxBytes) {
+                evict();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            log.warn("Could not store snapshot of {}: {}", url, e.getMessage());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    /**
+     * Latest snapshot of the page at this URL (or any URL with the same canonical form)
+     */
+    public Optional<Snapshot> latest(String url) {
+        return Optional.ofNullable(latest.get(ProductUrls.canonicalize(url)));
+    }
+    
+    /**
+     * The uncompressed page body of a snapshot
+     */
+    public byte[] read(Snapshot snapshot) throws IOException {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(objectPath(snapshot.hash)), 16 * 1024)) {
+            return in.readAllBytes();
+        }
+    }
+    
+    public Stats stats() {
+        return new Stats(enabled, latest.size(), storedBytes.get(), maxBytes, stored.get(), deduplicated.get());
+    }
+    
+    private void writeObject(Path target, byte[] body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed, 16 * 1024)) {
+            gzip.write(body);
+        }
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(compressed.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        // Readers never see a partial object; a concurrent writer of the same page wrote the same bytes
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        storedBytes.addAndGet(compressed.size());
+    }
+    
+    private void appendRef(Snapshot snapshot) throws IOException {
+        synchronized (refsLock) {
+            ByteBuffer line = ByteBuffer.wrap((snapshot.format() + "\n").getBytes(StandardCharsets.UTF_8));
+            while (line.hasRemaining()) {
+                refsChannel.write(line);
+            }
+            // Every page change appends a line; rewrite once most lines are superseded
+            if (++refLines > 2 * latest.size() + 1000) {
+                compactRefs();
+            }
+        }
+    }
+    
+    // Rewrite the refs log with the latest snapshot per URL only; caller holds refsLock
+    private void compactRefs() throws IOException {
+        if (refsChannel != null) {
+            refsChannel.close();
+        }
+        Path temp = root.resolve("refs.tmp");
+        List<String> lines = new ArrayList<>(latest.size());
+        for (Snapshot snapshot : latest.values()) {
+            lines.add(snapshot.format());
+        }
+        Files.write(temp, lines, StandardCharsets.UTF_8);
+        Files.move(temp, refsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        refLines = lines.size();
+        refsChannel = FileChannel.open(refsFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+    
+    /**
+     * Delete objects until the store is at 90% of its limit: pages that are no URL's latest
+     * snapshot first, then the least recently written. One eviction runs at a time.
+     */
+    private void evict() throws IOException {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long target = maxBytes / 10 * 9;
+            Set<String> referenced = new HashSet<>();
+            for (Snapshot snapshot : latest.values()) {
+                referenced.add(snapshot.hash);
+            }
+            List<Path> candidates;
+            try (Stream<Path> files = objectFiles()) {
+                candidates = files.sorted(Comparator
+                                .comparing((Path file) -> referenced.contains(hashOf(file)))
+                                .thenComparing(PageSnapshotStore::modifiedMillis))
+                        .toList();
+            }
+            Set<String> deleted = new HashSet<>();
+            for (Path file : candidates) {
+                if (storedBytes.get() <= target) {
+                    break;
+                }
+                long size = sizeOf(file);
+                try {
+                    Files.delete(file);
+                    storedBytes.addAndGet(-size);
+                    deleted.add(hashOf(file));
+                } catch (NoSuchFileException e) {
+                    // Already gone
+                }
+            }
+            latest.values().removeIf(snapshot -> deleted.contains(snapshot.hash));
+            log.info("Evicted {} page snapshots; store is now {} MB", deleted.size(), storedBytes.get() / (1024 * 1024));
+        } finally {
+            evicting.set(false);
+        }
+    }
+    
+    private Stream<Path> objectFiles() throws IOException {
+        return Files.walk(objects, 2).filter(file -> file.getFileName().toString().endsWith(OBJECT_SUFFIX));
+    }
+    
+    private Path objectPath(String hash) {
+        return objects.resolve(hash.substring(0, 2)).resolve(hash + OBJECT_SUFFIX);
+    }
+    
+    private static String hashOf(Path file) {
+        String name = file.getFileName().toString();
+        return name.substring(0, name.length() - OBJECT_SUFFIX.length());
+    }
+    
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+    
+    private static long modifiedMillis(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+    
+    /**
+     * The latest stored page of one canonical URL
+     */
+    public static final class Snapshot {
+        private final String url;
+        private final String hash;
+        private final String charset;
+        private final long fetchedAt;
+        private final int size;
+        
+        private Snapshot(String url, String hash, String charset, long fetchedAt, int size) {
+            this.url = url;
+            this.hash = hash;
+            this.charset = charset;
+            this.fetchedAt = fetchedAt;
+            this.size = size;
+        }
+        
+        // hash, charset, fetched-at millis, size and URL, tab-separated; the URL goes last
+        private String format() {
+            return hash + "\t" + (charset != null ? charset : "") + "\t" + fetchedAt + "\t" + size + "\t" + url;
+        }
+        
+        private static Snapshot parse(String line) {
+            String[] fields = line.split("\t", 5);
+            if (fields.length < 5) {
+                return null;
+            }
+            try {
+                return new Snapshot(fields[4], fields[0], fields[1].isEmpty() ? null : fields[1],
+                        Long.parseLong(fields[2]), Integer.parseInt(fields[3]));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        
+        public String getUrl() {
+            return url;
+        }
+        
+        public String getHash() {
+            return hash;
+        }
+        
+        public String getCharset() {
+            return charset;
+        }
+        
+        public long getFetchedAt() {
+            return fetchedAt;
+        }
+        
+        public int getSize() {
+            return size;
+        }
+    }
+    
+    public static final class Stats {
+        private final boolean enabled;
+        private final int urls;
+        private final long storedBytes;
+        private final long maxBytes;
+        private final long pagesWritten;
+        private final long pagesDeduplicated;
+        
+        private Stats(boolean enabled, int urls, long storedBytes, long maxBytes, long pagesWritten, long pagesDeduplicated) {
+            this.enabled = enabled;
+            this.urls = urls;
+            this.storedBytes = storedBytes;
+            this.maxBytes = maxBytes;
+            this.pagesWritten = pagesWritten;
+            this.pagesDeduplicated = pagesDeduplicated;
+        }
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public int getUrls() {
+            return urls;
+        }
+        
+        public long getStoredBytes() {
+            return storedBytes;
+        }
+        
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+        
+        public long getPagesWritten() {
+            return pagesWritten;
+        }
+        
+        public long getPagesDeduplicated() {
+            return pagesDeduplicated;
+        }
+    }
+}
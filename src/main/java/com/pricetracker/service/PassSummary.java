@@ -0,0 +1,67 @@
+package com.pricetracker.service;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Counters for one run of a scheduled price check pass, logged as a single line when the pass
+ * ends. A resumed pass counts from where it resumed. Updated by the pass's page workers.
+ */
+final class PassSummary {
+    
+    private final long startedAt = System.nanoTime();
+    private final long passId;
+    private int pages;
+    private int checked;
+    private int updated;
+    private int unchanged;
+    private int noPrice;
+    private int fetchErrors;
+    private int errors;
+    private long fetchMillis;
+    private final Map<String, Integer> sources = new TreeMap<>();
+    
+    PassSummary(long passId) {
+        this.passId = passId;
+    }
+    
+    synchronized void addPages(int count) {
+        pages += count;
+    }
+    
+    synchronized int checked() {
+        return checked;
+    }
+    
+    /**
+     * Count an event; returns its 1-based position in the pass (used for sampling)
+     */
+    synchronized int add(FetchEvent event) {
+        checked++;
+        fetchMillis += event.getDurationMillis();
+        switch (event.getOutcome()) {
+            case UPDATED -> {
+                updated++;
+                if (event.getPrice().equals(event.getOldPrice())) {
+                    unchanged++;
+                }
+            }
+            case NO_PRICE -> noPrice++;
+            case FETCH_ERROR -> fetchErrors++;
+            case ERROR -> errors++;
+        }
+        if (event.getSource() != null) {
+            sources.merge(event.getSource(), 1, Integer::sum);
+        }
+        return checked;
+    }
+    
+    @Override
+    public synchronized String toString() {
+        long elapsedMillis = (System.nanoTime() - startedAt) / 1_000_000;
+        return "pass " + passId + ": " + checked + " products on " + pages + " pages in " + elapsedMillis + "ms: "
+                + updated + " updated (" + unchanged + " unchanged), " + noPrice + " without price, "
+                + fetchErrors + " fetch errors, " + errors + " errors; avg " + (checked > 0 ? fetchMillis / checked : 0)
+                + "ms per product; sources " + sources;
+    }
+}
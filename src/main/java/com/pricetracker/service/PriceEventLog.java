@@ -0,0 +1,410 @@
+package com.pricetracker.service;
+
+import com.pricetracker.model.AlertRule;
+import com.pricetracker.model.PriceEvent;
+import com.pricetracker.model.PriceHistory;
+import com.pricetracker.model.Product;
+import com.pricetracker.model.Subscription;
+import com.pricetracker.repository.PriceEventRepository;
+import com.pricetracker.repository.PriceHistoryRepository;
+import com.pricetracker.repository.ProductRepository;
+import com.pricetracker.repository.SubscriptionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Append-only log of alert decisions and their delivery ({@code price_events}).
+ *
+ * Each observed price is written in a single transaction: the price history row (the record of
+ * the observation itself), the product's current-price projection and the alert decisions.
+ * Notifications go out after the commit and are acknowledged with an {@code ALERT_DELIVERED}
+ * entry only once the email was accepted, so a crash or a mail server failure can at worst
+ * repeat an alert, never lose it. Pending alerts are redelivered on startup and retried
+ * periodically. The last price and target-alert state per product are cached in memory after
+ * each commit. User-defined alert rules are evaluated by {@link AlertRuleEngine} and logged as
+ * {@code RULE_TRIGGERED} entries in the same transaction. Subscriber alerts are logged by
+ * {@link SubscriptionService} as {@code TARGET_REACHED} entries carrying the subscription id and
+ * acknowledged the same way.
+ */
+@Service
+public class PriceEventLog {
+    
+    private static final Logger log = LoggerFactory.getLogger(PriceEventLog.class);
+    
+    private static final Set<PriceEvent.Type> ALERTS = EnumSet.of(PriceEvent.Type.TARGET_REACHED, PriceEvent.Type.PRICE_DROP,
+            PriceEvent.Type.RULE_TRIGGERED);
+    private static final Set<PriceEvent.Type> ACKS = EnumSet.of(PriceEvent.Type.ALERT_DELIVERED, PriceEvent.Type.ALERT_SKIPPED);
+    // Pending alerts at least this old are retried by the periodic redelivery
+    private static final long RETRY_MIN_AGE_MINUTES = 5;
+    
+    private final PriceEventRepository priceEventRepository;
+    private final ProductRepository productRepository;
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final SubscriptionRepository subscriptionRepository;
+    private final EmailNotificationService emailNotificationService;
+    private final DesktopNotificationService desktopNotificationService;
+    private final AlertRuleEngine alertRuleEngine;
+    private final ProductSearchService productSearchService;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<Long, AlertState> states = new ConcurrentHashMap<>();
+    // Striped locks serializing the observations of each product
+    private final Object[] productLocks = new Object[64];
+    
+    // Alerts older than this are not redelivered after a restart
+    @Value("${app.events.redeliver-max-age-hours:24}")
+    private long redeliverMaxAgeHours;
+    
+    public PriceEventLog(PriceEventRepository priceEventRepository,
+                         ProductRepository productRepository,
+                         PriceHistoryRepository priceHistoryRepository,
+                         SubscriptionRepository subscriptionRepository,
+                         @Lazy EmailNotificationService emailNotificationService,
+                         @Lazy DesktopNotificationService desktopNotificationService,
+                         AlertRuleEngine alertRuleEngine,
+                         ProductSearchService productSearchService,
+                         PlatformTransactionManager transactionManager) {
+        this.priceEventRepository = priceEventRepository;
+        this.productRepository = productRepository;
+        this.priceHistoryRepository = priceHistoryRepository;
+        this.subscriptionRepository = subscriptionRepository;
+        this.emailNotificationService = emailNotificationService;
+        this.desktopNotificationService = desktopNotificationService;
+        this.alertRuleEngine = alertRuleEngine;
+        this.productSearchService = productSearchService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        for (int i = 0; i < productLocks.length; i++) {
+            productLocks[i] = new Object();
+        }
+    }
+    
+    /**
+     * Record an observed price with its alert decisions; returns the alerts still to be delivered.
+     * Observations of one product are serialized, and the in-memory alert and rule state is only
+     * updated once the transaction has committed.
+     */
+    public List<PriceEvent> append(Product product, double price) {
+        synchronized (lockFor(product.getId())) {
+            return appendLocked(product, price);
+        }
+    }
+    
+    private List<PriceEvent> appendLocked(Product product, double price) {
+        LocalDateTime now = LocalDateTime.now();
+        AlertState state = stateOf(product);
+        Double oldPrice = state.lastPrice;
+        double target = product.getTargetPrice();
+        
+        List<PriceEvent> events = new ArrayList<>(2);
+        // Alert when the price is below target and we haven't alerted yet, or it was at/above target before
+        boolean isBelowTarget = price < target;
+        boolean targetNotified = state.targetNotified;
+        if (isBelowTarget && (!state.targetNotified || (oldPrice != null && oldPrice > 0 && oldPrice >= target))) {
+            events.add(new PriceEvent(product.getId(), PriceEvent.Type.TARGET_REACHED, price, oldPrice, target, null, now));
+            targetNotified = true;
+        } else if (!isBelowTarget && state.targetNotified) {
+            // Price went back above target; the next crossing alerts again
+            events.add(new PriceEvent(product.getId(), PriceEvent.Type.TARGET_RESET, price, oldPrice, target, null, now));
+            targetNotified = false;
+        }
+        if (oldPrice != null && oldPrice > 0 && price < oldPrice) {
+            events.add(new PriceEvent(product.getId(), PriceEvent.Type.PRICE_DROP, price, oldPrice, target, null, now));
+        }
+        AlertRuleEngine.Evaluation evaluation = alertRuleEngine.evaluate(product.getId(), price);
+        for (Long ruleId : evaluation.fired()) {
+            PriceEvent event = new PriceEvent(product.getId(), PriceEvent.Type.RULE_TRIGGERED, price, oldPrice, target, null, now);
+            event.setRuleId(ruleId);
+            events.add(event);
+        }
+        
+        Double previousPrice = product.getCurrentPrice();
+        LocalDateTime previousChecked = product.getLastChecked();
+        Boolean previousNotified = product.getTargetPriceNotified();
+        product.setCurrentPrice(price);
+        product.setLastChecked(now);
+        product.setTargetPriceNotified(targetNotified);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Product saved = productRepository.save(product);
+                PriceHistory history = new PriceHistory();
+                history.setProduct(saved);
+                history.setPrice(price);
+                history.setRecordedAt(now);
+                priceHistoryRepository.save(history);
+                if (!events.isEmpty()) {
+                    priceEventRepository.saveAll(events);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Nothing was stored; leave the entity as the caller passed it
+            product.setCurrentPrice(previousPrice);
+            product.setLastChecked(previousChecked);
+            product.setTargetPriceNotified(previousNotified);
+            throw e;
+        }
+        states.put(product.getId(), new AlertState(price, targetNotified));
+        alertRuleEngine.commit(evaluation);
+        productSearchService.productChanged(product);
+        
+        List<PriceEvent> alerts = new ArrayList<>(events.size());
+        for (PriceEvent event : events) {
+            if (ALERTS.contains(event.getType())) {
+                alerts.add(event);
+            }
+        }
+        return alerts;
+    }
+    
+    /**
+     * Record a price re-extracted from a page fetched at {@code fetchedAt}: a history point at
+     * that time and, unless a newer price was observed since, the product's current price. The
+     * product is reloaded under its lock. A check after {@code fetchedAt} only counts as newer
+     * when {@code isLatestPage} no longer holds, since the check that fetched the page itself
+     * ran just after the fetch. The last check time and alert state are left alone and no alerts
+     * are logged. Returns false if the product no longer exists.
+     */
+    public boolean applyCorrection(Long productId, double price, LocalDateTime fetchedAt, BooleanSupplier isLatestPage) {
+        synchronized (lockFor(productId)) {
+            Product product = productRepository.findById(productId).orElse(null);
+            if (product == null) {
+                return false;
+            }
+            boolean superseded = product.getLastChecked() != null && product.getLastChecked().isAfter(fetchedAt)
+                    && !isLatestPage.getAsBoolean();
+            Product saved = transactionTemplate.execute(status -> {
+                PriceHistory history = new PriceHistory();
+                history.setProduct(product);
+                history.setPrice(price);
+                history.setRecordedAt(fetchedAt);
+                priceHistoryRepository.save(history);
+                if (superseded) {
+                    return product;
+                }
+                product.setCurrentPrice(price);
+                return productRepository.save(product);
+            });
+            if (!superseded) {
+                states.put(productId, new AlertState(price, Boolean.TRUE.equals(saved.getTargetPriceNotified())));
+                productSearchService.productChanged(saved);
+            }
+            return true;
+        }
+    }
+    
+    /**
+     * Log a pending {@code TARGET_REACHED} alert for each subscriber. Runs in the caller's
+     * transaction, so the alerts are stored together with the subscribers' alert state.
+     */
+    List<PriceEvent> recordSubscriberAlerts(Product product, double price, List<SubscriberIndex.Subscriber> subscribers) {
+        LocalDateTime now = LocalDateTime.now();
+        List<PriceEvent> alerts = new ArrayList<>(subscribers.size());
+        for (SubscriberIndex.Subscriber subscriber : subscribers) {
+            PriceEvent alert = new PriceEvent(product.getId(), PriceEvent.Type.TARGET_REACHED, price, null,
+                    subscriber.getTargetPrice(), null, now);
+            alert.setSubscriptionId(subscriber.getId());
+            alerts.add(alert);
+        }
+        return priceEventRepository.saveAll(alerts);
+    }
+    
+    /**
+     * Acknowledge a batch of alerts sent by the caller, given the outcome of each; failed ones stay pending
+     */
+    void acknowledge(List<PriceEvent> alerts, List<EmailNotificationService.Delivery> deliveries) {
+        List<PriceEvent> acks = new ArrayList<>(alerts.size());
+        for (int i = 0; i < alerts.size(); i++) {
+            PriceEvent ack = ack(alerts.get(i), deliveries.get(i));
+            if (ack != null) {
+                acks.add(ack);
+            }
+        }
+        if (!acks.isEmpty()) {
+            priceEventRepository.saveAll(acks);
+        }
+    }
+    
+    /**
+     * Send each alert and acknowledge it in the log: {@code ALERT_DELIVERED} once the email was
+     * handed to the mail server, {@code ALERT_SKIPPED} when email is disabled or has no recipient.
+     * An alert whose email failed stays pending and is retried (see {@link #retryPending()}).
+     * Desktop notifications are best effort and do not count towards delivery.
+     */
+    void deliver(Product product, List<PriceEvent> alerts) {
+        for (PriceEvent alert : alerts) {
+            EmailNotificationService.Delivery delivery;
+            try {
+                delivery = send(product, alert);
+            } catch (Exception e) {
+                log.error("Failed to deliver {} alert {} for product {}: {}",
+                        alert.getType(), alert.getId(), product.getName(), e.getMessage());
+                continue;
+            }
+            PriceEvent ack = ack(alert, delivery);
+            if (ack == null) {
+                log.warn("{} alert {} for product {} was not delivered; it stays pending", alert.getType(),
+                        alert.getId(), product.getName());
+                continue;
+            }
+            priceEventRepository.save(ack);
+        }
+    }
+    
+    // The acknowledgement for a delivery outcome, or null if the alert stays pending
+    private static PriceEvent ack(PriceEvent alert, EmailNotificationService.Delivery delivery) {
+        if (delivery == EmailNotificationService.Delivery.FAILED) {
+            return null;
+        }
+        PriceEvent.Type type = delivery == EmailNotificationService.Delivery.SENT
+                ? PriceEvent.Type.ALERT_DELIVERED : PriceEvent.Type.ALERT_SKIPPED;
+        return new PriceEvent(alert.getProductId(), type, alert.getPrice(), null, null, alert.getId(), LocalDateTime.now());
+    }
+    
+    private EmailNotificationService.Delivery send(Product product, PriceEvent alert) {
+        if (alert.getSubscriptionId() != null) {
+            return sendToSubscriber(product, alert);
+        }
+        if (alert.getType() == PriceEvent.Type.TARGET_REACHED) {
+            log.info("Price is below target for {}: ₹{} (Target: ₹{})",
+                    product.getName(), alert.getPrice(), alert.getTargetPrice());
+            desktopNotificationService.showTargetPriceReachedNotification(product);
+            return emailNotificationService.sendTargetPriceReachedNotification(product);
+        }
+        if (alert.getType() == PriceEvent.Type.RULE_TRIGGERED) {
+            Optional<AlertRule> rule = alertRuleEngine.compiledRule(product.getId(), alert.getRuleId());
+            if (rule.isEmpty()) {
+                // Deleted or disabled since it fired
+                log.debug("Skipping alert {} for removed rule {}", alert.getId(), alert.getRuleId());
+                return EmailNotificationService.Delivery.SKIPPED;
+            }
+            String condition = AlertRuleEngine.describe(rule.get());
+            log.info("Alert rule matched for {}: {} at ₹{}", product.getName(), condition, alert.getPrice());
+            desktopNotificationService.showRuleTriggeredNotification(product, condition, alert.getPrice());
+            return emailNotificationService.sendRuleTriggeredNotification(product, condition, alert.getPrice(),
+                    rule.get().getNotificationEmail());
+        }
+        log.info("Price dropped for {}: ₹{} → ₹{}", product.getName(), alert.getPreviousPrice(), alert.getPrice());
+        desktopNotificationService.showPriceDropNotification(product, alert.getPreviousPrice(), alert.getPrice());
+        return emailNotificationService.sendPriceDropNotification(product, alert.getPreviousPrice(), alert.getPrice());
+    }
+    
+    // Subscriber alerts reach this path only on redelivery; the first attempt is batched by SubscriptionService
+    private EmailNotificationService.Delivery sendToSubscriber(Product product, PriceEvent alert) {
+        Optional<Subscription> subscription = subscriptionRepository.findById(alert.getSubscriptionId());
+        if (subscription.isEmpty() || !Boolean.TRUE.equals(subscription.get().getActive())
+                || !Boolean.TRUE.equals(subscription.get().getNotifyEmail())) {
+            log.debug("Skipping alert {} for removed subscription {}", alert.getId(), alert.getSubscriptionId());
+            return EmailNotificationService.Delivery.SKIPPED;
+        }
+        SubscriberIndex.Subscriber subscriber = new SubscriberIndex.Subscriber(subscription.get().getId(),
+                alert.getTargetPrice(), subscription.get().getEmail(), true, false);
+        return emailNotificationService.sendSubscriptionNotifications(product, alert.getPrice(), List.of(subscriber)).get(0);
+    }
+    
+    /**
+     * Redeliver alerts a previous run recorded but never acknowledged
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        redeliverPending(LocalDateTime.now());
+    }
+    
+    /**
+     * Retry alerts whose email failed. Alerts younger than a few minutes may still be in their
+     * first delivery and are left alone.
+     */
+    @Scheduled(fixedDelayString = "${app.events.retry-interval-ms:600000}",
+               initialDelayString = "${app.events.retry-interval-ms:600000}")
+    public void retryPending() {
+        redeliverPending(LocalDateTime.now().minusMinutes(RETRY_MIN_AGE_MINUTES));
+    }
+    
+    void redeliverPending(LocalDateTime recordedBefore) {
+        List<PriceEvent> pending = priceEventRepository.findUndelivered(ALERTS, ACKS,
+                LocalDateTime.now().minusHours(redeliverMaxAgeHours), recordedBefore);
+        if (pending.isEmpty()) {
+            return;
+        }
+        log.info("Redelivering {} pending alerts", pending.size());
+        for (PriceEvent alert : pending) {
+            productRepository.findById(alert.getProductId()).ifPresentOrElse(
+                    product -> deliver(product, List.of(alert)),
+                    () -> log.debug("Skipping alert {} for deleted product {}", alert.getId(), alert.getProductId()));
+        }
+    }
+    
+    /**
+     * Most recent log entries for a product, newest first
+     */
+    public List<PriceEvent> recent(Long productId, int limit) {
+        return priceEventRepository.findByProductIdOrderByIdDesc(productId, PageRequest.of(0, limit));
+    }
+    
+    /**
+     * Drop a deleted product's entries and derived state
+     */
+    public void deleteProduct(Long productId) {
+        priceEventRepository.deleteByProductId(productId);
+        states.remove(productId);
+    }
+    
+    /**
+     * Delete entries recorded before the cutoff; returns the number deleted
+     */
+    public int purgeOlderThan(LocalDateTime cutoff, int batchSize, int maxBatches) {
+        int total = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            List<Long> ids = priceEventRepository.findIdsRecordedBefore(cutoff, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            transactionTemplate.executeWithoutResult(status -> priceEventRepository.deleteAllByIdInBatch(ids));
+            total += ids.size();
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+    
+    private Object lockFor(Long productId) {
+        return productLocks[Long.hashCode(productId) & (productLocks.length - 1)];
+    }
+    
+    // The product row holds the last price and target-alert state, written with every observation
+    private AlertState stateOf(Product product) {
+        AlertState state = states.get(product.getId());
+        if (state != null) {
+            return state;
+        }
+        return new AlertState(product.getCurrentPrice(),
+                product.getTargetPriceNotified() != null && product.getTargetPriceNotified());
+    }
+    
+    private static final class AlertState {
+        private final Double lastPrice;
+        private final boolean targetNotified;
+        
+        private AlertState(Double lastPrice, boolean targetNotified) {
+            this.lastPrice = lastPrice;
+            this.targetNotified = targetNotified;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.pricetracker.service;
+
+import com.pricetracker.model.Product;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.jsoup.select.Elements;
+import org.springframework.stereotype.Component;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Extracts a product price from a fetched page. Structured data (JSON-LD, microdata and
+ * OpenGraph price meta tags) is tried first; the CSS selector cascade and the body-text fallback
+ * only run when the page carries no usable structured offer.
+ */
+@Component
+public class PriceExtractor {
+    
+    private static final Logger log = LoggerFactory.getLogger(PriceExtractor.class);
+    
+    public static final String SOURCE_CUSTOM = "custom";
+    public static final String SOURCE_JSON_LD = "json-ld";
+    public static final String SOURCE_MICRODATA = "microdata";
+    public static final String SOURCE_META = "meta";
+    public static final String SOURCE_BODY_TEXT = "body-text";
+    public static final String SOURCE_NONE = "none";
+    
+    // Enhanced pattern to match Indian number format (with commas, lakhs, crores)
+    private static final Pattern PRICE_PATTERN = Pattern.compile("([\\d,]+(?:\\.\\d{2})?)");
+    private static final Pattern INDIAN_PRICE_PATTERN = Pattern.compile("(?:₹|Rs\\.?|INR)?\\s*([\\d,]+(?:\\.\\d{2})?)");
+    // An amount with its currency, for text where the first number is rarely the price (page body)
+    private static final Pattern CURRENCY_PRICE_PATTERN = Pattern.compile("(?:₹|Rs\\.?|INR)\\s*([\\d,]+(?:\\.\\d{2})?)");
+    
+    // Enhanced selectors for Indian e-commerce sites (Amazon, Flipkart, etc.)
+    private static final String[] COMMON_SELECTORS = {
+        // Amazon India
+        "#priceblock_dealprice", "#priceblock_ourprice", "#priceblock_saleprice",
+        ".a-price-whole", ".a-price .a-offscreen", "[data-asin-price]",
+        "span.a-price-whole", "span#priceblock_dealprice",
+        
+        // Flipkart
+        "._30jeq3", "._16Jk6d", ".dyC4hf", "[class*='_30jeq3']",
+        "div._30jeq3", "span._30jeq3",
+        
+        // Generic e-commerce
+        "[data-price]", "[itemprop=price]", ".price", "#price", 
+        ".product-price", ".current-price", "[class*='price']",
+        "span[class*='Price']", "div[class*='price']",
+        "[class*='selling-price']", "[class*='offer-price']",
+        "[id*='price']", "[id*='Price']",
+        
+        // More specific selectors
+        ".price-current", ".price-now", ".final-price",
+        "span.price", "div.price", "p.price",
+        "[data-testid*='price']", "[data-testid*='Price']"
+    };
+    
+    // schema.org microdata offers
+    private static final String MICRODATA_SELECTOR =
+            "[itemtype*=schema.org/Offer] [itemprop=price], [itemtype*=schema.org/AggregateOffer] [itemprop=lowPrice], "
+            + "[itemprop=offers] [itemprop=price]";
+    
+    /**
+     * A price (or null) and the stage or selector that produced it
+     */
+    public static final class Extraction {
+        private static final Extraction NONE = new Extraction(null, SOURCE_NONE);
+        
+        private final Double price;
+        private final String source;
+        
+        Extraction(Double price, String source) {
+            this.price = price;
+            this.source = source;
+        }
+        
+        public Double getPrice() {
+            return price;
+        }
+        
+        public String getSource() {
+            return source;
+        }
+    }
+    
+    /**
+     * Extract price from HTML document, trying structured data before the selector cascade
+     */
+    public Double extractPrice(Document doc, Product product) {
+        return extract(doc, product).getPrice();
+    }
+    
+    /**
+     * Same as {@link #extractPrice(Document, Product)}, also reporting which stage matched
+     */
+    public Extraction extract(Document doc, Product product) {
+        log.debug("Extracting price for product: {}", product.getName());
+        
+        // Try custom selector first if provided
+        if (product.getPriceSelector() != null && !product.getPriceSelector().isEmpty()) {
+            try {
+                log.debug("Trying custom selector: {}", product.getPriceSelector());
+                Element priceElement = doc.selectFirst(product.getPriceSelector());
+                if (priceElement != null) {
+                    String priceText = priceElement.text();
+                    log.debug("Found price text with custom selector: {}", priceText);
+                    Double price = parsePrice(priceText);
+                    if (price != null) {
+                        log.debug("Successfully extracted price using custom selector: ₹{}", price);
+                        return new Extraction(price, SOURCE_CUSTOM);
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("Error using custom selector: {}", e.getMessage());
+            }
+        }
+        
+        // Structured data fast path: skips the selector cascade on most large retailers
+        Extraction structured = extractStructured(doc);
+        if (structured.getPrice() != null) {
+            log.debug("Successfully extracted price from structured data ({}): ₹{}", structured.getSource(), structured.getPrice());
+            return structured;
+        }
+        
+        for (String selector : COMMON_SELECTORS) {
+            try {
+                Element priceElement = doc.selectFirst(selector);
+                if (priceElement != null) {
+                    // Try content attribute first (for structured data)
+                    String priceText = priceElement.attr("content");
+                    if (priceText.isEmpty()) {
+                        priceText = priceElement.text();
+                    }
+                    // Also try data attributes
+                    if (priceText.isEmpty()) {
+                        priceText = priceElement.attr("data-price");
+                    }
+                    
+                    if (!priceText.isEmpty()) {
+                        log.debug("Found price text with selector '{}': {}", selector, priceText);
+                        Double price = parsePrice(priceText);
+                        if (price != null && price > 0) {
+                            log.debug("Successfully extracted price using selector '{}': ₹{}", selector, price);
+                            return new Extraction(price, selector);
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                log.debug("Error with selector '{}': {}", selector, e.getMessage());
+                // Continue to next selector
+            }
+        }
+        
+        // Fallback: search entire document for price patterns, preferring an amount with a currency
+        log.debug("Trying fallback: searching entire document for price patterns");
+        String bodyText = doc.body().text();
+        Double price = parseCurrencyAmount(bodyText);
+        if (price == null) {
+            price = parsePrice(bodyText);
+        }
+        if (price != null && price > 0) {
+            log.debug("Found price using fallback method: ₹{}", price);
+            return new Extraction(price, SOURCE_BODY_TEXT);
+        }
+        
+        if (log.isDebugEnabled()) {
+            log.debug("Could not extract price from document. Document preview: {}", abbreviate(bodyText, 200));
+        }
+        return Extraction.NONE;
+    }
+    
+    /**
+     * Read the offer price from JSON-LD blocks, schema.org microdata or the OpenGraph price meta tag
+     */
+    public Extraction extractStructured(Document doc) {
+        try {
+            for (Element script : doc.select("script[type=application/ld+json]")) {
+                Double price = JsonLdPriceReader.readOfferPrice(script.data());
+                if (price != null) {
+                    log.debug("Found price in JSON-LD offer: ₹{}", price);
+                    return new Extraction(price, SOURCE_JSON_LD);
+                }
+            }
+            
+            Elements microdata = doc.select(MICRODATA_SELECTOR);
+            for (Element element : microdata) {
+                String priceText = element.hasAttr("content") ? element.attr("content") : element.text();
+                Double price = parsePrice(priceText);
+                if (price != null && price > 0) {
+                    log.debug("Found price in microdata offer: ₹{}", price);
+                    return new Extraction(price, SOURCE_MICRODATA);
+                }
+            }
+            
+            Element metaPrice = doc.selectFirst("meta[property='product:price:amount']");
+            if (metaPrice != null) {
+                Double price = parsePrice(metaPrice.attr("content"));
+                if (price != null && price > 0) {
+                    log.debug("Found price in meta tag: ₹{}", price);
+                    return new Extraction(price, SOURCE_META);
+                }
+            }
+        } catch (Exception e) {
+            log.debug("Error reading structured data: {}", e.getMessage());
+        }
+        return Extraction.NONE;
+    }
+    
+    /**
+     * Parse price from text string - enhanced for Indian currency format
+     */
+    public Double parsePrice(String text) {
+        if (text == null || text.isEmpty()) {
+            return null;
+        }
+        
+        if (log.isDebugEnabled()) {
+            log.debug("Parsing price from text: {}", abbreviate(text, 100));
+        }
+        
+        // First try Indian price pattern (₹, Rs., INR)
+        Matcher indianMatcher = INDIAN_PRICE_PATTERN.matcher(text);
+        if (indianMatcher.find()) {
+            try {
+                String priceStr = indianMatcher.group(1).replace(",", "").trim();
+                Double price = Double.parseDouble(priceStr);
+                if (price > 0) {
+                    log.debug("Parsed price using Indian pattern: ₹{}", price);
+                    return price;
+                }
+            } catch (NumberFormatException e) {
+                log.debug("Failed to parse Indian price pattern: {}", e.getMessage());
+            }
+        }
+        
+        // Remove currency symbols and common text, but keep numbers, dots, and commas
+        String cleaned = text.replaceAll("[^\\d.,]", " ");
+        
+        // Find first number that looks like a price (at least 2 digits)
+        Matcher matcher = PRICE_PATTERN.matcher(cleaned);
+        Double bestPrice = null;
+        double maxPrice = 0;
+        
+        // Find the largest reasonable price (likely the actual product price)
+        while (matcher.find()) {
+            try {
+                String priceStr = matcher.group(1).replace(",", "").trim();
+                Double price = Double.parseDouble(priceStr);
+                
+                // Filter out unreasonable prices (too small or too large)
+                // Typical product prices: 100 to 1,00,00,000 (1 crore)
+                if (price >= 10 && price <= 100000000 && price > maxPrice) {
+                    maxPrice = price;
+                    bestPrice = price;
+                }
+            } catch (NumberFormatException e) {
+                // Continue searching
+            }
+        }
+        
+        if (bestPrice != null) {
+            log.debug("Parsed price: ₹{}", bestPrice);
+            return bestPrice;
+        }
+        
+        if (log.isDebugEnabled()) {
+            log.debug("Could not parse price from text: {}", abbreviate(text, 100));
+        }
+        return null;
+    }
+    
+    private static Double parseCurrencyAmount(String text) {
+        Matcher matcher = CURRENCY_PRICE_PATTERN.matcher(text);
+        while (matcher.find()) {
+            try {
+                double price = Double.parseDouble(matcher.group(1).replace(",", ""));
+                if (price > 0) {
+                    return price;
+                }
+            } catch (NumberFormatException e) {
+                // A lone comma; keep looking
+            }
+        }
+        return null;
+    }
+    
+    // Body text can be hundreds of kilobytes; debug output only needs the start of it
+    private static String abbreviate(String text, int max) {
+        return text.length() > max ? text.substring(0, max) + "... (" + text.length() + " chars)" : text;
+    }
+}
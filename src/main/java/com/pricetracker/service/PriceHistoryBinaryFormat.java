@@ -0,0 +1,274 @@
+package com.pricetracker.service;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Compact columnar encoding for bulk price history export/import.
+ *
+ * <pre>
+ * file   := MAGIC block* varint(0)
+ * block  := varint(productId) varint(count) zigzag(timeDelta){count} zigzag(paiseDelta){count}
+ * </pre>
+ *
+ * A block holds at most {@link #MAX_BLOCK_POINTS} points; longer histories are written as several
+ * consecutive blocks for the same product.
+ *
+ * Timestamps are epoch milliseconds of the stored {@code LocalDateTime} read as UTC, and prices
+ * are whole paise. Both columns are delta-encoded against the previous point in the block
+ * (the first point against zero), then zigzag/varint-encoded, so a typical hourly series costs
+ * only a few bytes per point.
+ */
+public final class PriceHistoryBinaryFormat {
+    
+    static final byte[] MAGIC = {'P', 'T', 'H', '1'};
+    
+    public static final int MAX_BLOCK_POINTS = 1 << 20;
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_VARINT_BYTES = 10;
+    
+    private PriceHistoryBinaryFormat() {
+    }
+    
+    static long toEpochMillis(LocalDateTime time) {
+        return time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+    
+    static LocalDateTime fromEpochMillis(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000L),
+                (int) Math.floorMod(millis, 1000L) * 1_000_000, ZoneOffset.UTC);
+    }
+    
+    static long toPaise(double price) {
+        return Math.round(price * 100.0);
+    }
+    
+    static double fromPaise(long paise) {
+        return paise / 100.0;
+    }
+    
+    /**
+     * One product's history in column form; arrays may be longer than {@code count}
+     */
+    public static final class Block {
+        private final long productId;
+        private final long[] timestamps;
+        private final long[] paise;
+        private final int count;
+        
+        public Block(long productId, long[] timestamps, long[] paise, int count) {
+            this.productId = productId;
+            this.timestamps = timestamps;
+            this.paise = paise;
+            this.count = count;
+        }
+        
+        public long getProductId() {
+            return productId;
+        }
+        
+        public int getCount() {
+            return count;
+        }
+        
+        public long getTimestamp(int index) {
+            return timestamps[index];
+        }
+        
+        public LocalDateTime getRecordedAt(int index) {
+            return fromEpochMillis(timestamps[index]);
+        }
+        
+        public double getPrice(int index) {
+            return fromPaise(paise[index]);
+        }
+    }
+    
+    /**
+     * Streams blocks to a channel through a fixed-size direct buffer
+     */
+    public static final class Writer implements Closeable {
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private long bytesWritten;
+        private boolean finished;
+        
+        public Writer(WritableByteChannel channel) {
+            this.channel = channel;
+            buffer.put(MAGIC);
+        }
+        
+        public void writeBlock(long productId, long[] timestamps, long[] paise, int count) throws IOException {
+            if (productId <= 0) {
+                throw new IllegalArgumentException("Product id must be positive: " + productId);
+            }
+            for (int from = 0; from < count; from += MAX_BLOCK_POINTS) {
+                writeChunk(productId, timestamps, paise, from, Math.min(count, from + MAX_BLOCK_POINTS));
+            }
+        }
+        
+        public long getBytesWritten() {
+            return bytesWritten + buffer.position();
+        }
+        
+        /**
+         * Write the end-of-stream marker and flush, leaving the channel open
+         */
+        public void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            putVarLong(0);
+            drain();
+            finished = true;
+        }
+        
+        @Override
+        public void close() throws IOException {
+            finish();
+            channel.close();
+        }
+        
+        private void writeChunk(long productId, long[] timestamps, long[] paise, int from, int to) throws IOException {
+            putVarLong(productId);
+            putVarLong(to - from);
+            long previous = 0;
+            for (int i = from; i < to; i++) {
+                putVarLong(zigzag(timestamps[i] - previous));
+                previous = timestamps[i];
+            }
+            previous = 0;
+            for (int i = from; i < to; i++) {
+                putVarLong(zigzag(paise[i] - previous));
+                previous = paise[i];
+            }
+        }
+        
+        private void putVarLong(long value) throws IOException {
+            if (buffer.remaining() < MAX_VARINT_BYTES) {
+                drain();
+            }
+            while ((value & ~0x7FL) != 0) {
+                buffer.put((byte) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            buffer.put((byte) value);
+        }
+        
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                bytesWritten += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+    
+    /**
+     * Reads blocks back from a channel; the column arrays are reused between blocks and only grow
+     * as points actually arrive, so a corrupt count cannot force a huge allocation
+     */
+    public static final class Reader implements Closeable {
+        private final ReadableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private long[] timestamps = new long[256];
+        private long[] paise = new long[256];
+        private boolean done;
+        
+        public Reader(ReadableByteChannel channel) throws IOException {
+            this.channel = channel;
+            buffer.flip();
+            byte[] magic = new byte[MAGIC.length];
+            for (int i = 0; i < magic.length; i++) {
+                magic[i] = nextByte();
+            }
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IOException("Not a price history export (bad magic header)");
+            }
+        }
+        
+        /**
+         * Read the next block, or return null at the end-of-stream marker
+         */
+        public Block nextBlock() throws IOException {
+            if (done) {
+                return null;
+            }
+            long productId = getVarLong();
+            if (productId == 0) {
+                done = true;
+                return null;
+            }
+            long rawCount = getVarLong();
+            if (rawCount < 0 || rawCount > MAX_BLOCK_POINTS) {
+                throw new IOException("Corrupt block for product " + productId + ": count " + rawCount);
+            }
+            int count = (int) rawCount;
+            long previous = 0;
+            for (int i = 0; i < count; i++) {
+                if (i == timestamps.length) {
+                    timestamps = Arrays.copyOf(timestamps, Math.min(count, i * 2));
+                }
+                previous += unzigzag(getVarLong());
+                timestamps[i] = previous;
+            }
+            previous = 0;
+            for (int i = 0; i < count; i++) {
+                if (i == paise.length) {
+                    paise = Arrays.copyOf(paise, Math.min(count, i * 2));
+                }
+                previous += unzigzag(getVarLong());
+                paise[i] = previous;
+            }
+            return new Block(productId, timestamps, paise, count);
+        }
+        
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+        
+        private long getVarLong() throws IOException {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = nextByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IOException("Malformed varint");
+        }
+        
+        private byte nextByte() throws IOException {
+            if (!buffer.hasRemaining()) {
+                buffer.clear();
+                int read;
+                do {
+                    read = channel.read(buffer);
+                } while (read == 0);
+                buffer.flip();
+                if (read < 0) {
+                    throw new EOFException("Unexpected end of price history stream");
+                }
+            }
+            return buffer.get();
+        }
+    }
+    
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+    
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,312 @@
+package com.pricetracker.service;
+
+import com.pricetracker.model.PriceHistoryDailyAggregate;
+import com.pricetracker.repository.PriceHistoryArchiveRepository;
+import com.pricetracker.repository.PriceHistoryDailyAggregateRepository;
+import com.pricetracker.repository.PriceHistoryRepository;
+import com.pricetracker.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk backup and restore of price history in {@link PriceHistoryBinaryFormat}.
+ * Export walks products one at a time, so memory use is bounded by the largest single history.
+ */
+@Service
+public class PriceHistoryExportService {
+    
+    private static final Logger log = LoggerFactory.getLogger(PriceHistoryExportService.class);
+    
+    private static final String INSERT_SQL = "INSERT INTO price_history (product_id, price, recorded_at) VALUES (?, ?, ?)";
+    private static final String ARCHIVE_INSERT_SQL =
+            "INSERT INTO price_history_archive (product_id, price, recorded_at, archived_at) VALUES (?, ?, ?, ?)";
+    
+    private final ProductRepository productRepository;
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final PriceHistoryArchiveRepository archiveRepository;
+    private final PriceHistoryDailyAggregateRepository aggregateRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final CatalogVersions catalogVersions;
+    private final TransactionTemplate transactionTemplate;
+    
+    @Value("${app.history.import.batch-size:1000}")
+    private int importBatchSize;
+    
+    @Value("${app.retention.hot-days:30}")
+    private int hotDays;
+    
+    @Value("${app.retention.archive.enabled:true}")
+    private boolean archiveEnabled;
+    
+    public PriceHistoryExportService(ProductRepository productRepository,
+                                     PriceHistoryRepository priceHistoryRepository,
+                                     PriceHistoryArchiveRepository archiveRepository,
+                                     PriceHistoryDailyAggregateRepository aggregateRepository,
+                                     JdbcTemplate jdbcTemplate,
+                                     CatalogVersions catalogVersions,
+                                     PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.priceHistoryRepository = priceHistoryRepository;
+        this.archiveRepository = archiveRepository;
+        this.aggregateRepository = aggregateRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.catalogVersions = catalogVersions;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    /**
+     * Write every product's history (archived points first, then the hot table) to the channel.
+     * The channel is flushed but not closed.
+     */
+    public ExportResult exportAll(WritableByteChannel channel) throws IOException {
+        PriceHistoryBinaryFormat.Writer writer = new PriceHistoryBinaryFormat.Writer(channel);
+        long[] timestamps = new long[256];
+        long[] paise = new long[256];
+        int products = 0;
+        long points = 0;
+        
+        for (Long productId : productRepository.findAllIds()) {
+            List<Object[]> archived = archiveRepository.findPricePointsByProductId(productId);
+            List<Object[]> hot = priceHistoryRepository.findPricePointsByProductId(productId);
+            int count = archived.size() + hot.size();
+            if (count == 0) {
+                continue;
+            }
+            if (timestamps.length < count) {
+                timestamps = new long[count];
+                paise = new long[count];
+            }
+            int i = 0;
+            for (List<Object[]> rows : List.of(archived, hot)) {
+                for (Object[] row : rows) {
+                    timestamps[i] = PriceHistoryBinaryFormat.toEpochMillis((LocalDateTime) row[0]);
+                    paise[i] = PriceHistoryBinaryFormat.toPaise((Double) row[1]);
+                    i++;
+                }
+            }
+            writer.writeBlock(productId, timestamps, paise, count);
+            products++;
+            points += count;
+        }
+        
+        writer.finish();
+        log.info("Exported {} price points for {} products ({} bytes)", points, products, writer.getBytesWritten());
+        return new ExportResult(products, points, writer.getBytesWritten());
+    }
+    
+    /**
+     * Bulk-load an export, placing each point in the tier retention would have put it in: points
+     * inside the hot window go to {@code price_history}, older ones are folded into the daily
+     * aggregates (and the archive, if enabled). Blocks for products that no longer exist are skipped.
+     *
+     * Without {@code replace}, points whose timestamp the product already has are skipped, as are
+     * old points for days that were already compacted, so importing the same file twice is a no-op.
+     * With {@code replace}, each imported product's hot, archived and aggregated history is deleted first.
+     */
+    public ImportResult importAll(ReadableByteChannel channel, boolean replace) throws IOException {
+        Set<Long> knownProducts = new HashSet<>(productRepository.findAllIds());
+        PriceHistoryBinaryFormat.Reader reader = new PriceHistoryBinaryFormat.Reader(channel);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime hotCutoff = now.minusDays(hotDays);
+        int products = 0;
+        int skippedProducts = 0;
+        long points = 0;
+        long duplicatePoints = 0;
+        
+        ProductImport current = null;
+        long lastSkipped = 0;
+        PriceHistoryBinaryFormat.Block block;
+        while ((block = reader.nextBlock()) != null) {
+            long productId = block.getProductId();
+            if (!knownProducts.contains(productId)) {
+                if (productId != lastSkipped) {
+                    log.debug("Skipping history for unknown product id {}", productId);
+                    skippedProducts++;
+                    lastSkipped = productId;
+                }
+                continue;
+            }
+            // Long histories arrive as consecutive blocks for the same product
+            if (current == null || current.productId != productId) {
+                current = new ProductImport(productId);
+                products++;
+            }
+            ProductImport target = current;
+            PriceHistoryBinaryFormat.Block data = block;
+            Integer imported = transactionTemplate.execute(status -> importBlock(target, data, replace, hotCutoff, now));
+            int count = imported == null ? 0 : imported;
+            points += count;
+            duplicatePoints += block.getCount() - count;
+        }
+        if (products > 0) {
+            catalogVersions.historyChanged();
+        }
+        
+        log.info("Imported {} price points for {} products ({} duplicate points, {} unknown products skipped)",
+                points, products, duplicatePoints, skippedProducts);
+        return new ImportResult(products, skippedProducts, points, duplicatePoints);
+    }
+    
+    private int importBlock(ProductImport target, PriceHistoryBinaryFormat.Block block, boolean replace,
+                            LocalDateTime hotCutoff, LocalDateTime archivedAt) {
+        Long productId = target.productId;
+        if (!target.loaded) {
+            if (replace) {
+                jdbcTemplate.update("DELETE FROM price_history WHERE product_id = ?", productId);
+                archiveRepository.deleteByProductId(productId);
+                aggregateRepository.deleteByProductId(productId);
+            } else {
+                for (List<Object[]> rows : List.of(archiveRepository.findPricePointsByProductId(productId),
+                        priceHistoryRepository.findPricePointsByProductId(productId))) {
+                    for (Object[] row : rows) {
+                        target.timestamps.add(PriceHistoryBinaryFormat.toEpochMillis((LocalDateTime) row[0]));
+                    }
+                }
+                for (PriceHistoryDailyAggregate aggregate : aggregateRepository.findByProductIdOrderByBucketDateDesc(productId)) {
+                    target.buckets.put(aggregate.getBucketDate(), aggregate);
+                }
+                target.compactedDays.addAll(target.buckets.keySet());
+            }
+            target.loaded = true;
+        }
+        
+        List<Object[]> hot = new ArrayList<>(Math.min(importBatchSize, block.getCount()));
+        List<Object[]> archived = new ArrayList<>();
+        Set<LocalDate> touchedDays = new HashSet<>();
+        int imported = 0;
+        for (int i = 0; i < block.getCount(); i++) {
+            if (!target.timestamps.add(block.getTimestamp(i))) {
+                continue;
+            }
+            LocalDateTime recordedAt = block.getRecordedAt(i);
+            double price = block.getPrice(i);
+            if (recordedAt.isBefore(hotCutoff)) {
+                LocalDate day = recordedAt.toLocalDate();
+                if (target.compactedDays.contains(day)) {
+                    continue;
+                }
+                target.buckets.computeIfAbsent(day, key -> new PriceHistoryDailyAggregate(productId, key))
+                        .merge(price, recordedAt);
+                touchedDays.add(day);
+                if (archiveEnabled) {
+                    addToBatch(ARCHIVE_INSERT_SQL, archived,
+                            new Object[]{productId, price, Timestamp.valueOf(recordedAt), Timestamp.valueOf(archivedAt)});
+                }
+            } else {
+                addToBatch(INSERT_SQL, hot, new Object[]{productId, price, Timestamp.valueOf(recordedAt)});
+            }
+            imported++;
+        }
+        if (!hot.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, hot);
+        }
+        if (!archived.isEmpty()) {
+            jdbcTemplate.batchUpdate(ARCHIVE_INSERT_SQL, archived);
+        }
+        if (!touchedDays.isEmpty()) {
+            List<PriceHistoryDailyAggregate> changed = new ArrayList<>(touchedDays.size());
+            for (LocalDate day : touchedDays) {
+                changed.add(target.buckets.get(day));
+            }
+            for (PriceHistoryDailyAggregate saved : aggregateRepository.saveAll(changed)) {
+                target.buckets.put(saved.getBucketDate(), saved);
+            }
+        }
+        return imported;
+    }
+    
+    private void addToBatch(String sql, List<Object[]> batch, Object[] row) {
+        batch.add(row);
+        if (batch.size() == importBatchSize) {
+            jdbcTemplate.batchUpdate(sql, batch);
+            batch.clear();
+        }
+    }
+    
+    /**
+     * What is already stored for the product being imported, carried across its blocks
+     */
+    private static final class ProductImport {
+        private final long productId;
+        private final Set<Long> timestamps = new HashSet<>();
+        private final Map<LocalDate, PriceHistoryDailyAggregate> buckets = new HashMap<>();
+        private final Set<LocalDate> compactedDays = new HashSet<>();
+        private boolean loaded;
+        
+        ProductImport(long productId) {
+            this.productId = productId;
+        }
+    }
+    
+    public static class ExportResult {
+        private final int products;
+        private final long points;
+        private final long bytes;
+        
+        public ExportResult(int products, long points, long bytes) {
+            this.products = products;
+            this.points = points;
+            this.bytes = bytes;
+        }
+        
+        public int getProducts() {
+            return products;
+        }
+        
+        public long getPoints() {
+            return points;
+        }
+        
+        public long getBytes() {
+            return bytes;
+        }
+    }
+    
+    public static class ImportResult {
+        private final int products;
+        private final int skippedProducts;
+        private final long points;
+        private final long duplicatePoints;
+        
+        public ImportResult(int products, int skippedProducts, long points, long duplicatePoints) {
+            this.products = products;
+            this.skippedProducts = skippedProducts;
+            this.points = points;
+            this.duplicatePoints = duplicatePoints;
+        }
+        
+        public int getProducts() {
+            return products;
+        }
+        
+        public int getSkippedProducts() {
+            return skippedProducts;
+        }
+        
+        public long getPoints() {
+            return points;
+        }
+        
+        public long getDuplicatePoints() {
+            return duplicatePoints;
+        }
+    }
+}
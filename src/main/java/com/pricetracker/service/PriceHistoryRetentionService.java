@@ -0,0 +1,228 @@
+package com.pricetracker.service;
+
+import com.pricetracker.model.PriceHistory;
+import com.pricetracker.model.PriceHistoryArchive;
+import com.pricetracker.model.PriceHistoryDailyAggregate;
+import com.pricetracker.repository.PriceHistoryArchiveRepository;
+import com.pricetracker.repository.PriceHistoryDailyAggregateRepository;
+import com.pricetracker.repository.PriceHistoryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the hot {@code price_history} table small by tiering old data.
+ *
+ * <ul>
+ *   <li>hot: raw points newer than {@code app.retention.hot-days} stay in {@code price_history}</li>
+ *   <li>warm: older points are compacted into per-day buckets in {@code price_history_daily}</li>
+ *   <li>cold: the raw points themselves move to {@code price_history_archive}, which is purged
+ *       after {@code app.retention.archive-days} (0 keeps the archive forever)</li>
+ * </ul>
+ *
+ * The price event log is purged after {@code app.retention.events-days} (0 keeps it forever).
+ *
+ * Work is done in small batches, each in its own short transaction, so inserts from the
+ * scheduled price check are never blocked behind a long-running compaction.
+ */
+@Service
+public class PriceHistoryRetentionService {
+    
+    private static final Logger log = LoggerFactory.getLogger(PriceHistoryRetentionService.class);
+    
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final PriceHistoryDailyAggregateRepository aggregateRepository;
+    private final PriceHistoryArchiveRepository archiveRepository;
+    private final CatalogVersions catalogVersions;
+    private final PriceEventLog priceEventLog;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    
+    @Value("${app.retention.enabled:true}")
+    private boolean retentionEnabled;
+    
+    @Value("${app.retention.hot-days:30}")
+    private int hotDays;
+    
+    @Value("${app.retention.archive.enabled:true}")
+    private boolean archiveEnabled;
+    
+    @Value("${app.retention.archive-days:0}")
+    private int archiveDays;
+    
+    @Value("${app.retention.events-days:90}")
+    private int eventsDays;
+    
+    @Value("${app.retention.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${app.retention.max-batches-per-run:200}")
+    private int maxBatchesPerRun;
+    
+    public PriceHistoryRetentionService(PriceHistoryRepository priceHistoryRepository,
+                                        PriceHistoryDailyAggregateRepository aggregateRepository,
+                                        PriceHistoryArchiveRepository archiveRepository,
+                                        CatalogVersions catalogVersions,
+                                        PriceEventLog priceEventLog,
+                                        PlatformTransactionManager transactionManager) {
+        this.priceHistoryRepository = priceHistoryRepository;
+        this.aggregateRepository = aggregateRepository;
+        this.archiveRepository = archiveRepository;
+        this.catalogVersions = catalogVersions;
+        this.priceEventLog = priceEventLog;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    /**
+     * Run one incremental retention pass (scheduled task)
+     */
+    @Scheduled(initialDelayString = "${app.retention.initial-delay-ms:300000}",
+               fixedDelayString = "${app.retention.interval-ms:3600000}")
+    public void runRetention() {
+        if (!retentionEnabled) {
+            return;
+        }
+        if (!running.compareAndSet(false, true)) {
+            log.debug("Retention pass already in progress, skipping");
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int compacted = compactHistoryOlderThan(now.minusDays(hotDays), now);
+            int purged = archiveDays > 0 ? purgeArchiveOlderThan(now.minusDays(archiveDays)) : 0;
+            int events = eventsDays > 0
+                    ? priceEventLog.purgeOlderThan(now.minusDays(eventsDays), batchSize, maxBatchesPerRun) : 0;
+            if (compacted > 0 || purged > 0 || events > 0) {
+                log.info("Retention pass finished: {} raw points compacted, {} archived points purged, {} events purged",
+                        compacted, purged, events);
+            }
+        } catch (Exception e) {
+            log.error("Retention pass failed: {}", e.getMessage(), e);
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    /**
+     * Move raw price points recorded before the cutoff out of the hot table, folding them into
+     * daily aggregates (and the archive, if enabled) batch by batch
+     */
+    public int compactHistoryOlderThan(LocalDateTime cutoff, LocalDateTime archivedAt) {
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            Integer moved = transactionTemplate.execute(status -> compactBatch(cutoff, archivedAt));
+            if (moved == null || moved == 0) {
+                break;
+            }
+            total += moved;
+            if (moved < batchSize) {
+                break;
+            }
+        }
+        if (total > 0) {
+            catalogVersions.historyChanged();
+        }
+        return total;
+    }
+    
+    private int compactBatch(LocalDateTime cutoff, LocalDateTime archivedAt) {
+        List<PriceHistory> batch = priceHistoryRepository.findByRecordedAtBeforeOrderByIdAsc(
+                cutoff, PageRequest.of(0, batchSize));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        
+        Set<Long> productIds = new HashSet<>();
+        Set<LocalDate> days = new HashSet<>();
+        for (PriceHistory point : batch) {
+            productIds.add(point.getProduct().getId());
+            days.add(point.getRecordedAt().toLocalDate());
+        }
+        
+        // Load every bucket this batch touches in one query and merge in memory
+        Map<BucketKey, PriceHistoryDailyAggregate> buckets = new HashMap<>();
+        for (PriceHistoryDailyAggregate aggregate : aggregateRepository.findByProductIdInAndBucketDateIn(productIds, days)) {
+            buckets.put(new BucketKey(aggregate.getProductId(), aggregate.getBucketDate()), aggregate);
+        }
+        
+        List<PriceHistoryArchive> archived = new ArrayList<>(archiveEnabled ? batch.size() : 0);
+        List<Long> ids = new ArrayList<>(batch.size());
+        for (PriceHistory point : batch) {
+            Long productId = point.getProduct().getId();
+            LocalDate day = point.getRecordedAt().toLocalDate();
+            buckets.computeIfAbsent(new BucketKey(productId, day), key -> new PriceHistoryDailyAggregate(productId, day))
+                    .merge(point.getPrice(), point.getRecordedAt());
+            if (archiveEnabled) {
+                archived.add(new PriceHistoryArchive(productId, point.getPrice(), point.getRecordedAt(), archivedAt));
+            }
+            ids.add(point.getId());
+        }
+        
+        aggregateRepository.saveAll(buckets.values());
+        if (archiveEnabled) {
+            archiveRepository.saveAll(archived);
+        }
+        priceHistoryRepository.deleteAllByIdInBatch(ids);
+        
+        log.debug("Compacted {} raw price points into {} daily buckets", ids.size(), buckets.size());
+        return ids.size();
+    }
+    
+    /**
+     * Delete archived raw points recorded before the cutoff, batch by batch
+     */
+    public int purgeArchiveOlderThan(LocalDateTime cutoff) {
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<Long> ids = archiveRepository.findIdsRecordedBefore(cutoff, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            transactionTemplate.executeWithoutResult(status -> archiveRepository.deleteAllByIdInBatch(ids));
+            total += ids.size();
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+    
+    private static final class BucketKey {
+        private final Long productId;
+        private final LocalDate day;
+        
+        BucketKey(Long productId, LocalDate day) {
+            this.productId = productId;
+            this.day = day;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof BucketKey)) return false;
+            BucketKey other = (BucketKey) o;
+            return productId.equals(other.productId) && day.equals(other.day);
+        }
+        
+        @Override
+        public int hashCode() {
+            return Objects.hash(productId, day);
+        }
+    }
+}
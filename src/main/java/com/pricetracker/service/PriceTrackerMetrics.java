@@ -0,0 +1,195 @@
+package com.pricetracker.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for the fetch → parse → extract → persist → notify pipeline.
+ *
+ * Meters are resolved once per tag combination and cached under a key of the meter name and its
+ * tag values, so the hot path only pays for a map lookup and a {@code System.nanoTime()} pair,
+ * without building tag arrays or strings. Extraction is timed per call to {@code extract}, not
+ * per parsed text fragment. Histogram buckets for Prometheus are enabled through
+ * {@code management.metrics.distribution.percentiles-histogram.pricetracker}.
+ */
+@Component
+public class PriceTrackerMetrics {
+    
+    public static final String FETCH_NETWORK = "pricetracker.fetch.network";
+    public static final String FETCH_PARSE = "pricetracker.fetch.parse";
+    public static final String FETCH_RENDER = "pricetracker.fetch.render";
+    public static final String FETCH_EGRESS_WAIT = "pricetracker.fetch.egress_wait";
+    public static final String EXTRACT = "pricetracker.extract";
+    public static final String PERSIST = "pricetracker.persist";
+    public static final String NOTIFY = "pricetracker.notify";
+    public static final String PASS = "pricetracker.check.pass";
+    
+    private final MeterRegistry registry;
+    private final ConcurrentMap<MeterKey, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<MeterKey, Counter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<MeterKey, ExtractMeters> extractMeters = new ConcurrentHashMap<>();
+    private final Timer persistTimer;
+    private final Timer passTimer;
+    private final Counter passProducts;
+    
+    public PriceTrackerMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.persistTimer = Timer.builder(PERSIST)
+                .description("Time to save the product and price history row")
+                .register(registry);
+        this.passTimer = Timer.builder(PASS).register(registry);
+        this.passProducts = Counter.builder("pricetracker.check.products").register(registry);
+    }
+    
+    /**
+     * Metrics that record nothing, for use outside a Spring context (benchmarks, tools)
+     */
+    public static PriceTrackerMetrics noop() {
+        return new PriceTrackerMetrics(new CompositeMeterRegistry());
+    }
+    
+    public MeterRegistry getRegistry() {
+        return registry;
+    }
+    
+    public void recordFetchNetwork(String host, boolean success, long nanos) {
+        timer(FETCH_NETWORK, "host", host, "outcome", success ? "success" : "error").record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    public void recordFetchParse(String host, long nanos) {
+        timer(FETCH_PARSE, "host", host).record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * Record a headless browser render, including the page load and script execution
+     */
+    public void recordFetchRender(String host, boolean success, long nanos) {
+        timer(FETCH_RENDER, "host", host, "outcome", success ? "success" : "error").record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    public void recordRenderBusy(String host) {
+        counter("pricetracker.fetch.render.busy", "host", host).increment();
+    }
+    
+    /**
+     * Record the wait for an egress route's next request slot
+     */
+    public void recordEgressWait(String route, long nanos) {
+        timer(FETCH_EGRESS_WAIT, "route", route).record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    public void recordEgressRemoved(String route, String host) {
+        counter("pricetracker.egress.removed", "route", route, "host", host).increment();
+    }
+    
+    /**
+     * Record an extraction; {@code source} is the stage or selector that produced the price
+     */
+    public void recordExtract(String host, String source, long nanos) {
+        ExtractMeters meters = extractMeters.computeIfAbsent(new MeterKey(EXTRACT, host, source),
+                key -> new ExtractMeters(host, source));
+        meters.timer.record(nanos, TimeUnit.NANOSECONDS);
+        if (meters.outcome != null) {
+            meters.outcome.increment();
+        }
+    }
+    
+    public void recordPersist(long nanos) {
+        persistTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+    
+    /**
+     * Record a notification delivered on a channel ({@code email}, {@code desktop})
+     */
+    public void recordNotification(String channel, String type, long nanos) {
+        timer(NOTIFY, "channel", channel, "type", type).record(nanos, TimeUnit.NANOSECONDS);
+        counter("pricetracker.notifications.sent", "channel", channel, "type", type).increment();
+    }
+    
+    public void recordNotificationFailure(String channel, String type) {
+        counter("pricetracker.notifications.failed", "channel", channel, "type", type).increment();
+    }
+    
+    public void recordPass(int products, long nanos) {
+        passTimer.record(nanos, TimeUnit.NANOSECONDS);
+        passProducts.increment(products);
+    }
+    
+    private Timer timer(String name, String tag, String value) {
+        return timers.computeIfAbsent(new MeterKey(name, value, null),
+                key -> Timer.builder(name).tag(tag, value).register(registry));
+    }
+    
+    private Timer timer(String name, String firstTag, String first, String secondTag, String second) {
+        return timers.computeIfAbsent(new MeterKey(name, first, second),
+                key -> Timer.builder(name).tag(firstTag, first).tag(secondTag, second).register(registry));
+    }
+    
+    private Counter counter(String name, String tag, String value) {
+        return counters.computeIfAbsent(new MeterKey(name, value, null),
+                key -> Counter.builder(name).tag(tag, value).register(registry));
+    }
+    
+    private Counter counter(String name, String firstTag, String first, String secondTag, String second) {
+        return counters.computeIfAbsent(new MeterKey(name, first, second),
+                key -> Counter.builder(name).tag(firstTag, first).tag(secondTag, second).register(registry));
+    }
+    
+    /**
+     * A meter name with its tag values; the tag keys are fixed per name
+     */
+    private static final class MeterKey {
+        private final String name;
+        private final String first;
+        private final String second;
+        private final int hash;
+        
+        MeterKey(String name, String first, String second) {
+            this.name = name;
+            this.first = first;
+            this.second = second;
+            this.hash = Objects.hash(name, first, second);
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof MeterKey)) return false;
+            MeterKey other = (MeterKey) o;
+            return name.equals(other.name) && Objects.equals(first, other.first) && Objects.equals(second, other.second);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+    
+    /**
+     * The extraction timer of one (host, source) pair, plus the fallback or failure counter its
+     * source counts towards
+     */
+    private final class ExtractMeters {
+        private final Timer timer;
+        private final Counter outcome;
+        
+        ExtractMeters(String host, String source) {
+            this.timer = timer(EXTRACT, "host", host, "source", source);
+            if (PriceExtractor.SOURCE_BODY_TEXT.equals(source)) {
+                this.outcome = counter("pricetracker.extract.fallback", "host", host);
+            } else if (PriceExtractor.SOURCE_NONE.equals(source)) {
+                this.outcome = counter("pricetracker.extract.failures", "host", host);
+            } else {
+                this.outcome = null;
+            }
+        }
+    }
+}
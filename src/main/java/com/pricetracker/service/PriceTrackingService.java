@@ -1,315 +1,486 @@
 package com.pricetracker.service;
 
-import com.pricetracker.model.PriceHistory;
+import com.pricetracker.model.CheckPass;
+import com.pricetracker.model.PriceEvent;
 import com.pricetracker.model.Product;
-import com.pricetracker.repository.PriceHistoryRepository;
+import com.pricetracker.repository.CheckPassRepository;
 import com.pricetracker.repository.ProductRepository;
+import org.jsoup.Connection;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Service
 public class PriceTrackingService {
     
     private static final Logger log = LoggerFactory.getLogger(PriceTrackingService.class);
     
+    // Keyset cursor of a pass before its first batch; every product was checked after it
+    private static final LocalDateTime CURSOR_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    
     private final ProductRepository productRepository;
-    private final PriceHistoryRepository priceHistoryRepository;
-    private final EmailNotificationService emailNotificationService;
-    private final DesktopNotificationService desktopNotificationService;
+    private final CheckPassRepository checkPassRepository;
+    private final PriceEventLog priceEventLog;
+    private final PriceExtractor priceExtractor;
+    private final PriceTrackerMetrics metrics;
+    private final FetchEventLog fetchEventLog;
+    private final AlertRuleEngine alertRuleEngine;
+    private final SubscriptionService subscriptionService;
+    private final RenderTier renderTier;
+    private final PageSnapshotStore snapshotStore;
+    private final EgressPool egressPool;
+    private final ThumbnailService thumbnailService;
+    private final ProductSearchService productSearchService;
+    private final AtomicBoolean passRunning = new AtomicBoolean();
+    private volatile boolean stopping;
+    
+    // Pause after each page fetch by a pass worker, to avoid overwhelming retailer servers
+    @Value("${app.tracking.request-delay-ms:2000}")
+    private long requestDelayMs;
+    
+    // Log one in this many product checks of a pass at INFO (0 disables sampling)
+    @Value("${app.tracking.log-sample-every:100}")
+    private int logSampleEvery;
+    
+    // Products read per keyset query in a pass; progress is checkpointed after each batch
+    @Value("${app.tracking.pass-batch-size:100}")
+    private int passBatchSize;
+    
+    // Pages checked at once in a pass (0 = one per egress route)
+    @Value("${app.tracking.pass-concurrency:0}")
+    private int passConcurrency;
     
     public PriceTrackingService(ProductRepository productRepository, 
-                                PriceHistoryRepository priceHistoryRepository,
-                                EmailNotificationService emailNotificationService,
-                                DesktopNotificationService desktopNotificationService) {
+                                CheckPassRepository checkPassRepository,
+                                PriceEventLog priceEventLog,
+                                PriceExtractor priceExtractor,
+                                PriceTrackerMetrics metrics,
+                                FetchEventLog fetchEventLog,
+                                AlertRuleEngine alertRuleEngine,
+                                SubscriptionService subscriptionService,
+                                RenderTier renderTier,
+                                PageSnapshotStore snapshotStore,
+                                EgressPool egressPool,
+                                ThumbnailService thumbnailService,
+                                ProductSearchService productSearchService) {
         this.productRepository = productRepository;
-        this.priceHistoryRepository = priceHistoryRepository;
-        this.emailNotificationService = emailNotificationService;
-        this.desktopNotificationService = desktopNotificationService;
+        this.checkPassRepository = checkPassRepository;
+        this.priceEventLog = priceEventLog;
+        this.priceExtractor = priceExtractor;
+        this.metrics = metrics;
+        this.fetchEventLog = fetchEventLog;
+        this.alertRuleEngine = alertRuleEngine;
+        this.subscriptionService = subscriptionService;
+        this.renderTier = renderTier;
+        this.snapshotStore = snapshotStore;
+        this.egressPool = egressPool;
+        this.thumbnailService = thumbnailService;
+        this.productSearchService = productSearchService;
     }
     
-    // Enhanced pattern to match Indian number format (with commas, lakhs, crores)
-    private static final Pattern PRICE_PATTERN = Pattern.compile("([\\d,]+(?:\\.\\d{2})?)");
-    private static final Pattern INDIAN_PRICE_PATTERN = Pattern.compile("(?:₹|Rs\\.?|INR)?\\s*([\\d,]+(?:\\.\\d{2})?)");
-    private static final String DEFAULT_USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36";
+    public static final String DEFAULT_USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36";
     
     /**
      * Fetch current price from a product URL
      */
     public Double fetchPrice(Product product) {
+        return fetchPrice(product, null);
+    }
+    
+    private Double fetchPrice(Product product, PassSummary summary) {
+        long start = System.nanoTime();
+        Double oldPrice = product.getCurrentPrice();
         try {
-            log.info("Fetching price for product: {} from URL: {}", product.getName(), product.getUrl());
-            
-            Document doc = Jsoup.connect(product.getUrl())
-                    .userAgent(DEFAULT_USER_AGENT)
-                    .timeout(15000)
-                    .followRedirects(true)
-                    .get();
-            
-            log.debug("Successfully fetched HTML document, size: {} bytes", doc.html().length());
-            
-            Double price = extractPrice(doc, product);
+            log.debug("Fetching price for product: {} from URL: {}", product.getName(), product.getUrl());
             
-            if (price != null && price > 0) {
-                // Get old price before updating
-                Double oldPrice = product.getCurrentPrice();
-                
-                // Update product current price
-                product.setCurrentPrice(price);
-                product.setLastChecked(LocalDateTime.now());
-                productRepository.save(product);
-                
-                // Save price history
-                PriceHistory history = new PriceHistory();
-                history.setProduct(product);
-                history.setPrice(price);
-                history.setRecordedAt(LocalDateTime.now());
-                priceHistoryRepository.save(history);
-                
-                log.info("Price updated for {}: ₹{} (Old: ₹{}, Target: ₹{})", 
-                        product.getName(), price, oldPrice, product.getTargetPrice());
-                
-                // Check if price is below target price (always check, regardless of previous state)
-                boolean isBelowTarget = price < product.getTargetPrice();
-                boolean wasNotified = product.getTargetPriceNotified() != null && product.getTargetPriceNotified();
-                
-                // Notify if price is below target and we haven't notified yet, OR if price was above target before
-                boolean shouldNotifyTarget = isBelowTarget && (!wasNotified || (oldPrice != null && oldPrice > 0 && oldPrice >= product.getTargetPrice()));
-                
-                if (shouldNotifyTarget) {
-                    log.info("Price is below target for {}: ₹{} (Target: ₹{})", 
-                            product.getName(), price, product.getTargetPrice());
-                    emailNotificationService.sendTargetPriceReachedNotification(product);
-                    desktopNotificationService.showTargetPriceReachedNotification(product);
-                    product.setTargetPriceNotified(true);
-                    productRepository.save(product);
-                } else if (!isBelowTarget && wasNotified) {
-                    // Price went back above target, reset notification flag
-                    product.setTargetPriceNotified(false);
-                    productRepository.save(product);
-                }
-                
-                // Check for price drop and send notifications
-                if (oldPrice != null && oldPrice > 0 && price < oldPrice) {
-                    log.info("Price dropped for {}: ₹{} → ₹{}", product.getName(), oldPrice, price);
-                    emailNotificationService.sendPriceDropNotification(product, oldPrice, price);
-                    desktopNotificationService.showPriceDropNotification(product, oldPrice, price);
-                }
-                
-                return price;
-            } else {
-                log.warn("Could not extract valid price for product: {}", product.getName());
-                return null;
-            }
+            Document doc = fetchPage(product.getUrl());
+            readImage(product, ThumbnailService.imageUrl(doc));
+            PriceExtractor.Extraction extraction = extractOrRender(doc, product);
+            Double price = applyPrice(product, extraction.getPrice());
+            record(product, price != null ? FetchEvent.Outcome.UPDATED : FetchEvent.Outcome.NO_PRICE,
+                    extraction.getSource(), oldPrice, price, start, null, summary);
+            return price;
             
         } catch (IOException e) {
-            log.error("Error fetching price for product {}: {}", product.getName(), e.getMessage());
+            log.warn("Error fetching price for product {}: {}", product.getName(), e.getMessage());
+            record(product, FetchEvent.Outcome.FETCH_ERROR, null, oldPrice, null, start, e.getMessage(), summary);
             return null;
         } catch (Exception e) {
             log.error("Unexpected error fetching price for product {}: {}", product.getName(), e.getMessage(), e);
+            record(product, FetchEvent.Outcome.ERROR, null, oldPrice, null, start, e.toString(), summary);
             return null;
         }
     }
     
     /**
-     * Extract price from HTML document with enhanced selectors for Indian e-commerce sites
+     * Fetch one page and apply it to every product in the group (products whose URLs share a
+     * canonical form). Extraction runs once per distinct custom selector.
      */
-    private Double extractPrice(Document doc, Product product) {
-        log.debug("Extracting price for product: {}", product.getName());
-        
-        // Try custom selector first if provided
-        if (product.getPriceSelector() != null && !product.getPriceSelector().isEmpty()) {
-            try {
-                log.debug("Trying custom selector: {}", product.getPriceSelector());
-                Element priceElement = doc.selectFirst(product.getPriceSelector());
-                if (priceElement != null) {
-                    String priceText = priceElement.text();
-                    log.debug("Found price text with custom selector: {}", priceText);
-                    Double price = parsePrice(priceText);
-                    if (price != null) {
-                        log.info("Successfully extracted price using custom selector: ₹{}", price);
-                        return price;
-                    }
-                }
-            } catch (Exception e) {
-                log.warn("Error using custom selector: {}", e.getMessage());
+    private void fetchSharedPage(List<Product> group, PassSummary summary) {
+        Product first = group.get(0);
+        long start = System.nanoTime();
+        Document doc;
+        try {
+            log.debug("Fetching shared page for {} products from URL: {}", group.size(), first.getUrl());
+            doc = fetchPage(first.getUrl());
+        } catch (IOException e) {
+            log.warn("Error fetching shared page for {} products from {}: {}", group.size(), first.getUrl(), e.getMessage());
+            for (Product product : group) {
+                record(product, FetchEvent.Outcome.FETCH_ERROR, null, product.getCurrentPrice(), null, start, e.getMessage(), summary);
             }
+            return;
         }
         
-        // Enhanced selectors for Indian e-commerce sites (Amazon, Flipkart, etc.)
-        String[] commonSelectors = {
-            // Amazon India
-            "#priceblock_dealprice", "#priceblock_ourprice", "#priceblock_saleprice",
-            ".a-price-whole", ".a-price .a-offscreen", "[data-asin-price]",
-            "span.a-price-whole", "span#priceblock_dealprice",
-            
-            // Flipkart
-            "._30jeq3", "._16Jk6d", ".dyC4hf", "[class*='_30jeq3']",
-            "div._30jeq3", "span._30jeq3",
-            
-            // Generic e-commerce
-            "[data-price]", "[itemprop=price]", ".price", "#price", 
-            ".product-price", ".current-price", "[class*='price']",
-            "span[class*='Price']", "div[class*='price']",
-            "[class*='selling-price']", "[class*='offer-price']",
-            "[id*='price']", "[id*='Price']",
-            
-            // More specific selectors
-            ".price-current", ".price-now", ".final-price",
-            "span.price", "div.price", "p.price",
-            "[data-testid*='price']", "[data-testid*='Price']"
-        };
-        
-        for (String selector : commonSelectors) {
+        Map<String, PriceExtractor.Extraction> extractionsBySelector = new HashMap<>();
+        String imageUrl = ThumbnailService.imageUrl(doc);
+        for (Product product : group) {
+            Double oldPrice = product.getCurrentPrice();
             try {
-                Element priceElement = doc.selectFirst(selector);
-                if (priceElement != null) {
-                    // Try content attribute first (for structured data)
-                    String priceText = priceElement.attr("content");
-                    if (priceText.isEmpty()) {
-                        priceText = priceElement.text();
-                    }
-                    // Also try data attributes
-                    if (priceText.isEmpty()) {
-                        priceText = priceElement.attr("data-price");
-                    }
-                    
-                    if (!priceText.isEmpty()) {
-                        log.debug("Found price text with selector '{}': {}", selector, priceText);
-                        Double price = parsePrice(priceText);
-                        if (price != null && price > 0) {
-                            log.info("Successfully extracted price using selector '{}': ₹{}", selector, price);
-                            return price;
-                        }
-                    }
-                }
+                readImage(product, imageUrl);
+                String selector = product.getPriceSelector() == null ? "" : product.getPriceSelector();
+                PriceExtractor.Extraction extraction = extractionsBySelector.computeIfAbsent(selector, s -> extractOrRender(doc, product));
+                Double price = applyPrice(product, extraction.getPrice());
+                record(product, price != null ? FetchEvent.Outcome.UPDATED : FetchEvent.Outcome.NO_PRICE,
+                        extraction.getSource(), oldPrice, price, start, null, summary);
             } catch (Exception e) {
-                log.debug("Error with selector '{}': {}", selector, e.getMessage());
-                // Continue to next selector
+                log.error("Unexpected error applying shared price for product {}: {}", product.getName(), e.getMessage(), e);
+                record(product, FetchEvent.Outcome.ERROR, null, oldPrice, null, start, e.toString(), summary);
             }
         }
-        
-        // Try to find price in meta tags
+    }
+    
+    /**
+     * Take the product image the page declares; it is saved with the product when the price is
+     * recorded. Missing thumbnails are prefetched so the dashboard never waits for the retailer.
+     */
+    private void readImage(Product product, String imageUrl) {
+        if (imageUrl != null && !imageUrl.equals(product.getImageUrl())) {
+            product.setImageUrl(imageUrl);
+        }
+        thumbnailService.prefetch(product.getImageUrl());
+    }
+    
+    /**
+     * Store the outcome in the event ring buffer and, during a pass, count it and log a sample
+     */
+    private void record(Product product, FetchEvent.Outcome outcome, String source, Double oldPrice,
+                        Double price, long startNanos, String error, PassSummary summary) {
+        FetchEvent event = new FetchEvent(product.getId(), ProductUrls.host(product.getUrl()), outcome, source,
+                oldPrice, price, (System.nanoTime() - startNanos) / 1_000_000, error);
+        fetchEventLog.record(event);
+        if (summary != null) {
+            int position = summary.add(event);
+            if (logSampleEvery > 0 && (position - 1) % logSampleEvery == 0) {
+                log.info("Sample check #{}: {}", position, event);
+            }
+        }
+    }
+    
+    /**
+     * Fetch a page with Jsoup, or through the render tier for hosts known to render prices with scripts
+     */
+    private Document fetchPage(String url) throws IOException {
+        if (renderTier.needsRendering(ProductUrls.host(url))) {
+            Document rendered = renderTier.render(url);
+            if (rendered != null) {
+                storeSnapshot(url, rendered);
+                return rendered;
+            }
+        }
+        return fetchDocument(url);
+    }
+    
+    /**
+     * Download and parse a page, timing the network transfer and the Jsoup parse separately
+     */
+    private Document fetchDocument(String url) throws IOException {
+        String host = ProductUrls.host(url);
+        EgressPool.Lease lease;
         try {
-            Element metaPrice = doc.selectFirst("meta[property='product:price:amount']");
-            if (metaPrice != null) {
-                String priceText = metaPrice.attr("content");
-                Double price = parsePrice(priceText);
-                if (price != null && price > 0) {
-                    log.info("Found price in meta tag: ₹{}", price);
-                    return price;
-                }
+            lease = egressPool.acquire(host);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for an egress route to " + host);
+        }
+        long start = System.nanoTime();
+        Connection.Response response;
+        try {
+            Connection connection = Jsoup.connect(url)
+                    .userAgent(DEFAULT_USER_AGENT)
+                    .timeout(15000)
+                    .followRedirects(true);
+            if (lease.getProxy() != null) {
+                connection.proxy(lease.getProxy());
             }
-        } catch (Exception e) {
-            log.debug("Error reading meta tag: {}", e.getMessage());
+            response = connection.execute();
+            // Buffer the body so the network timer covers the whole transfer
+            response.bodyAsBytes();
+        } catch (IOException e) {
+            egressPool.release(lease, EgressPool.outcomeOf(e, lease));
+            metrics.recordFetchNetwork(host, false, System.nanoTime() - start);
+            throw e;
         }
+        egressPool.release(lease, true);
+        long fetched = System.nanoTime();
+        metrics.recordFetchNetwork(host, true, fetched - start);
+        
+        log.debug("Fetched {} bytes from {}", response.bodyAsBytes().length, host);
+        snapshotStore.store(url, response.bodyAsBytes(), response.charset());
         
-        // Fallback: search entire document for price patterns
-        log.debug("Trying fallback: searching entire document for price patterns");
-        String bodyText = doc.body().text();
-        Double price = parsePrice(bodyText);
+        Document doc = response.parse();
+        metrics.recordFetchParse(host, System.nanoTime() - fetched);
+        return doc;
+    }
+    
+    /**
+     * Extract from the fetched page. When that finds nothing or only the body-text fallback and
+     * the host may render its prices with scripts, retry on the rendered page and let the render
+     * tier learn whether the host needs it.
+     */
+    private PriceExtractor.Extraction extractOrRender(Document doc, Product product) {
+        PriceExtractor.Extraction extraction = extract(doc, product);
+        String host = ProductUrls.host(product.getUrl());
+        if (!isWeak(extraction) || renderTier.needsRendering(host) || !renderTier.shouldProbe(host)) {
+            return extraction;
+        }
+        Document rendered = renderTier.render(product.getUrl());
+        if (rendered == null) {
+            return extraction;
+        }
+        PriceExtractor.Extraction renderedExtraction = extract(rendered, product);
+        boolean helped = !isWeak(renderedExtraction);
+        renderTier.learn(host, helped);
+        if (helped) {
+            storeSnapshot(product.getUrl(), rendered);
+        }
+        return helped ? renderedExtraction : extraction;
+    }
+    
+    // Rendered pages are stored as serialized DOM, so re-extraction sees what the browser built
+    private void storeSnapshot(String url, Document rendered) {
+        if (snapshotStore.isEnabled()) {
+            snapshotStore.store(url, rendered.outerHtml().getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8.name());
+        }
+    }
+    
+    private static boolean isWeak(PriceExtractor.Extraction extraction) {
+        return PriceExtractor.SOURCE_NONE.equals(extraction.getSource())
+                || PriceExtractor.SOURCE_BODY_TEXT.equals(extraction.getSource());
+    }
+    
+    private PriceExtractor.Extraction extract(Document doc, Product product) {
+        long start = System.nanoTime();
+        PriceExtractor.Extraction extraction = priceExtractor.extract(doc, product);
+        metrics.recordExtract(ProductUrls.host(product.getUrl()), extraction.getSource(), System.nanoTime() - start);
+        return extraction;
+    }
+    
+    /**
+     * Record an extracted price in the event log, which persists it and sends any target/drop notifications
+     */
+    private Double applyPrice(Product product, Double price) {
         if (price != null && price > 0) {
-            log.info("Found price using fallback method: ₹{}", price);
+            Double oldPrice = product.getCurrentPrice();
+            long persistStart = System.nanoTime();
+            List<PriceEvent> alerts = priceEventLog.append(product, price);
+            metrics.recordPersist(System.nanoTime() - persistStart);
+            
+            log.debug("Price updated for {}: ₹{} (Old: ₹{}, Target: ₹{})", 
+                    product.getName(), price, oldPrice, product.getTargetPrice());
+            
+            priceEventLog.deliver(product, alerts);
+            subscriptionService.onPrice(product, price);
             return price;
+        } else {
+            log.debug("Could not extract valid price for product: {}", product.getName());
+            alertRuleEngine.markUnavailable(product.getId());
+            return null;
         }
-        
-        log.warn("Could not extract price from document. Document preview: {}", 
-                 bodyText.length() > 200 ? bodyText.substring(0, 200) : bodyText);
-        return null;
     }
     
     /**
-     * Parse price from text string - enhanced for Indian currency format
+     * Check prices for all active products (scheduled task). Runs never overlap: a run that
+     * fires while the previous pass is still going is skipped.
      */
-    private Double parsePrice(String text) {
-        if (text == null || text.isEmpty()) {
-            return null;
+    @Scheduled(fixedRateString = "${app.tracking.interval-ms:3600000}",
+               initialDelayString = "${app.tracking.initial-delay-ms:0}")
+    public void checkAllActiveProducts() {
+        if (!passRunning.compareAndSet(false, true)) {
+            log.warn("Skipping scheduled price check: the previous pass is still running");
+            return;
         }
+        // Pages are checked concurrently, by default one at a time per egress route
+        int concurrency = passConcurrency > 0 ? passConcurrency : egressPool.size();
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "check-pass-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            runPass(workers);
+        } finally {
+            workers.shutdownNow();
+            passRunning.set(false);
+        }
+    }
+    
+    /**
+     * Check the products due in the current pass, stalest first, in keyset batches. The pass and
+     * its cursor are persisted after every batch, so a pass cut short by a restart or an
+     * interruption is resumed by the next run instead of starting over. Products checked since
+     * the pass started drop out of it, so at most the failed checks of one batch are repeated.
+     * Products sharing a page with one in the batch are checked with it even when the keyset
+     * order puts them in a later batch, so each page is fetched once per pass.
+     */
+    private void runPass(ExecutorService workers) {
+        long passStart = System.nanoTime();
+        CheckPass pass = checkPassRepository.findFirstByStatusOrderByIdDesc(CheckPass.Status.RUNNING).orElse(null);
+        if (pass != null) {
+            pass.setResumes(pass.getResumes() + 1);
+            log.info("Resuming price check pass {} after {} of {} products", pass.getId(),
+                    pass.getCheckedProducts(), pass.getDueProducts());
+        } else {
+            LocalDateTime startedAt = LocalDateTime.now();
+            pass = new CheckPass(startedAt, (int) productRepository.countDue(startedAt));
+            log.debug("Starting price check pass for {} active products", pass.getDueProducts());
+        }
+        pass = checkPassRepository.save(pass);
+        // Sibling lookups need the URL index, and the first pass can start before the application is ready
+        productSearchService.loadIndex();
+        PassSummary summary = new PassSummary(pass.getId());
+        int checkedBefore = pass.getCheckedProducts();
         
-        log.debug("Parsing price from text: {}", text);
-        
-        // First try Indian price pattern (₹, Rs., INR)
-        Matcher indianMatcher = INDIAN_PRICE_PATTERN.matcher(text);
-        if (indianMatcher.find()) {
+        LocalDateTime afterChecked = pass.getCursorLastChecked() != null ? pass.getCursorLastChecked() : CURSOR_START;
+        long afterId = pass.getCursorProductId() != null ? pass.getCursorProductId() : 0;
+        List<Product> batch;
+        while (!(batch = productRepository.findDueAfter(pass.getStartedAt(), afterChecked, afterId,
+                PageRequest.of(0, passBatchSize))).isEmpty()) {
+            // Taken before the checks below move the products' lastChecked
+            Product last = batch.get(batch.size() - 1);
+            afterChecked = last.getLastChecked();
+            afterId = last.getId();
+            
+            // Products whose URLs differ only in tracking parameters share one fetch
+            Map<String, List<Product>> pages = new LinkedHashMap<>();
+            for (Product product : batch) {
+                pages.computeIfAbsent(ProductUrls.canonicalize(product.getUrl()), key -> new ArrayList<>()).add(product);
+            }
+            int products = batch.size() + addDueSiblings(pages, pass.getStartedAt());
+            List<Future<?>> checks = new ArrayList<>(pages.size());
+            for (List<Product> group : pages.values()) {
+                checks.add(workers.submit(() -> {
+                    if (!stopping) {
+                        checkPage(group, summary);
+                    }
+                    return null;
+                }));
+            }
             try {
-                String priceStr = indianMatcher.group(1).replace(",", "").trim();
-                Double price = Double.parseDouble(priceStr);
-                if (price > 0) {
-                    log.debug("Parsed price using Indian pattern: ₹{}", price);
-                    return price;
+                for (Future<?> check : checks) {
+                    check.get();
                 }
-            } catch (NumberFormatException e) {
-                log.debug("Failed to parse Indian price pattern: {}", e.getMessage());
+            } catch (InterruptedException | ExecutionException e) {
+                // checkPage handles its own errors, so a failed check means a worker was interrupted
+                Thread.currentThread().interrupt();
+                log.warn("Price check pass {} interrupted after {} products; the next run resumes it",
+                        pass.getId(), checkedBefore + summary.checked());
+                return;
+            }
+            if (stopping) {
+                log.info("Price check pass {} stopped for shutdown after {} products; it resumes on the next start",
+                        pass.getId(), checkedBefore + summary.checked());
+                return;
             }
+            pass.checkpoint(afterChecked, afterId, products, pages.size());
+            pass = checkPassRepository.save(pass);
+            summary.addPages(pages.size());
         }
         
-        // Remove currency symbols and common text, but keep numbers, dots, and commas
-        String cleaned = text.replaceAll("[^\\d.,]", " ");
-        
-        // Find first number that looks like a price (at least 2 digits)
-        Matcher matcher = PRICE_PATTERN.matcher(cleaned);
-        Double bestPrice = null;
-        double maxPrice = 0;
-        
-        // Find the largest reasonable price (likely the actual product price)
-        while (matcher.find()) {
-            try {
-                String priceStr = matcher.group(1).replace(",", "").trim();
-                Double price = Double.parseDouble(priceStr);
-                
-                // Filter out unreasonable prices (too small or too large)
-                // Typical product prices: 100 to 1,00,00,000 (1 crore)
-                if (price >= 10 && price <= 100000000 && price > maxPrice) {
-                    maxPrice = price;
-                    bestPrice = price;
-                }
-            } catch (NumberFormatException e) {
-                // Continue searching
+        pass.complete();
+        checkPassRepository.save(pass);
+        metrics.recordPass(summary.checked(), System.nanoTime() - passStart);
+        log.info("Completed price check: {}", summary);
+    }
+    
+    /**
+     * Add the products still due in the pass that share a page with the batch but fall outside
+     * it; returns how many were added
+     */
+    private int addDueSiblings(Map<String, List<Product>> pages, LocalDateTime startedAt) {
+        Set<Long> missing = new HashSet<>();
+        for (Map.Entry<String, List<Product>> page : pages.entrySet()) {
+            List<Long> ids = productSearchService.productsWithCanonicalUrl(page.getKey());
+            if (ids.size() <= page.getValue().size()) {
+                continue;
+            }
+            missing.addAll(ids);
+            for (Product product : page.getValue()) {
+                missing.remove(product.getId());
             }
         }
-        
-        if (bestPrice != null) {
-            log.debug("Parsed price: ₹{}", bestPrice);
-            return bestPrice;
+        if (missing.isEmpty()) {
+            return 0;
         }
-        
-        log.debug("Could not parse price from text: {}", text);
-        return null;
+        List<Product> siblings = productRepository.findDueByIdIn(missing, startedAt);
+        for (Product sibling : siblings) {
+            List<Product> group = pages.get(ProductUrls.canonicalize(sibling.getUrl()));
+            if (group != null) {
+                group.add(sibling);
+            }
+        }
+        return siblings.size();
     }
     
     /**
-     * Check prices for all active products (scheduled task)
+     * Check one page (one product, or the products sharing its canonical URL), then pause
      */
-    @Scheduled(fixedRate = 3600000) // Run every hour
-    public void checkAllActiveProducts() {
-        log.info("Starting scheduled price check for all active products");
-        List<Product> activeProducts = productRepository.findByIsActiveTrue();
-        
-        for (Product product : activeProducts) {
-            try {
-                fetchPrice(product);
-                // Add delay to avoid overwhelming servers
-                Thread.sleep(2000);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                log.error("Price check interrupted");
-                break;
-            } catch (Exception e) {
-                log.error("Error checking price for product {}: {}", product.getName(), e.getMessage());
+    private void checkPage(List<Product> group, PassSummary summary) throws InterruptedException {
+        try {
+            if (group.size() == 1) {
+                fetchPrice(group.get(0), summary);
+            } else {
+                fetchSharedPage(group, summary);
             }
+        } catch (Exception e) {
+            log.error("Error checking price for page {}: {}", group.get(0).getUrl(), e.getMessage());
         }
-        
-        log.info("Completed price check for {} products", activeProducts.size());
+        // Add delay to avoid overwhelming servers
+        if (requestDelayMs > 0) {
+            Thread.sleep(requestDelayMs);
+        }
+    }
+    
+    // Published before the scheduler waits for running tasks, so a pass stops between pages
+    // instead of holding up shutdown or failing on a closing database
+    @EventListener(ContextClosedEvent.class)
+    public void stopPasses() {
+        stopping = true;
     }
     
     /**
@@ -0,0 +1,147 @@
+package com.pricetracker.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of one bulk product import. Counters are updated concurrently by the import worker
+ * and the background fetch workers, and read by the progress endpoint.
+ */
+public class ProductImportJob {
+    
+    private static final int MAX_ERRORS = 50;
+    
+    public enum Status {
+        IMPORTING, FETCHING, COMPLETED, FAILED
+    }
+    
+    private final String id;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private volatile LocalDateTime importedAt;
+    private volatile LocalDateTime completedAt;
+    private volatile Status status = Status.IMPORTING;
+    
+    private final AtomicInteger received = new AtomicInteger();
+    private final AtomicInteger imported = new AtomicInteger();
+    private final AtomicInteger duplicates = new AtomicInteger();
+    private final AtomicInteger invalid = new AtomicInteger();
+    private final AtomicInteger fetchSucceeded = new AtomicInteger();
+    private final AtomicInteger fetchFailed = new AtomicInteger();
+    private final List<String> errors = Collections.synchronizedList(new ArrayList<>());
+    
+    public ProductImportJob(String id) {
+        this.id = id;
+    }
+    
+    void recordError(long line, String message) {
+        invalid.incrementAndGet();
+        if (errors.size() < MAX_ERRORS) {
+            errors.add("line " + line + ": " + message);
+        }
+    }
+    
+    synchronized void markImported() {
+        importedAt = LocalDateTime.now();
+        status = Status.FETCHING;
+        completeIfDone();
+    }
+    
+    synchronized void markFailed(String message) {
+        errors.add(message);
+        status = Status.FAILED;
+        completedAt = LocalDateTime.now();
+    }
+    
+    synchronized void recordFetch(boolean success) {
+        (success ? fetchSucceeded : fetchFailed).incrementAndGet();
+        completeIfDone();
+    }
+    
+    // Fetches may finish before the import phase does, so both sides check for completion
+    private void completeIfDone() {
+        if (status == Status.FETCHING && fetchSucceeded.get() + fetchFailed.get() >= imported.get()) {
+            status = Status.COMPLETED;
+            completedAt = LocalDateTime.now();
+        }
+    }
+    
+    AtomicInteger receivedCounter() {
+        return received;
+    }
+    
+    AtomicInteger importedCounter() {
+        return imported;
+    }
+    
+    AtomicInteger duplicatesCounter() {
+        return duplicates;
+    }
+    
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+    
+    // Getters
+    public String getId() {
+        return id;
+    }
+    
+    public Status getStatus() {
+        return status;
+    }
+    
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+    
+    public int getReceived() {
+        return received.get();
+    }
+    
+    public int getImported() {
+        return imported.get();
+    }
+    
+    public int getDuplicates() {
+        return duplicates.get();
+    }
+    
+    public int getInvalid() {
+        return invalid.get();
+    }
+    
+    public int getFetchSucceeded() {
+        return fetchSucceeded.get();
+    }
+    
+    public int getFetchFailed() {
+        return fetchFailed.get();
+    }
+    
+    public int getFetchPending() {
+        return Math.max(0, imported.get() - fetchSucceeded.get() - fetchFailed.get());
+    }
+    
+    /**
+     * Products inserted per minute during the import phase (excluding background fetches)
+     */
+    public double getImportRatePerMinute() {
+        LocalDateTime end = importedAt != null ? importedAt : LocalDateTime.now();
+        long millis = Math.max(1, Duration.between(startedAt, end).toMillis());
+        return imported.get() * 60000.0 / millis;
+    }
+    
+    public List<String> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<>(errors);
+        }
+    }
+}
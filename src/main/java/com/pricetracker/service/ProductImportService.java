@@ -0,0 +1,375 @@
+package com.pricetracker.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pricetracker.model.Product;
+import com.pricetracker.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bulk product onboarding. The request thread only spools the upload to a temporary file; the
+ * import worker then parses it line by line (CSV or JSON lines), validates the rows and inserts
+ * them in batches. Initial price fetches are queued on a bounded worker pool, spaced per host by
+ * {@code app.tracking.request-delay-ms} like the checks of a pass. Only rows repeated within
+ * one upload (same canonical URL and notification email) are dropped; products that other users
+ * already track on the same page are kept, and share its fetch in the price check.
+ */
+@Service
+public class ProductImportService {
+    
+    private static final Logger log = LoggerFactory.getLogger(ProductImportService.class);
+    
+    private static final String[] DEFAULT_COLUMNS = {"name", "url", "targetPrice", "notificationEmail", "priceSelector", "description"};
+    private static final int MAX_RETAINED_JOBS = 20;
+    
+    private final ProductRepository productRepository;
+    private final PriceTrackingService priceTrackingService;
+    private final ProductSearchService productSearchService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService importExecutor;
+    private final ScheduledExecutorService fetchExecutor;
+    private final Map<String, ProductImportJob> jobs = new ConcurrentHashMap<>();
+    // Next free initial fetch slot per host (System.nanoTime), guarded by itself
+    private final Map<String, Long> nextFetchAt = new HashMap<>();
+    
+    @Value("${app.import.batch-size:500}")
+    private int batchSize;
+    
+    @Value("${app.tracking.request-delay-ms:2000}")
+    private long requestDelayMs;
+    
+    public ProductImportService(ProductRepository productRepository,
+                                PriceTrackingService priceTrackingService,
+                                ProductSearchService productSearchService,
+                                ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.import.fetch-concurrency:8}") int fetchConcurrency) {
+        this.productRepository = productRepository;
+        this.priceTrackingService = priceTrackingService;
+        this.productSearchService = productSearchService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Uploads are parsed one at a time, so concurrent imports don't compete for the database
+        this.importExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-import");
+            thread.setDaemon(true);
+            return thread;
+        });
+        AtomicInteger threadCount = new AtomicInteger();
+        this.fetchExecutor = Executors.newScheduledThreadPool(fetchConcurrency, runnable -> {
+            Thread thread = new Thread(runnable, "import-fetch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Import products from a CSV or JSON-lines stream. Returns once the upload is spooled to
+     * disk; rows are stored and their initial prices fetched in the background, as reported on the job.
+     */
+    public ProductImportJob importProducts(InputStream input, boolean jsonLines) {
+        ProductImportJob job = new ProductImportJob(UUID.randomUUID().toString());
+        registerJob(job);
+        
+        Path upload = null;
+        try {
+            upload = Files.createTempFile("product-import-", ".tmp");
+            Files.copy(input, upload, StandardCopyOption.REPLACE_EXISTING);
+            Path file = upload;
+            importExecutor.execute(() -> parse(file, jsonLines, job));
+        } catch (Exception e) {
+            log.error("Import {} failed while receiving the upload: {}", job.getId(), e.getMessage());
+            job.markFailed("Error reading import stream: " + e.getMessage());
+            deleteUpload(upload);
+        }
+        return job;
+    }
+    
+    public ProductImportJob getJob(String id) {
+        return jobs.get(id);
+    }
+    
+    /**
+     * Parse a spooled upload and store its rows in batches (runs on the import worker)
+     */
+    private void parse(Path upload, boolean jsonLines, ProductImportJob job) {
+        try (BufferedReader reader = Files.newBufferedReader(upload, StandardCharsets.UTF_8)) {
+            // Canonical URL and notification email of every row stored by this upload
+            Set<String> seenRows = new HashSet<>();
+            List<Product> batch = new ArrayList<>(batchSize);
+            String[] columns = DEFAULT_COLUMNS;
+            long lineNumber = 0;
+            String line;
+            
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                Map<String, String> fields;
+                if (jsonLines) {
+                    fields = parseJsonLine(line);
+                } else {
+                    List<String> values = parseCsvLine(line);
+                    if (lineNumber == 1 && !values.isEmpty() && "name".equalsIgnoreCase(values.get(0).trim())) {
+                        columns = values.stream().map(String::trim).toArray(String[]::new);
+                        continue;
+                    }
+                    fields = new HashMap<>();
+                    for (int i = 0; i < columns.length && i < values.size(); i++) {
+                        fields.put(columns[i], values.get(i));
+                    }
+                }
+                job.receivedCounter().incrementAndGet();
+                
+                Product product;
+                try {
+                    product = toProduct(fields);
+                } catch (IllegalArgumentException e) {
+                    job.recordError(lineNumber, e.getMessage());
+                    continue;
+                }
+                if (!seenRows.add(ProductUrls.canonicalize(product.getUrl()) + "\n" + product.getNotificationEmail())) {
+                    job.duplicatesCounter().incrementAndGet();
+                    continue;
+                }
+                
+                batch.add(product);
+                if (batch.size() >= batchSize) {
+                    flush(batch, job);
+                }
+            }
+            flush(batch, job);
+            job.markImported();
+            log.info("Import {}: {} products stored, {} duplicates, {} invalid; {} initial fetches queued",
+                    job.getId(), job.getImported(), job.getDuplicates(), job.getInvalid(), job.getImported());
+        } catch (IOException e) {
+            log.error("Import {} failed after {} rows: {}", job.getId(), job.getReceived(), e.getMessage());
+            job.markFailed("Error reading import stream: " + e.getMessage());
+        } catch (Exception e) {
+            log.error("Import {} failed after {} rows: {}", job.getId(), job.getReceived(), e.getMessage(), e);
+            job.markFailed("Import failed: " + e.getMessage());
+        } finally {
+            deleteUpload(upload);
+        }
+    }
+    
+    private static void deleteUpload(Path upload) {
+        if (upload == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(upload);
+        } catch (IOException e) {
+            log.warn("Could not delete import upload {}: {}", upload, e.getMessage());
+        }
+    }
+    
+    /**
+     * Store one batch in a single transaction and schedule the initial fetches
+     */
+    private void flush(List<Product> batch, ProductImportJob job) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Product> saved = transactionTemplate.execute(status -> productRepository.saveAll(batch));
+        batch.clear();
+        if (saved == null) {
+            return;
+        }
+        job.importedCounter().addAndGet(saved.size());
+        productSearchService.productsChanged(saved);
+        for (Product product : saved) {
+            fetchExecutor.schedule(() -> {
+                boolean success = false;
+                try {
+                    success = priceTrackingService.fetchPrice(product) != null;
+                } catch (Exception e) {
+                    log.debug("Initial fetch failed for imported product {}: {}", product.getId(), e.getMessage());
+                } finally {
+                    job.recordFetch(success);
+                }
+            }, fetchDelayNanos(ProductUrls.host(product.getUrl())), TimeUnit.NANOSECONDS);
+        }
+    }
+    
+    /**
+     * Reserve the host's next initial fetch slot and return how long until it. Slots for one
+     * host are {@code app.tracking.request-delay-ms} apart, the pause a price check pass takes
+     * between pages, so a large upload of one retailer is not fetched in a burst.
+     */
+    private long fetchDelayNanos(String host) {
+        if (requestDelayMs <= 0) {
+            return 0;
+        }
+        synchronized (nextFetchAt) {
+            long now = System.nanoTime();
+            if (nextFetchAt.size() > 10_000) {
+                nextFetchAt.values().removeIf(next -> next - now < 0);
+            }
+            Long next = nextFetchAt.get(host);
+            long slot = next == null || next - now < 0 ? now : next;
+            nextFetchAt.put(host, slot + TimeUnit.MILLISECONDS.toNanos(requestDelayMs));
+            return slot - now;
+        }
+    }
+    
+    private Product toProduct(Map<String, String> fields) {
+        String name = trimToNull(fields.get("name"));
+        String url = trimToNull(fields.get("url"));
+        String target = trimToNull(fields.get("targetPrice"));
+        
+        if (name == null) {
+            throw new IllegalArgumentException("name is required");
+        }
+        if (url == null) {
+            throw new IllegalArgumentException("url is required");
+        }
+        if (url.length() > 1000) {
+            throw new IllegalArgumentException("url is longer than 1000 characters");
+        }
+        URI uri;
+        try {
+            uri = URI.create(url);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("invalid url: " + url);
+        }
+        if (uri.getHost() == null || !("http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme()))) {
+            throw new IllegalArgumentException("url must be an absolute http(s) URL: " + url);
+        }
+        if (target == null) {
+            throw new IllegalArgumentException("targetPrice is required");
+        }
+        double targetPrice;
+        try {
+            targetPrice = Double.parseDouble(target.replace(",", ""));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid targetPrice: " + target);
+        }
+        if (targetPrice <= 0) {
+            throw new IllegalArgumentException("targetPrice must be positive");
+        }
+        
+        Product product = new Product();
+        product.setName(name.length() > 255 ? name.substring(0, 255) : name);
+        product.setUrl(url);
+        product.setTargetPrice(targetPrice);
+        product.setCurrentPrice(0.0);
+        product.setNotificationEmail(trimToNull(fields.get("notificationEmail")));
+        product.setPriceSelector(trimToNull(fields.get("priceSelector")));
+        String description = trimToNull(fields.get("description"));
+        product.setDescription(description != null && description.length() > 500 ? description.substring(0, 500) : description);
+        return product;
+    }
+    
+    private Map<String, String> parseJsonLine(String line) {
+        Map<String, String> fields = new HashMap<>();
+        try {
+            JsonNode node = objectMapper.readTree(line);
+            Iterator<Map.Entry<String, JsonNode>> it = node.fields();
+            while (it.hasNext()) {
+                Map.Entry<String, JsonNode> entry = it.next();
+                if (!entry.getValue().isNull()) {
+                    fields.put(entry.getKey(), entry.getValue().asText());
+                }
+            }
+        } catch (IOException e) {
+            // Leave fields empty; validation reports the row as invalid
+        }
+        return fields;
+    }
+    
+    /**
+     * Split one CSV record, honouring double-quoted fields with "" escapes
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+    
+    private void registerJob(ProductImportJob job) {
+        jobs.put(job.getId(), job);
+        if (jobs.size() > MAX_RETAINED_JOBS) {
+            // Forget the oldest finished jobs so the registry stays bounded
+            Map<String, ProductImportJob> finished = new LinkedHashMap<>();
+            jobs.values().stream()
+                    .filter(ProductImportJob::isFinished)
+                    .sorted((a, b) -> a.getStartedAt().compareTo(b.getStartedAt()))
+                    .forEach(j -> finished.put(j.getId(), j));
+            Iterator<String> it = finished.keySet().iterator();
+            while (jobs.size() > MAX_RETAINED_JOBS && it.hasNext()) {
+                jobs.remove(it.next());
+            }
+        }
+    }
+    
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        importExecutor.shutdownNow();
+        fetchExecutor.shutdownNow();
+    }
+}
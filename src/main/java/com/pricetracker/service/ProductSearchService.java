@@ -0,0 +1,183 @@
+package com.pricetracker.service;
+
+import com.pricetracker.model.Product;
+import com.pricetracker.repository.PriceHistoryDailyAggregateRepository;
+import com.pricetracker.repository.PriceHistoryRepository;
+import com.pricetracker.repository.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps a {@link ProductCatalogIndex} of all products for dashboard search, filtering and paging.
+ *
+ * The index is built once at startup from a projection query and the highest recorded price per
+ * product, then updated incrementally: the controller and importers report created, edited and
+ * deleted products, and {@link PriceEventLog} reports every applied price. Product ids are also
+ * kept by canonical URL (see {@link ProductUrls#canonicalize}), so the products on one page can
+ * be found without scanning every URL.
+ */
+@Service
+public class ProductSearchService {
+    
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchService.class);
+    
+    private final ProductRepository productRepository;
+    private final PriceHistoryRepository priceHistoryRepository;
+    private final PriceHistoryDailyAggregateRepository dailyAggregateRepository;
+    private final ProductCatalogIndex index = new ProductCatalogIndex();
+    // Guarded by idsByCanonicalUrl; urlById lets unchanged URLs skip canonicalization on every price
+    private final Map<String, Set<Long>> idsByCanonicalUrl = new HashMap<>();
+    private final Map<Long, String> urlById = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+    
+    public ProductSearchService(ProductRepository productRepository,
+                                PriceHistoryRepository priceHistoryRepository,
+                                PriceHistoryDailyAggregateRepository dailyAggregateRepository) {
+        this.productRepository = productRepository;
+        this.priceHistoryRepository = priceHistoryRepository;
+        this.dailyAggregateRepository = dailyAggregateRepository;
+    }
+    
+    /**
+     * Build the index from the database; only the first call does any work, so code that may run
+     * before the application is ready can call it too
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void loadIndex() {
+        if (loaded) {
+            return;
+        }
+        long start = System.nanoTime();
+        Map<Long, Double> highs = new HashMap<>();
+        for (Object[] row : priceHistoryRepository.findMaxPricePerProduct()) {
+            mergeHigh(highs, row);
+        }
+        for (Object[] row : dailyAggregateRepository.findMaxPricePerProduct()) {
+            mergeHigh(highs, row);
+        }
+        for (Object[] row : productRepository.findSearchFields()) {
+            Long id = (Long) row[0];
+            double high = highs.getOrDefault(id, 0.0);
+            ProductCatalogIndex.Entry existing = index.get(id);
+            indexUrl(id, (String) row[2], true);
+            if (existing != null) {
+                // Changed since startup; keep the newer fields and add the recorded high
+                if (existing.getHighestPrice() < high) {
+                    index.put(entry(id, existing.getName(), existing.getHost(), existing.getIsActive(),
+                            existing.getCurrentPrice(), existing.getTargetPrice(), high, existing.getLastChecked(),
+                            existing.getImageUrl()));
+                }
+                continue;
+            }
+            index.put(entry(id, (String) row[1], ProductUrls.host((String) row[2]), Boolean.TRUE.equals(row[3]),
+                    (Double) row[4], (Double) row[5], high, (LocalDateTime) row[6], (String) row[7]));
+        }
+        loaded = true;
+        log.info("Indexed {} products for search in {}ms", index.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    public ProductCatalogIndex.Page search(ProductCatalogIndex.Query query) {
+        return index.search(query);
+    }
+    
+    /**
+     * Revision of one product's entry, or -1 if it is not indexed
+     */
+    public long revision(Long productId) {
+        ProductCatalogIndex.Entry entry = index.get(productId);
+        return entry != null ? entry.getRevision() : -1;
+    }
+    
+    public long catalogVersion() {
+        return index.version();
+    }
+    
+    /**
+     * Ids of the products whose URL has the given canonical form, lowest first
+     */
+    public List<Long> productsWithCanonicalUrl(String canonicalUrl) {
+        synchronized (idsByCanonicalUrl) {
+            Set<Long> ids = idsByCanonicalUrl.get(canonicalUrl);
+            return ids != null ? new ArrayList<>(ids) : List.of();
+        }
+    }
+    
+    /**
+     * Index a created or edited product, or one whose price or last check changed
+     */
+    public void productChanged(Product product) {
+        indexUrl(product.getId(), product.getUrl(), false);
+        ProductCatalogIndex.Entry existing = index.get(product.getId());
+        index.put(entry(product.getId(), product.getName(), ProductUrls.host(product.getUrl()),
+                Boolean.TRUE.equals(product.getIsActive()), product.getCurrentPrice(), product.getTargetPrice(),
+                existing != null ? existing.getHighestPrice() : 0, product.getLastChecked(), product.getImageUrl()));
+    }
+    
+    public void productsChanged(List<Product> products) {
+        for (Product product : products) {
+            productChanged(product);
+        }
+    }
+    
+    public void productDeleted(Long productId) {
+        index.remove(productId);
+        synchronized (idsByCanonicalUrl) {
+            String url = urlById.remove(productId);
+            if (url != null) {
+                unlinkUrl(productId, url);
+            }
+        }
+    }
+    
+    // At startup (onlyIfAbsent) a product already reported as changed keeps its newer URL
+    private void indexUrl(Long id, String url, boolean onlyIfAbsent) {
+        if (url == null || url.equals(urlById.get(id))) {
+            return;
+        }
+        String canonical = ProductUrls.canonicalize(url);
+        synchronized (idsByCanonicalUrl) {
+            String previous = urlById.get(id);
+            if (previous != null && onlyIfAbsent) {
+                return;
+            }
+            if (previous != null) {
+                unlinkUrl(id, previous);
+            }
+            urlById.put(id, url);
+            idsByCanonicalUrl.computeIfAbsent(canonical, key -> new TreeSet<>()).add(id);
+        }
+    }
+    
+    private void unlinkUrl(Long id, String url) {
+        String canonical = ProductUrls.canonicalize(url);
+        Set<Long> ids = idsByCanonicalUrl.get(canonical);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            idsByCanonicalUrl.remove(canonical);
+        }
+    }
+    
+    private static ProductCatalogIndex.Entry entry(long id, String name, String host, boolean active, Double currentPrice,
+                                                   Double targetPrice, double high, LocalDateTime lastChecked,
+                                                   String imageUrl) {
+        return new ProductCatalogIndex.Entry(id, name != null ? name : "", host, active,
+                currentPrice != null ? currentPrice : 0, targetPrice != null ? targetPrice : 0, high, lastChecked, imageUrl);
+    }
+    
+    private static void mergeHigh(Map<Long, Double> highs, Object[] row) {
+        if (row[1] != null) {
+            highs.merge((Long) row[0], ((Number) row[1]).doubleValue(), Math::max);
+        }
+    }
+}
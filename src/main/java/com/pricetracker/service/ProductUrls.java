@@ -0,0 +1,131 @@
+package com.pricetracker.service;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * URL helpers shared by the fetch pipeline. {@link #canonicalize(String)} maps the many
+ * tracking/affiliate variants of a retailer product URL to one key, so products pointing at the
+ * same page can share a single fetch.
+ */
+public final class ProductUrls {
+    
+    // Amazon product pages: /dp/ASIN, /gp/product/ASIN, /gp/aw/d/ASIN, /exec/obidos/ASIN/...
+    private static final Pattern AMAZON_ASIN = Pattern.compile(
+            "/(?:dp|gp/product|gp/aw/d|o/ASIN|exec/obidos/ASIN)/([A-Z0-9]{10})(?:[/?]|$)", Pattern.CASE_INSENSITIVE);
+    
+    // Only parameters that never change page content; retailer-specific noise is handled by the
+    // Amazon/Flipkart rules, which keep just the product identifier
+    private static final Set<String> TRACKING_PARAMS = Set.of(
+            "ref", "tag", "linkcode", "linkid", "ascsubtag", "affid", "affextparam1", "affextparam2",
+            "gclid", "fbclid", "msclkid", "dclid", "igshid", "mc_cid", "mc_eid");
+    
+    private ProductUrls() {
+    }
+    
+    /**
+     * Canonical form of a product URL: lower-cased scheme and host, no fragment, no tracking
+     * parameters, remaining parameters sorted. Amazon URLs collapse to {@code /dp/ASIN} and
+     * Flipkart URLs keep only the {@code pid} parameter. Unparseable input is returned trimmed.
+     */
+    public static String canonicalize(String url) {
+        if (url == null) {
+            return null;
+        }
+        String trimmed = url.trim();
+        URI uri;
+        try {
+            uri = new URI(trimmed);
+        } catch (URISyntaxException e) {
+            return trimmed;
+        }
+        if (uri.getScheme() == null || uri.getHost() == null) {
+            return trimmed;
+        }
+        
+        String scheme = uri.getScheme().toLowerCase(Locale.ROOT);
+        String host = uri.getHost().toLowerCase(Locale.ROOT);
+        String authority = host + (uri.getPort() == -1 || isDefaultPort(scheme, uri.getPort()) ? "" : ":" + uri.getPort());
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        
+        if (isRetailer(host, "amazon")) {
+            Matcher matcher = AMAZON_ASIN.matcher(path);
+            if (matcher.find()) {
+                String wwwHost = host.startsWith("www.") ? authority : "www." + stripMobilePrefix(authority);
+                return scheme + "://" + wwwHost + "/dp/" + matcher.group(1).toUpperCase(Locale.ROOT);
+            }
+        }
+        
+        List<String[]> params = parseQuery(uri.getRawQuery());
+        if (isRetailer(host, "flipkart")) {
+            String pid = params.stream()
+                    .filter(p -> p[0].equals("pid"))
+                    .map(p -> p[1])
+                    .findFirst()
+                    .orElse(null);
+            String flipkartHost = host.equals("flipkart.com") || host.startsWith("m.") ? "www.flipkart.com" : authority;
+            return scheme + "://" + flipkartHost + path + (pid != null ? "?pid=" + pid : "");
+        }
+        
+        StringBuilder query = new StringBuilder();
+        params.stream()
+                .filter(p -> !isTrackingParam(p[0]))
+                .sorted((a, b) -> a[0].equals(b[0]) ? a[1].compareTo(b[1]) : a[0].compareTo(b[0]))
+                .forEach(p -> query.append(query.length() == 0 ? "?" : "&").append(p[0]).append(p[1].isEmpty() ? "" : "=" + p[1]));
+        return scheme + "://" + authority + path + query;
+    }
+    
+    /**
+     * Lower-cased host of a URL, or {@code "unknown"} when it cannot be parsed
+     */
+    public static String host(String url) {
+        if (url == null) {
+            return "unknown";
+        }
+        try {
+            String host = new URI(url.trim()).getHost();
+            return host != null ? host.toLowerCase(Locale.ROOT) : "unknown";
+        } catch (URISyntaxException e) {
+            return "unknown";
+        }
+    }
+    
+    private static boolean isRetailer(String host, String name) {
+        return host.equals(name + ".com") || host.equals(name + ".in")
+                || host.contains("." + name + ".") || host.startsWith(name + ".");
+    }
+    
+    private static boolean isTrackingParam(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        return lower.startsWith("utm_") || lower.startsWith("ref_") || TRACKING_PARAMS.contains(lower);
+    }
+    
+    private static boolean isDefaultPort(String scheme, int port) {
+        return ("http".equals(scheme) && port == 80) || ("https".equals(scheme) && port == 443);
+    }
+    
+    private static String stripMobilePrefix(String authority) {
+        return authority.startsWith("m.") ? authority.substring(2) : authority;
+    }
+    
+    private static List<String[]> parseQuery(String rawQuery) {
+        List<String[]> params = new ArrayList<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int eq = pair.indexOf('=');
+            params.add(eq < 0 ? new String[]{pair, ""} : new String[]{pair.substring(0, eq), pair.substring(eq + 1)});
+        }
+        return params;
+    }
+}
@@ -0,0 +1,219 @@
+package com.pricetracker.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of one re-extraction over stored page snapshots. Counters are updated concurrently
+ * by the fork-join workers and read by the progress endpoint.
+ */
+public class ReextractionJob {
+    
+    private static final int MAX_CHANGES = 100;
+    
+    public enum Status {
+        RUNNING, COMPLETED, FAILED
+    }
+    
+    private final String id;
+    private final String host;
+    private final boolean apply;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private volatile LocalDateTime completedAt;
+    private volatile Status status = Status.RUNNING;
+    private volatile String error;
+    private volatile int products;
+    private volatile int pages;
+    
+    private final AtomicInteger pagesParsed = new AtomicInteger();
+    private final AtomicInteger missingSnapshot = new AtomicInteger();
+    private final AtomicInteger unreadable = new AtomicInteger();
+    private final AtomicInteger unchanged = new AtomicInteger();
+    private final AtomicInteger changed = new AtomicInteger();
+    private final AtomicInteger noPrice = new AtomicInteger();
+    private final AtomicInteger applied = new AtomicInteger();
+    private final List<Change> changes = Collections.synchronizedList(new ArrayList<>());
+    
+    public ReextractionJob(String id, String host, boolean apply) {
+        this.id = id;
+        this.host = host;
+        this.apply = apply;
+    }
+    
+    void start(int products, int pages) {
+        this.products = products;
+        this.pages = pages;
+    }
+    
+    void recordChange(Change change) {
+        changed.incrementAndGet();
+        if (changes.size() < MAX_CHANGES) {
+            changes.add(change);
+        }
+    }
+    
+    void markCompleted() {
+        status = Status.COMPLETED;
+        completedAt = LocalDateTime.now();
+    }
+    
+    void markFailed(String message) {
+        error = message;
+        status = Status.FAILED;
+        completedAt = LocalDateTime.now();
+    }
+    
+    AtomicInteger pagesParsedCounter() {
+        return pagesParsed;
+    }
+    
+    AtomicInteger missingSnapshotCounter() {
+        return missingSnapshot;
+    }
+    
+    AtomicInteger unreadableCounter() {
+        return unreadable;
+    }
+    
+    AtomicInteger unchangedCounter() {
+        return unchanged;
+    }
+    
+    AtomicInteger noPriceCounter() {
+        return noPrice;
+    }
+    
+    AtomicInteger appliedCounter() {
+        return applied;
+    }
+    
+    public boolean isFinished() {
+        return status != Status.RUNNING;
+    }
+    
+    // Getters
+    public String getId() {
+        return id;
+    }
+    
+    public String getHost() {
+        return host;
+    }
+    
+    public boolean isApply() {
+        return apply;
+    }
+    
+    public Status getStatus() {
+        return status;
+    }
+    
+    public String getError() {
+        return error;
+    }
+    
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+    
+    public LocalDateTime getCompletedAt() {
+        return completedAt;
+    }
+    
+    public int getProducts() {
+        return products;
+    }
+    
+    public int getPages() {
+        return pages;
+    }
+    
+    public int getPagesParsed() {
+        return pagesParsed.get();
+    }
+    
+    /**
+     * Products whose page has no stored snapshot (never fetched since snapshots were enabled, or evicted)
+     */
+    public int getMissingSnapshot() {
+        return missingSnapshot.get();
+    }
+    
+    public int getUnreadable() {
+        return unreadable.get();
+    }
+    
+    public int getUnchanged() {
+        return unchanged.get();
+    }
+    
+    public int getChanged() {
+        return changed.get();
+    }
+    
+    public int getNoPrice() {
+        return noPrice.get();
+    }
+    
+    public int getApplied() {
+        return applied.get();
+    }
+    
+    /**
+     * Pages parsed per second so far
+     */
+    public double getPagesPerSecond() {
+        LocalDateTime end = completedAt != null ? completedAt : LocalDateTime.now();
+        long millis = Math.max(1, Duration.between(startedAt, end).toMillis());
+        return pagesParsed.get() * 1000.0 / millis;
+    }
+    
+    /**
+     * The first changed prices found, for review before applying
+     */
+    public List<Change> getChanges() {
+        synchronized (changes) {
+            return new ArrayList<>(changes);
+        }
+    }
+    
+    public static final class Change {
+        private final Long productId;
+        private final String name;
+        private final Double currentPrice;
+        private final Double extractedPrice;
+        private final String source;
+        
+        Change(Long productId, String name, Double currentPrice, Double extractedPrice, String source) {
+            this.productId = productId;
+            this.name = name;
+            this.currentPrice = currentPrice;
+            this.extractedPrice = extractedPrice;
+            this.source = source;
+        }
+        
+        public Long getProductId() {
+            return productId;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public Double getCurrentPrice() {
+            return currentPrice;
+        }
+        
+        public Double getExtractedPrice() {
+            return extractedPrice;
+        }
+        
+        public String getSource() {
+            return source;
+        }
+    }
+}
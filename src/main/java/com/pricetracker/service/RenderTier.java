@@ -0,0 +1,178 @@
+package com.pricetracker.service;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Second fetch tier for retailers that render prices with client-side scripts.
+ *
+ * The tier is used only for hosts that need it. A host is learned as JS-rendered when its static
+ * page yields no price or only the body-text fallback, and the browser-rendered page then yields
+ * a price from a selector or structured data. From then on its pages skip Jsoup and are rendered
+ * directly. A host where rendering did not help is left alone until {@code app.render.reprobe-hours}
+ * have passed. Hosts can also be listed up front in {@code app.render.hosts}.
+ *
+ * Rendering has its own concurrency limit. A caller that cannot get a permit within
+ * {@code app.render.acquire-timeout-ms} keeps the Jsoup result, so the browser never holds up
+ * the cheap path. Each render then takes a lease from the {@link EgressPool} like a Jsoup fetch,
+ * and the browser loads the page through the leased route.
+ */
+@Component
+public class RenderTier {
+    
+    private static final Logger log = LoggerFactory.getLogger(RenderTier.class);
+    
+    private final PageRenderer renderer;
+    private final EgressPool egressPool;
+    private final PriceTrackerMetrics metrics;
+    private final Semaphore permits;
+    private final Map<String, HostVerdict> verdicts = new ConcurrentHashMap<>();
+    private final Set<String> configuredHosts;
+    
+    @Value("${app.render.acquire-timeout-ms:2000}")
+    private long acquireTimeoutMs;
+    
+    @Value("${app.render.reprobe-hours:24}")
+    private long reprobeHours;
+    
+    public RenderTier(ObjectProvider<PageRenderer> renderer,
+                      EgressPool egressPool,
+                      PriceTrackerMetrics metrics,
+                      @Value("${app.render.max-concurrency:2}") int maxConcurrency,
+                      @Value("${app.render.hosts:}") String hosts) {
+        this.renderer = renderer.getIfAvailable();
+        this.egressPool = egressPool;
+        this.metrics = metrics;
+        this.permits = new Semaphore(Math.max(1, maxConcurrency));
+        this.configuredHosts = Arrays.stream(hosts.split(","))
+                .map(String::trim)
+                .filter(host -> !host.isEmpty())
+                .map(String::toLowerCase)
+                .collect(Collectors.toUnmodifiableSet());
+        if (this.renderer != null) {
+            log.info("Render tier enabled with {} concurrent renders ({} configured hosts)",
+                    permits.availablePermits(), configuredHosts.size());
+        }
+    }
+    
+    public boolean isEnabled() {
+        return renderer != null;
+    }
+    
+    /**
+     * Whether pages of this host are rendered instead of fetched with Jsoup
+     */
+    public boolean needsRendering(String host) {
+        if (renderer == null) {
+            return false;
+        }
+        HostVerdict verdict = verdicts.get(host);
+        return configuredHosts.contains(host) || (verdict != null && verdict.needsJs);
+    }
+    
+    /**
+     * Whether a weak static extraction on this host should be retried on the rendered page
+     */
+    public boolean shouldProbe(String host) {
+        if (renderer == null || configuredHosts.contains(host)) {
+            return false;
+        }
+        HostVerdict verdict = verdicts.get(host);
+        return verdict == null
+                || (!verdict.needsJs && verdict.decidedAt.isBefore(Instant.now().minus(Duration.ofHours(reprobeHours))));
+    }
+    
+    /**
+     * Render a page and parse it, or return null when the tier is disabled, busy or the render fails
+     */
+    public Document render(String url) {
+        if (renderer == null) {
+            return null;
+        }
+        String host = ProductUrls.host(url);
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                metrics.recordRenderBusy(host);
+                log.debug("Render tier busy, keeping the static page of {}", url);
+                return null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        EgressPool.Lease lease = null;
+        Boolean routeWorked = null;
+        long start = System.nanoTime();
+        try {
+            lease = egressPool.acquire(host);
+            start = System.nanoTime();
+            String html = renderer.render(url, lease.getProxy());
+            routeWorked = true;
+            metrics.recordFetchRender(host, true, System.nanoTime() - start);
+            return Jsoup.parse(html, url);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            if (e instanceof IOException io) {
+                routeWorked = EgressPool.outcomeOf(io, lease);
+            }
+            metrics.recordFetchRender(host, false, System.nanoTime() - start);
+            log.warn("Rendering {} failed: {}", url, e.getMessage());
+            // A host still being probed is left alone until the reprobe interval rather than retried on every page
+            verdicts.putIfAbsent(host, new HostVerdict(false, Instant.now()));
+            return null;
+        } finally {
+            if (lease != null) {
+                egressPool.release(lease, routeWorked);
+            }
+            permits.release();
+        }
+    }
+    
+    /**
+     * Record whether rendering produced a better price than the static page for a host
+     */
+    public void learn(String host, boolean needsJs) {
+        HostVerdict previous = verdicts.put(host, new HostVerdict(needsJs, Instant.now()));
+        if (previous == null || previous.needsJs != needsJs) {
+            log.info("Host {} {} client-side rendering", host, needsJs ? "needs" : "does not need");
+        }
+    }
+    
+    /**
+     * Learned verdicts by host: true when the host's pages are rendered
+     */
+    public Map<String, Boolean> learnedHosts() {
+        Map<String, Boolean> hosts = new TreeMap<>();
+        verdicts.forEach((host, verdict) -> hosts.put(host, verdict.needsJs));
+        return hosts;
+    }
+    
+    private static final class HostVerdict {
+        private final boolean needsJs;
+        private final Instant decidedAt;
+        
+        private HostVerdict(boolean needsJs, Instant decidedAt) {
+            this.needsJs = needsJs;
+            this.decidedAt = decidedAt;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.pricetracker.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-memory rolling statistics for one product's prices, updated once per observation:
+ * last price, all-time min/max, an exponential moving average and the minimum over each
+ * day window an alert rule asks for. Every update and query is O(1) (amortized for the windows).
+ * Not thread-safe; {@link AlertRuleEngine} serializes access per product.
+ */
+final class RollingPriceState {
+    
+    private final double emaAlpha;
+    private final List<MinWindow> windows = new ArrayList<>(2);
+    private Double last;
+    private Double min;
+    private Double max;
+    private Double ema;
+    private boolean unavailable;
+    
+    RollingPriceState(double emaAlpha) {
+        this.emaAlpha = emaAlpha;
+    }
+    
+    /**
+     * The window over the last {@code days} days, created on first use
+     */
+    MinWindow window(int days) {
+        for (MinWindow window : windows) {
+            if (window.days == days) {
+                return window;
+            }
+        }
+        MinWindow window = new MinWindow(days);
+        windows.add(window);
+        return window;
+    }
+    
+    void observe(double price, long day) {
+        last = price;
+        min = min == null ? price : Math.min(min, price);
+        max = max == null ? price : Math.max(max, price);
+        ema = ema == null ? price : emaAlpha * price + (1 - emaAlpha) * ema;
+        unavailable = false;
+        for (MinWindow window : windows) {
+            window.add(day, price);
+        }
+    }
+    
+    void markUnavailable() {
+        unavailable = true;
+    }
+    
+    // Warm-up from stored history; a bound is only ever widened
+    void seedRange(Double seenMin, Double seenMax) {
+        if (seenMin != null) {
+            min = min == null ? seenMin : Math.min(min, seenMin);
+        }
+        if (seenMax != null) {
+            max = max == null ? seenMax : Math.max(max, seenMax);
+        }
+    }
+    
+    void seedEma(double price) {
+        ema = ema == null ? price : emaAlpha * price + (1 - emaAlpha) * ema;
+    }
+    
+    // Daily minima must be seeded oldest day first
+    void seedDailyMin(long day, double dailyMin) {
+        for (MinWindow window : windows) {
+            window.add(day, dailyMin);
+        }
+    }
+    
+    void seedLast(Double price, boolean unavailable) {
+        this.last = price;
+        this.unavailable = unavailable;
+    }
+    
+    int maxWindowDays() {
+        int days = 0;
+        for (MinWindow window : windows) {
+            days = Math.max(days, window.days);
+        }
+        return days;
+    }
+    
+    Double last() {
+        return last;
+    }
+    
+    Double min() {
+        return min;
+    }
+    
+    Double max() {
+        return max;
+    }
+    
+    Double ema() {
+        return ema;
+    }
+    
+    boolean unavailable() {
+        return unavailable;
+    }
+    
+    /**
+     * Sliding minimum over the last {@code days} days as a monotonic queue of (day, minimum)
+     * pairs held in ring arrays: days increase and minima strictly increase from head to tail,
+     * so the head is the window minimum. Each pair is added and evicted at most once.
+     */
+    static final class MinWindow {
+        private final int days;
+        private final long[] dayOf;
+        private final double[] minOf;
+        private int head;
+        private int size;
+        
+        MinWindow(int days) {
+            this.days = days;
+            // At most one entry per day in [today - days, today]
+            this.dayOf = new long[days + 1];
+            this.minOf = new double[days + 1];
+        }
+        
+        /**
+         * Lowest price seen from {@code days} days before {@code today} on, or null if none
+         */
+        Double min(long today) {
+            evict(today);
+            return size == 0 ? null : minOf[head];
+        }
+        
+        void add(long day, double price) {
+            if (size > 0) {
+                // Keep days ordered even if the clock steps back
+                day = Math.max(day, dayOf[index(size - 1)]);
+            }
+            evict(day);
+            // Entries not lower than the new price can never be the minimum again
+            while (size > 0 && minOf[index(size - 1)] >= price) {
+                size--;
+            }
+            if (size > 0 && dayOf[index(size - 1)] == day) {
+                return;
+            }
+            int tail = index(size);
+            dayOf[tail] = day;
+            minOf[tail] = price;
+            size++;
+        }
+        
+        private void evict(long today) {
+            while (size > 0 && dayOf[head] < today - days) {
+                head = (head + 1) % dayOf.length;
+                size--;
+            }
+        }
+        
+        private int index(int offset) {
+            return (head + offset) % dayOf.length;
+        }
+    }
+}
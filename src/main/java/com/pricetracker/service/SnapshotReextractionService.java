@@ -0,0 +1,218 @@
+package com.pricetracker.service;
+
+import com.pricetracker.model.Product;
+import com.pricetracker.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Re-runs price extraction over the stored page snapshots, without any network access.
+ *
+ * Products are grouped by canonical URL so each snapshot is decompressed and parsed once, and
+ * the groups are split across a fork-join pool. By default a job only reports the prices that
+ * would change; with {@code apply} it records them as corrections at the snapshot's fetch time,
+ * without sending alerts or counting as a check. Only one applying job runs at a time.
+ */
+@Service
+public class SnapshotReextractionService {
+    
+    private static final Logger log = LoggerFactory.getLogger(SnapshotReextractionService.class);
+    
+    private static final int MAX_RETAINED_JOBS = 20;
+    // Pages per fork-join leaf: parsing one page is large enough work to split finely
+    private static final int PAGES_PER_TASK = 4;
+    
+    private final ProductRepository productRepository;
+    private final PageSnapshotStore snapshotStore;
+    private final PriceExtractor priceExtractor;
+    private final PriceEventLog priceEventLog;
+    private final ForkJoinPool pool;
+    private final Map<String, ReextractionJob> jobs = new ConcurrentHashMap<>();
+    
+    public SnapshotReextractionService(ProductRepository productRepository,
+                                       PageSnapshotStore snapshotStore,
+                                       PriceExtractor priceExtractor,
+                                       PriceEventLog priceEventLog,
+                                       @Value("${app.snapshots.reextract-parallelism:0}") int parallelism) {
+        this.productRepository = productRepository;
+        this.snapshotStore = snapshotStore;
+        this.priceExtractor = priceExtractor;
+        this.priceEventLog = priceEventLog;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+    
+    /**
+     * Start a re-extraction of every product (or those on one host) and return its job at once.
+     * Throws {@link IllegalStateException} if snapshots are disabled, or if {@code apply} is set
+     * while another applying job is still running.
+     */
+    public synchronized ReextractionJob start(String host, boolean apply) {
+        if (!snapshotStore.isEnabled()) {
+            throw new IllegalStateException("Page snapshots are disabled (app.snapshots.enabled=false)");
+        }
+        if (apply) {
+            for (ReextractionJob running : jobs.values()) {
+                if (running.isApply() && !running.isFinished()) {
+                    throw new IllegalStateException("Re-extraction " + running.getId() + " is already applying prices");
+                }
+            }
+        }
+        ReextractionJob job = new ReextractionJob(UUID.randomUUID().toString(), host, apply);
+        registerJob(job);
+        pool.execute(() -> run(job));
+        return job;
+    }
+    
+    public ReextractionJob getJob(String id) {
+        return jobs.get(id);
+    }
+    
+    private void run(ReextractionJob job) {
+        try {
+            Map<String, List<Product>> pages = new LinkedHashMap<>();
+            int products = 0;
+            for (Product product : productRepository.findAll()) {
+                if (job.getHost() == null || job.getHost().equalsIgnoreCase(ProductUrls.host(product.getUrl()))) {
+                    pages.computeIfAbsent(ProductUrls.canonicalize(product.getUrl()), key -> new ArrayList<>()).add(product);
+                    products++;
+                }
+            }
+            job.start(products, pages.size());
+            // Invoked from a pool worker, so the task forks into the same pool
+            new PagesTask(job, new ArrayList<>(pages.values()), 0, pages.size()).invoke();
+            job.markCompleted();
+            log.info("Re-extraction {}: {} pages parsed at {}/s, {} prices changed ({} applied), {} unchanged, {} no price, {} without snapshot",
+                    job.getId(), job.getPagesParsed(), Math.round(job.getPagesPerSecond()), job.getChanged(),
+                    job.getApplied(), job.getUnchanged(), job.getNoPrice(), job.getMissingSnapshot());
+        } catch (Exception e) {
+            log.error("Re-extraction {} failed: {}", job.getId(), e.getMessage(), e);
+            job.markFailed("Re-extraction failed: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Parse one snapshot and extract for every product sharing it, once per distinct selector
+     */
+    private void reextract(ReextractionJob job, List<Product> group) {
+        Product first = group.get(0);
+        PageSnapshotStore.Snapshot snapshot = snapshotStore.latest(first.getUrl()).orElse(null);
+        if (snapshot == null) {
+            job.missingSnapshotCounter().addAndGet(group.size());
+            return;
+        }
+        Document doc;
+        try {
+            byte[] body = snapshotStore.read(snapshot);
+            doc = Jsoup.parse(new ByteArrayInputStream(body), snapshot.getCharset(), first.getUrl());
+        } catch (IOException e) {
+            log.debug("Could not read snapshot {} of {}: {}", snapshot.getHash(), first.getUrl(), e.getMessage());
+            job.unreadableCounter().addAndGet(group.size());
+            return;
+        }
+        job.pagesParsedCounter().incrementAndGet();
+        LocalDateTime fetchedAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(snapshot.getFetchedAt()), ZoneId.systemDefault());
+        
+        Map<String, PriceExtractor.Extraction> extractionsBySelector = new HashMap<>();
+        for (Product product : group) {
+            String selector = product.getPriceSelector() == null ? "" : product.getPriceSelector();
+            PriceExtractor.Extraction extraction = extractionsBySelector.computeIfAbsent(selector,
+                    s -> priceExtractor.extract(doc, product));
+            Double price = extraction.getPrice();
+            if (price == null || price <= 0) {
+                job.noPriceCounter().incrementAndGet();
+            } else if (product.getCurrentPrice() != null && Math.abs(product.getCurrentPrice() - price) < 0.005) {
+                job.unchangedCounter().incrementAndGet();
+            } else {
+                job.recordChange(new ReextractionJob.Change(product.getId(), product.getName(),
+                        product.getCurrentPrice(), price, extraction.getSource()));
+                if (job.isApply() && priceEventLog.applyCorrection(product.getId(), price, fetchedAt,
+                        () -> isLatest(snapshot))) {
+                    job.appliedCounter().incrementAndGet();
+                }
+            }
+        }
+    }
+    
+    // A check stores its page before recording the price, so a newer price implies a newer snapshot
+    private boolean isLatest(PageSnapshotStore.Snapshot snapshot) {
+        return snapshotStore.latest(snapshot.getUrl())
+                .map(latest -> latest.getFetchedAt() <= snapshot.getFetchedAt())
+                .orElse(true);
+    }
+    
+    private void registerJob(ReextractionJob job) {
+        jobs.put(job.getId(), job);
+        if (jobs.size() > MAX_RETAINED_JOBS) {
+            // Forget the oldest finished jobs so the registry stays bounded
+            Map<String, ReextractionJob> finished = new LinkedHashMap<>();
+            jobs.values().stream()
+                    .filter(ReextractionJob::isFinished)
+                    .sorted((a, b) -> a.getStartedAt().compareTo(b.getStartedAt()))
+                    .forEach(j -> finished.put(j.getId(), j));
+            Iterator<String> it = finished.keySet().iterator();
+            while (jobs.size() > MAX_RETAINED_JOBS && it.hasNext()) {
+                jobs.remove(it.next());
+            }
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+    
+    /**
+     * Splits a range of page groups in halves until it is small enough to process directly
+     */
+    private final class PagesTask extends RecursiveAction {
+        private final ReextractionJob job;
+        private final List<List<Product>> groups;
+        private final int from;
+        private final int to;
+        
+        private PagesTask(ReextractionJob job, List<List<Product>> groups, int from, int to) {
+            this.job = job;
+            this.groups = groups;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from <= PAGES_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    try {
+                        reextract(job, groups.get(i));
+                    } catch (Exception e) {
+                        log.warn("Re-extraction failed for {}: {}", groups.get(i).get(0).getUrl(), e.getMessage());
+                        job.unreadableCounter().addAndGet(groups.get(i).size());
+                    }
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new PagesTask(job, groups, from, middle), new PagesTask(job, groups, middle, to));
+        }
+    }
+}
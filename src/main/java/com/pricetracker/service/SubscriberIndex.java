@@ -0,0 +1,144 @@
+package com.pricetracker.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * The subscribers of one product, sorted by target price and split by alert state.
+ *
+ * A subscriber is alerted when the price falls below its target and re-armed once the price is
+ * back at or above it. Keeping the two states in separate trees keyed by target turns both checks
+ * into range queries: a new price alerts the waiting subscribers with {@code target > price} and
+ * re-arms the notified ones with {@code target <= price}, in O(log n + hits) instead of a scan of
+ * every subscriber. Not thread-safe.
+ */
+public final class SubscriberIndex {
+    
+    // Not yet alerted for the current dip, by target price
+    private final TreeMap<Double, List<Subscriber>> waiting = new TreeMap<>();
+    // Alerted, waiting for the price to climb back to the target
+    private final TreeMap<Double, List<Subscriber>> notified = new TreeMap<>();
+    private int size;
+    
+    public void add(Subscriber subscriber, boolean targetNotified) {
+        (targetNotified ? notified : waiting).computeIfAbsent(subscriber.targetPrice, t -> new ArrayList<>(1)).add(subscriber);
+        size++;
+    }
+    
+    public boolean remove(long subscriptionId, double targetPrice) {
+        return removeFrom(waiting, subscriptionId, targetPrice) || removeFrom(notified, subscriptionId, targetPrice);
+    }
+    
+    /**
+     * Move the waiting subscribers whose target is above {@code price} to notified and return them
+     */
+    public List<Subscriber> crossedBelow(double price) {
+        return move(waiting.tailMap(price, false), notified);
+    }
+    
+    /**
+     * Move the notified subscribers whose target is at or below {@code price} back to waiting and return them
+     */
+    public List<Subscriber> rearmed(double price) {
+        return move(notified.headMap(price, true), waiting);
+    }
+    
+    /**
+     * Undo a {@link #crossedBelow}/{@link #rearmed} pair whose state change could not be stored
+     */
+    public void revert(List<Subscriber> crossed, List<Subscriber> rearmed) {
+        for (Subscriber subscriber : crossed) {
+            if (removeFrom(notified, subscriber.id, subscriber.targetPrice)) {
+                add(subscriber, false);
+            }
+        }
+        for (Subscriber subscriber : rearmed) {
+            if (removeFrom(waiting, subscriber.id, subscriber.targetPrice)) {
+                add(subscriber, true);
+            }
+        }
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    private boolean removeFrom(TreeMap<Double, List<Subscriber>> tree, long subscriptionId, double targetPrice) {
+        List<Subscriber> atTarget = tree.get(targetPrice);
+        if (atTarget == null) {
+            return false;
+        }
+        for (Iterator<Subscriber> it = atTarget.iterator(); it.hasNext(); ) {
+            if (it.next().id == subscriptionId) {
+                it.remove();
+                if (atTarget.isEmpty()) {
+                    tree.remove(targetPrice);
+                }
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static List<Subscriber> move(NavigableMap<Double, List<Subscriber>> range, TreeMap<Double, List<Subscriber>> to) {
+        if (range.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<Subscriber> moved = new ArrayList<>();
+        for (Map.Entry<Double, List<Subscriber>> entry : range.entrySet()) {
+            moved.addAll(entry.getValue());
+            List<Subscriber> existing = to.putIfAbsent(entry.getKey(), entry.getValue());
+            if (existing != null) {
+                existing.addAll(entry.getValue());
+            }
+        }
+        // Clearing the view removes the moved entries from the source tree
+        range.clear();
+        return moved;
+    }
+    
+    /**
+     * The parts of a subscription needed to match and notify, kept small for products with many watchers
+     */
+    public static final class Subscriber {
+        private final long id;
+        private final double targetPrice;
+        private final String email;
+        private final boolean notifyEmail;
+        private final boolean notifyDesktop;
+        
+        public Subscriber(long id, double targetPrice, String email, boolean notifyEmail, boolean notifyDesktop) {
+            this.id = id;
+            this.targetPrice = targetPrice;
+            this.email = email;
+            this.notifyEmail = notifyEmail;
+            this.notifyDesktop = notifyDesktop;
+        }
+        
+        public long getId() {
+            return id;
+        }
+        
+        public double getTargetPrice() {
+            return targetPrice;
+        }
+        
+        public String getEmail() {
+            return email;
+        }
+        
+        public boolean isNotifyEmail() {
+            return notifyEmail;
+        }
+        
+        public boolean isNotifyDesktop() {
+            return notifyDesktop;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.pricetracker.service;
+
+import com.pricetracker.model.PriceEvent;
+import com.pricetracker.model.Product;
+import com.pricetracker.model.Subscription;
+import com.pricetracker.repository.ProductRepository;
+import com.pricetracker.repository.SubscriptionRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-user subscriptions on shared products.
+ *
+ * Every product with subscribers has a {@link SubscriberIndex} in memory, so matching a new price
+ * against all of a product's subscribers costs O(log n + hits). Alert state changes are written
+ * back with bulk updates on the checking thread, in one transaction with a pending alert per email
+ * subscriber in the {@link PriceEventLog}; the index only moves once that has committed. The
+ * notifications themselves fan out on a small pool, emails in batches sharing one mail session,
+ * so a product with tens of thousands of watchers does not hold up the price check pass. Each
+ * alert is acknowledged once its email was sent; the event log retries the rest.
+ */
+@Service
+public class SubscriptionService {
+    
+    private static final Logger log = LoggerFactory.getLogger(SubscriptionService.class);
+    
+    // Keeps IN lists of the bulk updates within what databases accept comfortably
+    private static final int UPDATE_CHUNK = 1000;
+    
+    private final SubscriptionRepository subscriptionRepository;
+    private final ProductRepository productRepository;
+    private final ProductSearchService productSearchService;
+    private final EmailNotificationService emailNotificationService;
+    private final DesktopNotificationService desktopNotificationService;
+    private final PriceEventLog priceEventLog;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService fanoutExecutor;
+    private final Map<Long, SubscriberIndex> indexes = new ConcurrentHashMap<>();
+    
+    // Emails sent per mail session during a fan-out
+    @Value("${app.subscriptions.email-batch-size:100}")
+    private int emailBatchSize;
+    
+    public SubscriptionService(SubscriptionRepository subscriptionRepository,
+                               ProductRepository productRepository,
+                               ProductSearchService productSearchService,
+                               @Lazy EmailNotificationService emailNotificationService,
+                               @Lazy DesktopNotificationService desktopNotificationService,
+                               PriceEventLog priceEventLog,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.subscriptions.fanout-threads:4}") int fanoutThreads) {
+        this.subscriptionRepository = subscriptionRepository;
+        this.productRepository = productRepository;
+        this.productSearchService = productSearchService;
+        this.emailNotificationService = emailNotificationService;
+        this.desktopNotificationService = desktopNotificationService;
+        this.priceEventLog = priceEventLog;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.fanoutExecutor = Executors.newFixedThreadPool(fanoutThreads, runnable -> {
+            Thread thread = new Thread(runnable, "subscription-fanout-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadSubscriptions() {
+        long start = System.nanoTime();
+        indexes.clear();
+        int count = 0;
+        for (Subscription subscription : subscriptionRepository.findByActiveTrue()) {
+            index(subscription);
+            count++;
+        }
+        log.info("Indexed {} subscriptions on {} products in {}ms", count, indexes.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    /**
+     * Match a new price against the product's subscribers, persist their alert state with the
+     * pending alerts and queue the notifications
+     */
+    void onPrice(Product product, double price) {
+        SubscriberIndex index = indexes.get(product.getId());
+        if (index == null) {
+            return;
+        }
+        List<SubscriberIndex.Subscriber> crossed;
+        List<PriceEvent> alerts;
+        synchronized (index) {
+            crossed = index.crossedBelow(price);
+            List<SubscriberIndex.Subscriber> rearmed = index.rearmed(price);
+            if (crossed.isEmpty() && rearmed.isEmpty()) {
+                return;
+            }
+            try {
+                alerts = transactionTemplate.execute(status -> {
+                    updateTargetNotified(crossed, true);
+                    updateTargetNotified(rearmed, false);
+                    return priceEventLog.recordSubscriberAlerts(product, price, emailSubscribers(crossed));
+                });
+            } catch (RuntimeException e) {
+                // Nothing was stored; the next price is matched against the old state again
+                index.revert(crossed, rearmed);
+                throw e;
+            }
+        }
+        if (!crossed.isEmpty()) {
+            log.info("Price of {} (₹{}) is below the target of {} subscriptions", product.getName(), price, crossed.size());
+            fanoutExecutor.execute(() -> notifySubscribers(product, price, crossed, alerts));
+        }
+    }
+    
+    public List<Subscription> getSubscriptions(Long productId) {
+        return subscriptionRepository.findByProductIdOrderById(productId);
+    }
+    
+    /**
+     * Subscribe to a product
+     */
+    public Subscription subscribe(Product product, Subscription subscription) {
+        if (subscription.getTargetPrice() == null || subscription.getTargetPrice() <= 0) {
+            throw new IllegalArgumentException("A positive targetPrice is required");
+        }
+        subscription.setId(null);
+        subscription.setProductId(product.getId());
+        subscription.setTargetNotified(false);
+        Subscription saved = subscriptionRepository.save(subscription);
+        if (Boolean.TRUE.equals(saved.getActive())) {
+            index(saved);
+        }
+        return saved;
+    }
+    
+    /**
+     * Subscribe to the product at {@code url}, reusing an existing product whose URL has the same
+     * canonical form so it is still fetched once. A new product takes the subscriber's target.
+     */
+    public Subscription subscribe(String url, String name, Subscription subscription) {
+        Product product = null;
+        for (Long id : productSearchService.productsWithCanonicalUrl(ProductUrls.canonicalize(url))) {
+            product = productRepository.findById(id).orElse(null);
+            if (product != null) {
+                break;
+            }
+        }
+        if (product == null) {
+            if (subscription.getTargetPrice() == null || subscription.getTargetPrice() <= 0) {
+                throw new IllegalArgumentException("A positive targetPrice is required");
+            }
+            product = new Product();
+            product.setName(name != null && !name.isBlank() ? name : url);
+            product.setUrl(url);
+            product.setTargetPrice(subscription.getTargetPrice());
+            product.setCurrentPrice(0.0);
+            product = productRepository.save(product);
+            productSearchService.productChanged(product);
+        }
+        return subscribe(product, subscription);
+    }
+    
+    /**
+     * Delete a subscription; returns false if it does not exist
+     */
+    public boolean unsubscribe(Long subscriptionId) {
+        Optional<Subscription> subscription = subscriptionRepository.findById(subscriptionId);
+        if (subscription.isEmpty()) {
+            return false;
+        }
+        subscriptionRepository.deleteById(subscriptionId);
+        SubscriberIndex index = indexes.get(subscription.get().getProductId());
+        if (index != null) {
+            synchronized (index) {
+                index.remove(subscriptionId, subscription.get().getTargetPrice());
+            }
+        }
+        return true;
+    }
+    
+    public void deleteProduct(Long productId) {
+        subscriptionRepository.deleteByProductId(productId);
+        indexes.remove(productId);
+    }
+    
+    private void index(Subscription subscription) {
+        SubscriberIndex index = indexes.computeIfAbsent(subscription.getProductId(), id -> new SubscriberIndex());
+        synchronized (index) {
+            index.add(new SubscriberIndex.Subscriber(subscription.getId(), subscription.getTargetPrice(),
+                    subscription.getEmail(), Boolean.TRUE.equals(subscription.getNotifyEmail()),
+                    Boolean.TRUE.equals(subscription.getNotifyDesktop())),
+                    Boolean.TRUE.equals(subscription.getTargetNotified()));
+        }
+    }
+    
+    private void updateTargetNotified(List<SubscriberIndex.Subscriber> subscribers, boolean notified) {
+        List<Long> ids = new ArrayList<>(Math.min(subscribers.size(), UPDATE_CHUNK));
+        for (SubscriberIndex.Subscriber subscriber : subscribers) {
+            ids.add(subscriber.getId());
+            if (ids.size() == UPDATE_CHUNK) {
+                subscriptionRepository.updateTargetNotified(ids, notified);
+                ids.clear();
+            }
+        }
+        if (!ids.isEmpty()) {
+            subscriptionRepository.updateTargetNotified(ids, notified);
+        }
+    }
+    
+    private static List<SubscriberIndex.Subscriber> emailSubscribers(List<SubscriberIndex.Subscriber> subscribers) {
+        List<SubscriberIndex.Subscriber> email = new ArrayList<>(subscribers.size());
+        for (SubscriberIndex.Subscriber subscriber : subscribers) {
+            if (subscriber.isNotifyEmail()) {
+                email.add(subscriber);
+            }
+        }
+        return email;
+    }
+    
+    private void notifySubscribers(Product product, double price, List<SubscriberIndex.Subscriber> subscribers,
+                                   List<PriceEvent> alerts) {
+        long start = System.nanoTime();
+        Map<Long, PriceEvent> alertBySubscription = new HashMap<>(alerts.size() * 2);
+        for (PriceEvent alert : alerts) {
+            alertBySubscription.put(alert.getSubscriptionId(), alert);
+        }
+        List<SubscriberIndex.Subscriber> batch = new ArrayList<>(emailBatchSize);
+        List<PriceEvent> batchAlerts = new ArrayList<>(emailBatchSize);
+        int desktop = 0;
+        int sent = 0;
+        for (SubscriberIndex.Subscriber subscriber : subscribers) {
+            if (subscriber.isNotifyDesktop()) {
+                desktop++;
+            }
+            PriceEvent alert = alertBySubscription.get(subscriber.getId());
+            if (alert != null) {
+                batch.add(subscriber);
+                batchAlerts.add(alert);
+                if (batch.size() >= emailBatchSize) {
+                    sent += sendBatch(product, price, batch, batchAlerts);
+                    batch.clear();
+                    batchAlerts.clear();
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            sent += sendBatch(product, price, batch, batchAlerts);
+        }
+        // The tray is local to this machine, so one notification covers every desktop subscriber
+        if (desktop > 0) {
+            desktopNotificationService.showSubscriptionNotification(product, price, desktop);
+        }
+        log.debug("Notified {} subscribers of {} ({} emails sent) in {}ms", subscribers.size(), product.getName(),
+                sent, (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    // Send one batch and acknowledge its alerts; returns the number of emails sent
+    private int sendBatch(Product product, double price, List<SubscriberIndex.Subscriber> batch, List<PriceEvent> alerts) {
+        List<EmailNotificationService.Delivery> deliveries;
+        try {
+            deliveries = emailNotificationService.sendSubscriptionNotifications(product, price, batch);
+            priceEventLog.acknowledge(alerts, deliveries);
+        } catch (Exception e) {
+            log.error("Failed to notify {} subscribers of {}: {}", batch.size(), product.getName(), e.getMessage());
+            return 0;
+        }
+        return (int) deliveries.stream().filter(delivery -> delivery == EmailNotificationService.Delivery.SENT).count();
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        fanoutExecutor.shutdown();
+    }
+}
@@ -0,0 +1,505 @@
+package com.pricetracker.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Local thumbnails of product images, so the dashboard never loads images from retailer CDNs.
+ *
+ * The image URL comes from the product page's {@code og:image} (or {@code twitter:image}) meta
+ * tag, read while the page is parsed for its price. Each image is downloaded once, scaled to fit
+ * {@code app.thumbnails.size} pixels and stored as a JPEG named by the SHA-256 of its URL, so
+ * products sharing an image share the file. Thumbnails are only ever generated in the background,
+ * prefetched by price checks and by pages that would show one; until then pages show none. Above
+ * {@code app.thumbnails.max-bytes}, the least recently used files are deleted down to 90%.
+ */
+@Service
+public class ThumbnailService {
+    
+    private static final Logger log = LoggerFactory.getLogger(ThumbnailService.class);
+    
+    private static final String SUFFIX = ".jpg";
+    private static final Pattern KEY = Pattern.compile("[0-9a-f]{64}");
+    private static final List<String> IMAGE_META = List.of(
+            "meta[property=og:image]", "meta[property=og:image:secure_url]", "meta[name=twitter:image]");
+    // Fits the default length of the products.image_url column
+    private static final int MAX_IMAGE_URL_LENGTH = 255;
+    // Larger images are refused before decoding: 40 megapixels already take 160 MB as pixels
+    private static final long MAX_SOURCE_PIXELS = 40_000_000L;
+    // A failed image is not tried again for this long
+    private static final long RETRY_FAILED_MS = TimeUnit.HOURS.toMillis(1);
+    // Expired failures are swept once this many are recorded
+    private static final int SWEEP_FAILED_SIZE = 1000;
+    // Serving a file refreshes its modification time, the eviction order, at most this often
+    private static final long TOUCH_INTERVAL_MS = TimeUnit.HOURS.toMillis(1);
+    
+    private final boolean enabled;
+    private final Path root;
+    private final int size;
+    private final float quality;
+    private final int maxDownloadBytes;
+    private final long maxBytes;
+    private final EgressPool egressPool;
+    private final ThreadPoolExecutor prefetcher;
+    // Keys of the images being generated
+    private final Set<String> downloads = ConcurrentHashMap.newKeySet();
+    private final Map<String, Long> failedUntil = new ConcurrentHashMap<>();
+    private final AtomicLong storedBytes = new AtomicLong();
+    // Bumped whenever the set of stored thumbnails changes, so cached pages can be revalidated
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong generated = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    
+    public ThumbnailService(@Value("${app.thumbnails.enabled:true}") boolean enabled,
+                            @Value("${app.thumbnails.dir:./data/thumbnails}") String dir,
+                            @Value("${app.thumbnails.size:240}") int size,
+                            @Value("${app.thumbnails.quality:0.8}") float quality,
+                            @Value("${app.thumbnails.max-download-bytes:5242880}") int maxDownloadBytes,
+                            @Value("${app.thumbnails.max-bytes:104857600}") long maxBytes,
+                            @Value("${app.thumbnails.prefetch-threads:2}") int prefetchThreads,
+                            EgressPool egressPool) {
+        this.enabled = enabled;
+        this.root = Paths.get(dir);
+        this.size = Math.max(16, size);
+        this.quality = Math.max(0.1f, Math.min(1.0f, quality));
+        this.maxDownloadBytes = maxDownloadBytes;
+        this.maxBytes = maxBytes;
+        this.egressPool = egressPool;
+        AtomicInteger threadCount = new AtomicInteger();
+        int threads = Math.max(1, prefetchThreads);
+        // Prefetches beyond the queue are dropped; the next check of the product asks again
+        this.prefetcher = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1000), runnable -> {
+                    Thread thread = new Thread(runnable, "thumbnail-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+    
+    @PostConstruct
+    void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Files.createDirectories(root);
+        try (Stream<Path> files = thumbnailFiles()) {
+            files.forEach(file -> storedBytes.addAndGet(sizeOf(file)));
+        }
+    }
+    
+    @PreDestroy
+    void close() {
+        prefetcher.shutdownNow();
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * The product image URL a page declares in its Open Graph or Twitter card meta tags, or null
+     */
+    public static String imageUrl(Document doc) {
+        for (String selector : IMAGE_META) {
+            Element meta = doc.head().selectFirst(selector);
+            if (meta == null) {
+                continue;
+            }
+            String url = meta.absUrl("content");
+            if (isFetchable(url)) {
+                return url;
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Path the thumbnail of a product's image is served at, or null when it is not stored yet.
+     * A missing thumbnail is prefetched, so a later page view can show it.
+     */
+    public String path(Long productId, String imageUrl) {
+        if (!enabled || productId == null || !isFetchable(imageUrl)) {
+            return null;
+        }
+        String key = key(imageUrl);
+        if (!Files.exists(thumbnailPath(key))) {
+            prefetch(imageUrl);
+            return null;
+        }
+        return "/thumbnails/" + productId + "/" + key + SUFFIX;
+    }
+    
+    /**
+     * Whether the key is the thumbnail key of this image URL
+     */
+    public static boolean isKeyOf(String key, String imageUrl) {
+        return isFetchable(imageUrl) && key(imageUrl).equals(key);
+    }
+    
+    /**
+     * The stored thumbnail with this key, or null if it has not been generated
+     */
+    public Path cached(String key) {
+        if (!enabled || !KEY.matcher(key).matches()) {
+            return null;
+        }
+        Path file = thumbnailPath(key);
+        try {
+            long now = System.currentTimeMillis();
+            if (now - Files.getLastModifiedTime(file).toMillis() > TOUCH_INTERVAL_MS) {
+                Files.setLastModifiedTime(file, FileTime.fromMillis(now));
+            }
+            return file;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            return Files.exists(file) ? file : null;
+        }
+    }
+    
+    /**
+     * Generate an image's thumbnail in the background unless it is stored, being generated or
+     * recently failed
+     */
+    public void prefetch(String imageUrl) {
+        if (!enabled || !isFetchable(imageUrl)) {
+            return;
+        }
+        String key = key(imageUrl);
+        if (downloads.contains(key) || recentlyFailed(key) || Files.exists(thumbnailPath(key))) {
+            return;
+        }
+        prefetcher.execute(() -> thumbnail(imageUrl, key));
+    }
+    
+    /**
+     * Changes whenever a thumbnail is written or evicted
+     */
+    public long generation() {
+        return generation.get();
+    }
+    
+    public Stats stats() {
+        return new Stats(enabled, storedBytes.get(), maxBytes, generated.get(), failed.get());
+    }
+    
+    /**
+     * Download and scale an image unless it is stored or already being generated. Runs on the
+     * prefetch threads only, so no request ever waits for a retailer CDN.
+     */
+    private void thumbnail(String imageUrl, String key) {
+        if (!downloads.add(key)) {
+            return;
+        }
+        try {
+            // Another prefetch may have finished between the check in prefetch and taking the download
+            if (!Files.exists(thumbnailPath(key))) {
+                generate(imageUrl, key);
+            }
+        } finally {
+            downloads.remove(key);
+        }
+    }
+    
+    private void generate(String imageUrl, String key) {
+        long start = System.nanoTime();
+        try {
+            byte[] image = download(imageUrl);
+            byte[] thumbnail = scale(image);
+            Path target = thumbnailPath(key);
+            Files.createDirectories(target.getParent());
+            Path temp = Files.createTempFile(target.getParent(), key, ".tmp");
+            try {
+                Files.write(temp, thumbnail);
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            storedBytes.addAndGet(thumbnail.length);
+            generated.incrementAndGet();
+            generation.incrementAndGet();
+            failedUntil.remove(key);
+            log.debug("Thumbnail of {}: {} KB image to {} bytes in {}ms", imageUrl, image.length / 1024,
+                    thumbnail.length, (System.nanoTime() - start) / 1_000_000);
+            if (storedBytes.get() > maxBytes) {
+                evict();
+            }
+        } catch (IOException e) {
+            failed.incrementAndGet();
+            long now = System.currentTimeMillis();
+            if (failedUntil.size() >= SWEEP_FAILED_SIZE) {
+                // Images that are never asked for again would otherwise keep their entries forever
+                failedUntil.values().removeIf(until -> until <= now);
+            }
+            failedUntil.put(key, now + RETRY_FAILED_MS);
+            log.warn("Could not make a thumbnail of {}: {}", imageUrl, e.getMessage());
+        }
+    }
+    
+    /**
+     * Download an image through the egress pool, like page fetches
+     */
+    private byte[] download(String imageUrl) throws IOException {
+        String host = ProductUrls.host(imageUrl);
+        EgressPool.Lease lease;
+        try {
+            lease = egressPool.acquire(host);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for an egress route to " + host);
+        }
+        Boolean routeWorked = null;
+        try {
+            Connection connection = Jsoup.connect(imageUrl)
+                    .userAgent(PriceTrackingService.DEFAULT_USER_AGENT)
+                    .timeout(15000)
+                    .followRedirects(true)
+                    .ignoreContentType(true)
+                    .maxBodySize(maxDownloadBytes);
+            if (lease.getProxy() != null) {
+                connection.proxy(lease.getProxy());
+            }
+            byte[] body = connection.execute().bodyAsBytes();
+            routeWorked = true;
+            return body;
+        } catch (IOException e) {
+            routeWorked = EgressPool.outcomeOf(e, lease);
+            throw e;
+        } finally {
+            egressPool.release(lease, routeWorked);
+        }
+    }
+    
+    /**
+     * Decode an image and scale it to fit the thumbnail size, as a JPEG. Large images are
+     * subsampled while decoding, so only about twice the thumbnail's pixels are ever decoded.
+     */
+    private byte[] scale(byte[] image) throws IOException {
+        BufferedImage source;
+        try (ImageInputStream in = new MemoryCacheImageInputStream(new ByteArrayInputStream(image))) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                throw new IOException("Unsupported image format (" + image.length + " bytes)");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_SOURCE_PIXELS) {
+                    throw new IOException("Image too large: " + width + "x" + height);
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.max(width, height) / (size * 2));
+                param.setSourceSubsampling(step, step, 0, 0);
+                source = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unreadable image: " + e.getMessage());
+        }
+        
+        double ratio = Math.min(1.0, (double) size / Math.max(source.getWidth(), source.getHeight()));
+        int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+        BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = thumbnail.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            // Transparent areas of PNG and GIF images become white, the usual product page background
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+        try (ImageOutputStream stream = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(stream);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            writer.write(null, new IIOImage(thumbnail, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+    
+    /**
+     * Delete the least recently used thumbnails until the cache is at 90% of its limit. One
+     * eviction runs at a time.
+     */
+    private void evict() throws IOException {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            long target = maxBytes / 10 * 9;
+            List<Path> candidates;
+            try (Stream<Path> files = thumbnailFiles()) {
+                candidates = files.sorted(Comparator.comparing(ThumbnailService::modifiedMillis)).toList();
+            }
+            int deleted = 0;
+            for (Path file : candidates) {
+                if (storedBytes.get() <= target) {
+                    break;
+                }
+                long fileSize = sizeOf(file);
+                try {
+                    Files.delete(file);
+                    storedBytes.addAndGet(-fileSize);
+                    deleted++;
+                } catch (NoSuchFileException e) {
+                    // Already gone
+                }
+            }
+            generation.incrementAndGet();
+            log.info("Evicted {} thumbnails; cache is now {} MB", deleted, storedBytes.get() / (1024 * 1024));
+        } finally {
+            evicting.set(false);
+        }
+    }
+    
+    private boolean recentlyFailed(String key) {
+        Long until = failedUntil.get(key);
+        if (until == null) {
+            return false;
+        }
+        if (until > System.currentTimeMillis()) {
+            return true;
+        }
+        failedUntil.remove(key, until);
+        return false;
+    }
+    
+    private static boolean isFetchable(String url) {
+        return url != null && url.length() <= MAX_IMAGE_URL_LENGTH
+                && (url.startsWith("https://") || url.startsWith("http://"));
+    }
+    
+    private static String key(String imageUrl) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(imageUrl.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private Stream<Path> thumbnailFiles() throws IOException {
+        return Files.walk(root, 2).filter(file -> file.getFileName().toString().endsWith(SUFFIX));
+    }
+    
+    private Path thumbnailPath(String key) {
+        return root.resolve(key.substring(0, 2)).resolve(key + SUFFIX);
+    }
+    
+    private static long sizeOf(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+    
+    private static long modifiedMillis(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+    
+    public static final class Stats {
+        private final boolean enabled;
+        private final long storedBytes;
+        private final long maxBytes;
+        private final long generated;
+        private final long failed;
+        
+        private Stats(boolean enabled, long storedBytes, long maxBytes, long generated, long failed) {
+            this.enabled = enabled;
+            this.storedBytes = storedBytes;
+            this.maxBytes = maxBytes;
+            this.generated = generated;
+            this.failed = failed;
+        }
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public long getStoredBytes() {
+            return storedBytes;
+        }
+        
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+        
+        public long getGenerated() {
+            return generated;
+        }
+        
+        public long getFailed() {
+            return failed;
+        }
+    }
+}
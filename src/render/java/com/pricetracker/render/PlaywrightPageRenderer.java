@@ -0,0 +1,233 @@
+package com.pricetracker.render;
+
+import com.microsoft.playwright.Browser;
+import com.microsoft.playwright.BrowserContext;
+import com.microsoft.playwright.BrowserType;
+import com.microsoft.playwright.Page;
+import com.microsoft.playwright.Playwright;
+import com.microsoft.playwright.PlaywrightException;
+import com.microsoft.playwright.TimeoutError;
+import com.microsoft.playwright.options.LoadState;
+import com.microsoft.playwright.options.Proxy;
+import com.microsoft.playwright.options.WaitUntilState;
+import com.pricetracker.service.PageRenderer;
+import com.pricetracker.service.PriceTrackingService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link PageRenderer} backed by headless Chromium through Playwright for Java.
+ *
+ * Playwright objects must stay on the thread that created them, so each of the
+ * {@code app.render.max-concurrency} worker threads owns one Playwright instance, one browser
+ * and one reusable browser context per egress route, configured with that route's proxy.
+ * Contexts are recycled every {@code app.render.pages-per-context} pages. Images, media, fonts
+ * and stylesheets are not downloaded; only markup and scripts matter for the price.
+ */
+@Component
+@ConditionalOnProperty(name = "app.render.enabled", havingValue = "true")
+public class PlaywrightPageRenderer implements PageRenderer {
+    
+    private static final Logger log = LoggerFactory.getLogger(PlaywrightPageRenderer.class);
+    
+    private static final Set<String> SKIPPED_RESOURCES = Set.of("image", "media", "font", "stylesheet");
+    // Chromium network errors that mean the proxy, not the retailer, failed
+    private static final List<String> PROXY_ERRORS = List.of(
+            "ERR_PROXY_CONNECTION_FAILED", "ERR_TUNNEL_CONNECTION_FAILED", "ERR_SOCKS_CONNECTION_FAILED");
+    
+    private final ExecutorService workers;
+    private final ThreadLocal<Slot> slots = new ThreadLocal<>();
+    private final Queue<Slot> allSlots = new ConcurrentLinkedQueue<>();
+    
+    // Navigation timeout; the whole render may take up to this plus the settle time
+    @Value("${app.render.timeout-ms:20000}")
+    private long timeoutMs;
+    
+    // How long to wait for network activity to stop after the DOM is loaded
+    @Value("${app.render.settle-ms:5000}")
+    private long settleMs;
+    
+    @Value("${app.render.pages-per-context:200}")
+    private int pagesPerContext;
+    
+    // Use an installed Chromium instead of the one Playwright downloads
+    @Value("${app.render.chromium-path:}")
+    private String chromiumPath;
+    
+    public PlaywrightPageRenderer(@Value("${app.render.max-concurrency:2}") int maxConcurrency) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, maxConcurrency), runnable -> {
+            Thread thread = new Thread(runnable, "render-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @Override
+    public String render(String url, java.net.Proxy proxy) throws IOException {
+        String server = proxyServer(proxy);
+        Future<String> result = workers.submit(() -> renderOnWorker(url, server));
+        try {
+            return result.get(timeoutMs + settleMs + 5000, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            result.cancel(true);
+            throw new IOException("Render timed out", e);
+        } catch (ExecutionException e) {
+            String message = String.valueOf(e.getCause().getMessage());
+            if (server != null && PROXY_ERRORS.stream().anyMatch(message::contains)) {
+                ConnectException refused = new ConnectException("Proxy " + server + " failed: " + message);
+                refused.initCause(e.getCause());
+                throw refused;
+            }
+            throw new IOException(e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while rendering", e);
+        }
+    }
+    
+    /**
+     * The Playwright proxy server of an egress route, or null for the direct connection
+     */
+    private static String proxyServer(java.net.Proxy proxy) {
+        if (proxy == null || proxy.type() == java.net.Proxy.Type.DIRECT) {
+            return null;
+        }
+        InetSocketAddress address = (InetSocketAddress) proxy.address();
+        String scheme = proxy.type() == java.net.Proxy.Type.SOCKS ? "socks5" : "http";
+        return scheme + "://" + address.getHostString() + ":" + address.getPort();
+    }
+    
+    private String renderOnWorker(String url, String proxyServer) {
+        Slot slot = slots.get();
+        if (slot == null) {
+            slot = new Slot();
+            slots.set(slot);
+            allSlots.add(slot);
+        }
+        try {
+            return slot.render(url, proxyServer);
+        } catch (PlaywrightException e) {
+            // The browser may have crashed; start over on the next render
+            slot.close();
+            allSlots.remove(slot);
+            slots.remove();
+            throw e;
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+        try {
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Slot slot : allSlots) {
+            slot.close();
+        }
+    }
+    
+    /**
+     * One worker thread's browser, with a context per egress route
+     */
+    private final class Slot {
+        private final Playwright playwright;
+        private final Browser browser;
+        // Keyed by proxy server, "" for the direct connection
+        private final Map<String, BrowserContext> contexts = new HashMap<>();
+        private final Map<String, Integer> pages = new HashMap<>();
+        
+        private Slot() {
+            long start = System.nanoTime();
+            BrowserType.LaunchOptions options = new BrowserType.LaunchOptions().setHeadless(true);
+            if (chromiumPath.isBlank()) {
+                playwright = Playwright.create();
+            } else {
+                // Don't download Playwright's own browsers when an installed one is used
+                playwright = Playwright.create(new Playwright.CreateOptions()
+                        .setEnv(Map.of("PLAYWRIGHT_SKIP_BROWSER_DOWNLOAD", "1")));
+                options.setExecutablePath(Paths.get(chromiumPath));
+            }
+            try {
+                browser = playwright.chromium().launch(options);
+            } catch (RuntimeException e) {
+                playwright.close();
+                throw e;
+            }
+            log.info("Started headless Chromium {} on {} in {}ms", browser.version(), Thread.currentThread().getName(),
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+        
+        private String render(String url, String proxyServer) {
+            String key = proxyServer != null ? proxyServer : "";
+            BrowserContext context = contexts.get(key);
+            int used = pages.getOrDefault(key, 0);
+            if (context == null || used >= pagesPerContext) {
+                if (context != null) {
+                    context.close();
+                }
+                Browser.NewContextOptions options = new Browser.NewContextOptions().setUserAgent(PriceTrackingService.DEFAULT_USER_AGENT);
+                if (proxyServer != null) {
+                    options.setProxy(new Proxy(proxyServer));
+                }
+                context = browser.newContext(options);
+                context.route("**/*", route -> {
+                    if (SKIPPED_RESOURCES.contains(route.request().resourceType())) {
+                        route.abort();
+                    } else {
+                        route.resume();
+                    }
+                });
+                contexts.put(key, context);
+                used = 0;
+            }
+            pages.put(key, used + 1);
+            Page page = context.newPage();
+            try {
+                page.navigate(url, new Page.NavigateOptions()
+                        .setTimeout(timeoutMs)
+                        .setWaitUntil(WaitUntilState.DOMCONTENTLOADED));
+                try {
+                    page.waitForLoadState(LoadState.NETWORKIDLE, new Page.WaitForLoadStateOptions().setTimeout(settleMs));
+                } catch (TimeoutError e) {
+                    // Pages that keep polling never go idle; take what has rendered so far
+                }
+                return page.content();
+            } finally {
+                page.close();
+            }
+        }
+        
+        private void close() {
+            try {
+                playwright.close();
+            } catch (Exception e) {
+                log.debug("Error closing Playwright: {}", e.getMessage());
+            }
+        }
+    }
+}
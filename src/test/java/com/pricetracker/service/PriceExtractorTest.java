@@ -0,0 +1,206 @@
+package com.pricetracker.service;
+
+import com.pricetracker.model.Product;
+import org.jsoup.Jsoup;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Price and source reported by {@link PriceExtractor} for each stage of the cascade
+ */
+class PriceExtractorTest {
+    
+    private final PriceExtractor extractor = new PriceExtractor();
+    
+    @Test
+    void jsonLdPrefersTheFirstInrOfferOverEarlierOffers() {
+        String html = jsonLd("""
+                {"@context": "https://schema.org", "@type": "Product", "name": "Boat Airdopes 141",
+                 "offers": [
+                   {"@type": "Offer", "price": "24.99", "priceCurrency": "USD"},
+                   {"@type": "Offer", "price": "1,299.00", "priceCurrency": "INR"},
+                   {"@type": "Offer", "price": "1399", "priceCurrency": "INR"}
+                 ]}""");
+        
+        assertExtracted(1299.0, PriceExtractor.SOURCE_JSON_LD, html);
+    }
+    
+    @Test
+    void jsonLdFallsBackToTheFirstOfferWithoutInr() {
+        String html = jsonLd("""
+                {"@type": "Product", "offers": [
+                   {"@type": "Offer", "price": 49.5, "priceCurrency": "USD"},
+                   {"@type": "Offer", "price": 45, "priceCurrency": "EUR"}
+                 ]}""");
+        
+        assertExtracted(49.5, PriceExtractor.SOURCE_JSON_LD, html);
+    }
+    
+    @Test
+    void jsonLdIgnoresListPriceSpecification() {
+        String html = jsonLd("""
+                {"@type": "Product", "name": "Prestige Iris 750W",
+                 "offers": {"@type": "Offer", "price": "3299.00", "priceCurrency": "INR",
+                   "priceSpecification": [
+                     {"@type": "UnitPriceSpecification", "priceType": "https://schema.org/ListPrice",
+                      "price": "5495.00", "priceCurrency": "INR"},
+                     {"@type": "UnitPriceSpecification", "priceType": "https://schema.org/StrikethroughPrice",
+                      "price": "4999.00", "priceCurrency": "INR"}
+                   ]}}""");
+        
+        assertExtracted(3299.0, PriceExtractor.SOURCE_JSON_LD, html);
+    }
+    
+    @Test
+    void jsonLdReadsSalePriceFromPriceSpecification() {
+        String html = jsonLd("""
+                {"@type": "Product", "offers": {"@type": "Offer", "priceSpecification": [
+                   {"@type": "UnitPriceSpecification", "priceType": "https://schema.org/ListPrice", "price": 999, "priceCurrency": "INR"},
+                   {"@type": "UnitPriceSpecification", "price": 849.5, "priceCurrency": "INR"}
+                 ]}}""");
+        
+        assertExtracted(849.5, PriceExtractor.SOURCE_JSON_LD, html);
+    }
+    
+    @Test
+    void jsonLdReadsAggregateOfferLowPrice() {
+        String html = jsonLd("""
+                {"@type": "Product", "offers": {"@type": "AggregateOffer", "lowPrice": "2199", "highPrice": "2699",
+                 "priceCurrency": "INR", "offerCount": 4}}""");
+        
+        assertExtracted(2199.0, PriceExtractor.SOURCE_JSON_LD, html);
+    }
+    
+    @Test
+    void shopifyPageUsesTheFirstVariantOffer() throws IOException {
+        // Sale and compare-at prices in the markup, one offer per variant, Organization and WebSite blocks
+        assertExtracted(1899.0, PriceExtractor.SOURCE_JSON_LD, fixture("shopify-jsonld.html"));
+    }
+    
+    @Test
+    void magentoPageUsesTheOfferMicrodata() throws IOException {
+        // Old price and related products in price boxes, and the meta tag as a lower priority source
+        assertExtracted(1049.0, PriceExtractor.SOURCE_MICRODATA, fixture("magento-microdata.html"));
+    }
+    
+    @Test
+    void microdataOfferPriceUsesContentAttribute() {
+        String html = """
+                <html><body>
+                <div itemscope itemtype="https://schema.org/Product">
+                  <h1 itemprop="name">Wildcraft 45L Rucksack</h1>
+                  <div itemprop="offers" itemscope itemtype="https://schema.org/Offer">
+                    <meta itemprop="priceCurrency" content="INR">
+                    <span class="amount">₹<span itemprop="price" content="2849.00">2,849</span></span>
+                  </div>
+                  <div class="mrp">M.R.P. ₹3,999</div>
+                </div>
+                </body></html>""";
+        
+        assertExtracted(2849.0, PriceExtractor.SOURCE_MICRODATA, html);
+    }
+    
+    @Test
+    void metaTagPriceIsUsedWithoutOtherStructuredData() {
+        String html = """
+                <html><head>
+                <meta property="og:type" content="product">
+                <meta property="product:price:amount" content="1,149.00">
+                <meta property="product:price:currency" content="INR">
+                </head><body><p>Cotton kurta, sizes S to XXL</p></body></html>""";
+        
+        assertExtracted(1149.0, PriceExtractor.SOURCE_META, html);
+    }
+    
+    @Test
+    void jsonLdWinsOverMicrodataAndMeta() {
+        String html = """
+                <html><head>
+                <meta property="product:price:amount" content="1500">
+                <script type="application/ld+json">{"@type": "Offer", "price": "1450", "priceCurrency": "INR"}</script>
+                </head><body>
+                <div itemprop="offers" itemscope itemtype="https://schema.org/Offer"><span itemprop="price">1475</span></div>
+                </body></html>""";
+        
+        assertExtracted(1450.0, PriceExtractor.SOURCE_JSON_LD, html);
+    }
+    
+    @Test
+    void customSelectorWinsOverStructuredData() {
+        String html = """
+                <html><head>
+                <script type="application/ld+json">{"@type": "Offer", "price": "1450", "priceCurrency": "INR"}</script>
+                </head><body><div id="deal">Deal price: ₹1,199</div></body></html>""";
+        Product product = product();
+        product.setPriceSelector("#deal");
+        
+        PriceExtractor.Extraction extraction = extractor.extract(Jsoup.parse(html), product);
+        
+        assertEquals(1199.0, extraction.getPrice());
+        assertEquals(PriceExtractor.SOURCE_CUSTOM, extraction.getSource());
+    }
+    
+    @Test
+    void selectorCascadeReportsTheMatchingSelector() {
+        String html = """
+                <html><body>
+                <span class="a-price"><span class="a-offscreen">₹1,499.00</span>
+                <span class="a-price-whole">1,499<span class="a-price-decimal">.</span></span></span>
+                <span class="a-size-small">M.R.P.: ₹4,990.00</span>
+                </body></html>""";
+        
+        assertExtracted(1499.0, ".a-price-whole", html);
+    }
+    
+    @Test
+    void bodyTextPrefersAnAmountWithCurrency() {
+        String html = """
+                <html><body>
+                <h2>Handloom Cotton Saree</h2>
+                <table><tr><td>Length</td><td>6.3 m with blouse piece</td></tr>
+                <tr><td>Our rate</td><td><b>Rs. 2,150</b> (inclusive of GST)</td></tr></table>
+                <p>Cash on delivery available for orders below Rs. 5,000.</p>
+                </body></html>""";
+        
+        assertExtracted(2150.0, PriceExtractor.SOURCE_BODY_TEXT, html);
+    }
+    
+    @Test
+    void pageWithoutPriceYieldsNone() {
+        PriceExtractor.Extraction extraction = extractor.extract(
+                Jsoup.parse("<html><body><p>Currently unavailable</p></body></html>"), product());
+        
+        assertNull(extraction.getPrice());
+        assertEquals(PriceExtractor.SOURCE_NONE, extraction.getSource());
+    }
+    
+    private void assertExtracted(double price, String source, String html) {
+        PriceExtractor.Extraction extraction = extractor.extract(Jsoup.parse(html, "https://www.example.in/"), product());
+        assertEquals(price, extraction.getPrice());
+        assertEquals(source, extraction.getSource());
+    }
+    
+    private static String fixture(String name) throws IOException {
+        try (InputStream in = PriceExtractorTest.class.getResourceAsStream("/fixtures/" + name)) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+    
+    private static String jsonLd(String json) {
+        return "<html><head><script type=\"application/ld+json\">" + json + "</script></head>"
+                + "<body><p>Product page</p></body></html>";
+    }
+    
+    private static Product product() {
+        Product product = new Product();
+        product.setName("Test product");
+        product.setUrl("https://www.example.in/product");
+        return product;
+    }
+}